@@ -0,0 +1,82 @@
+package no.ntnu.stud.idata2306project.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.stud.idata2306project.dto.CarDto;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.service.CarFilterService;
+import no.ntnu.stud.idata2306project.service.CarService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Benchmark of {@link CarService#getCarDtoFromCar(Car)} and
+ * {@link CarService#getCarDtosFromCars(List)}, converting the first page of cars of the catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CarDtoBenchmark {
+
+  /**
+   * A page of cars to convert, of {@code pageSize} cars.
+   */
+  @State(Scope.Benchmark)
+  public static class Cars {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private CarService carService;
+    private List<Car> cars;
+
+    /**
+     * Find the service, and load the cars.
+     *
+     * @param catalog the running application
+     */
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) {
+      carService = catalog.getBean(CarService.class);
+      cars = catalog.getBean(CarFilterService.class)
+          .getCarsByFilters(Map.of(), PageRequest.of(0, pageSize))
+          .getContent();
+    }
+  }
+
+  /**
+   * Convert one car.
+   *
+   * @param cars the cars, of which the first is converted
+   * @return the converted car
+   */
+  @Benchmark
+  public CarDto getCarDtoFromCar(Cars cars) {
+    return cars.carService.getCarDtoFromCar(cars.cars.get(0));
+  }
+
+  /**
+   * Convert a page of cars together.
+   *
+   * @param cars the cars to convert
+   * @return the converted cars
+   */
+  @Benchmark
+  public List<CarDto> getCarDtosFromCars(Cars cars) {
+    return cars.carService.getCarDtosFromCars(cars.cars);
+  }
+}
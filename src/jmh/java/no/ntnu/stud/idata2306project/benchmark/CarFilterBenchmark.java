@@ -0,0 +1,91 @@
+package no.ntnu.stud.idata2306project.benchmark;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.model.company.Company;
+import no.ntnu.stud.idata2306project.repository.CompanyRepository;
+import no.ntnu.stud.idata2306project.service.CarFilterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link CarFilterService#getCarsByFilters(Map)}, for each type of filter and for
+ * combinations of them.
+ *
+ * <p>The {@code filter} parameter names the filters to apply, joined by {@code +}. The dates of
+ * the availability filters are relative to today, as the generated orders are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CarFilterBenchmark {
+
+  @Param({"none", "brand", "fuel_type", "seats", "price", "seller", "keyword", "from_time",
+      "between_times", "brand+fuel_type", "brand+seats+price",
+      "brand+fuel_type+seats+price+between_times"})
+  public String filter;
+
+  private CarFilterService carFilterService;
+  private Map<String, String> filters;
+
+  /**
+   * Find the service, and build the filters named by the {@code filter} parameter.
+   *
+   * @param catalog the running application
+   */
+  @Setup(Level.Trial)
+  public void setUp(CatalogState catalog) {
+    carFilterService = catalog.getBean(CarFilterService.class);
+    List<String> sellers = catalog.getBean(CompanyRepository.class).findAll().stream()
+        .limit(2)
+        .map(Company::getName)
+        .toList();
+    LocalDate from = LocalDate.now().plusDays(30);
+
+    filters = new HashMap<>();
+    for (String name : filter.split("\\+")) {
+      switch (name) {
+        case "none" -> { }
+        case "brand" -> filters.put("brand", "Tesla,Volvo");
+        case "fuel_type" -> filters.put("fuel_type", "Electric");
+        case "seats" -> filters.put("seats", "5,7");
+        case "price" -> {
+          filters.put("from_price", "500");
+          filters.put("to_price", "900");
+        }
+        case "seller" -> filters.put("seller", String.join(",", sellers));
+        case "keyword" -> filters.put("keyword", "model");
+        case "from_time" -> filters.put("from_time", from.toString());
+        case "between_times" -> filters.put("between_times", from + "," + from.plusDays(7));
+        default -> throw new IllegalArgumentException("Unknown filter " + name);
+      }
+    }
+  }
+
+  /**
+   * Filter the cars.
+   *
+   * @return the matching cars
+   */
+  @Benchmark
+  public List<Car> getCarsByFilters() {
+    return carFilterService.getCarsByFilters(filters);
+  }
+}
@@ -0,0 +1,56 @@
+package no.ntnu.stud.idata2306project.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.service.CarSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link CarSearchService#getCarsByKeyword(String)}, for a brand, a model, a word
+ * shared by many models, and a keyword matching nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CarSearchBenchmark {
+
+  @Param({"tesla", "golf", "model", "nothing"})
+  public String keyword;
+
+  private CarSearchService carSearchService;
+
+  /**
+   * Find the service.
+   *
+   * @param catalog the running application
+   */
+  @Setup(Level.Trial)
+  public void setUp(CatalogState catalog) {
+    carSearchService = catalog.getBean(CarSearchService.class);
+  }
+
+  /**
+   * Search for the keyword.
+   *
+   * @return the matching cars
+   */
+  @Benchmark
+  public List<Car> getCarsByKeyword() {
+    return carSearchService.getCarsByKeyword(keyword);
+  }
+}
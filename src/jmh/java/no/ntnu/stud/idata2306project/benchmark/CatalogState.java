@@ -0,0 +1,84 @@
+package no.ntnu.stud.idata2306project.benchmark;
+
+import no.ntnu.stud.idata2306project.Application;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application, running against an in-memory H2 database filled by the
+ * {@link no.ntnu.stud.idata2306project.tools.SyntheticDataGenerator}.
+ *
+ * <p>The application is started once per trial, so every benchmark in a fork measures the same
+ * dataset. The size of the dataset is set by the {@code cars} and {@code orders} parameters,
+ * for example {@code -p cars=10000,100000}. The seed of the generator is fixed, so runs of
+ * different commits measure the same data.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+  static final String JWT_SECRET_KEY = "benchmark-secret-key-benchmark-secret-key-0123456789";
+
+  @Param({"10000"})
+  public int cars;
+
+  @Param({"100000"})
+  public int orders;
+
+  private ConfigurableApplicationContext context;
+
+  /**
+   * Start the application and generate the dataset.
+   */
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = SpringApplication.run(Application.class,
+        "--spring.config.on-not-found=ignore",
+        "--spring.docker.compose.enabled=false",
+        "--spring.devtools.restart.enabled=false",
+        "--spring.datasource.url=jdbc:h2:mem:benchmark;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.properties.hibernate.generate_statistics=false",
+        "--server.port=0",
+        "--jwt.secret.key=" + JWT_SECRET_KEY,
+        "--cors.allowed.origins=http://localhost",
+        "--ADMIN_USER_EMAIL=admin@benchmark.example",
+        "--ADMIN_USER_PASSWORD=admin",
+        "--REGULAR_USER_EMAIL=user@benchmark.example",
+        "--REGULAR_USER_PASSWORD=user",
+        "--COMPANY_USER_EMAIL=company@benchmark.example",
+        "--COMPANY_USER_PASSWORD=company",
+        "--spring.profiles.active=synthetic-data",
+        "--synthetic-data.cars=" + cars,
+        "--synthetic-data.orders=" + orders,
+        "--synthetic-data.users=1000",
+        "--logging.level.root=WARN",
+        "--logging.level.no.ntnu.stud.idata2306project=WARN");
+  }
+
+  /**
+   * Stop the application.
+   */
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+
+  /**
+   * Returns the bean of the application of a type.
+   *
+   * @param type the type of the bean
+   * @param <T> the type of the bean
+   * @return the bean
+   */
+  public <T> T getBean(Class<T> type) {
+    return context.getBean(type);
+  }
+}
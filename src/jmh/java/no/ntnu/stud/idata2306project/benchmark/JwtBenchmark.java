@@ -0,0 +1,89 @@
+package no.ntnu.stud.idata2306project.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.stud.idata2306project.config.JwtUtil;
+import no.ntnu.stud.idata2306project.security.AccessUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of generating and validating tokens with {@link JwtUtil}.
+ *
+ * <p>The token utility does not use the database, so it is created directly rather than started
+ * with the application. A token validated again is answered from the cache of verified claims,
+ * so validation is measured both for one token validated over and over, and for more distinct
+ * tokens than the cache holds, which are verified every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtBenchmark {
+
+  private static final int CACHED_TOKENS = 1000;
+  private static final int TOKENS = 2 * CACHED_TOKENS;
+
+  private JwtUtil jwtUtil;
+  private AccessUserDetails[] users;
+  private String[] tokens;
+  private int next;
+
+  /**
+   * Create the token utility, and a token of each user.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    jwtUtil = new JwtUtil(CatalogState.JWT_SECRET_KEY, CACHED_TOKENS);
+    users = new AccessUserDetails[TOKENS];
+    tokens = new String[TOKENS];
+    for (int i = 0; i < TOKENS; i++) {
+      users[i] = new AccessUserDetails((long) i, "user" + i + "@benchmark.example",
+          List.of("USER"));
+      tokens[i] = jwtUtil.generateToken(users[i]);
+    }
+  }
+
+  /**
+   * Generate a token.
+   *
+   * @return the token
+   */
+  @Benchmark
+  public String generateToken() {
+    return jwtUtil.generateToken(users[0]);
+  }
+
+  /**
+   * Validate the same token every time.
+   *
+   * @return true if the token is valid
+   */
+  @Benchmark
+  public boolean validateCachedToken() {
+    return jwtUtil.validateToken(tokens[0], users[0]);
+  }
+
+  /**
+   * Validate the tokens in turn, which are too many to be cached.
+   *
+   * @return true if the token is valid
+   */
+  @Benchmark
+  public boolean validateUncachedToken() {
+    int i = next;
+    next = (i + 1) % TOKENS;
+    return jwtUtil.validateToken(tokens[i], users[i]);
+  }
+}
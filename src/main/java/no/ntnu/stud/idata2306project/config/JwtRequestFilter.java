@@ -1,19 +1,21 @@
 package no.ntnu.stud.idata2306project.config;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import no.ntnu.stud.idata2306project.service.UserDetailsServiceImpl;
+import no.ntnu.stud.idata2306project.security.AccessUserDetails;
+import no.ntnu.stud.idata2306project.service.UserDetailsCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,6 +24,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
 /**
  * Filter class for handling JWT tokens.
  *
+ * <p>The user is taken from the claims of the token when it carries them and the user has not
+ * changed since it was issued. Otherwise the user is loaded through the {@link UserDetailsCache}.
+ *
  * <p>Inspiration taken from:
  * <a href="https://github.com/strazdinsg/app-dev/tree/main/security-demos/05-jwt-authentication">...</a>
  */
@@ -29,21 +34,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
 
-  UserDetailsService userDetailsService;
+  UserDetailsCache userDetailsCache;
   JwtUtil jwtUtil;
 
   private Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
 
   /**
-   * Create a JwtRequestFilter using a given JwtUtil and UserDetailsService.
+   * Create a JwtRequestFilter using a given JwtUtil and UserDetailsCache.
    *
-   * @param jwtUtil            the JwtUtil to use
-   * @param userDetailsService the UserDetailsService to use
+   * @param jwtUtil          the JwtUtil to use
+   * @param userDetailsCache the UserDetailsCache to use
    */
-  public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService) {
+  public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsCache userDetailsCache) {
     super();
     this.jwtUtil = jwtUtil;
-    this.userDetailsService = userDetailsService;
+    this.userDetailsCache = userDetailsCache;
   }
 
   /**
@@ -67,16 +72,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     String jwtToken = getJwt(request);
 
     try {
-      String username = jwtToken != null ? getUsernameFromToken(jwtToken) : null;
+      Claims claims = jwtToken != null ? jwtUtil.extractAllClaims(jwtToken) : null;
+      String username = claims != null ? claims.getSubject() : null;
 
       if (username != null && !isContextAuthenticated()) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        if (userDetails != null && jwtUtil.validateToken(jwtToken, userDetails)) {
+        UserDetails userDetails = getUserDetails(claims);
+        if (userDetails != null && jwtUtil.validateClaims(claims, userDetails)) {
           registerUserAsAuthenticated(request, userDetails);
         }
       }
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
+    } catch (UsernameNotFoundException e) {
+      logger.warn("User of JWT token not found: {}", e.getMessage());
     }
 
     filterChain.doFilter(request, response);
@@ -98,13 +106,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
   }
 
   /**
-   * Returns the username from a jwt.
+   * Returns the user details of the user a token was issued to.
    *
-   * @param jwt the jwt
-   * @return the username from the jwt
+   * @param claims the verified claims of the token
+   * @return the user details
+   * @throws UsernameNotFoundException if the user must be loaded and is not found
    */
-  private String getUsernameFromToken(String jwt) {
-    return jwtUtil.extractUsername(jwt);
+  private UserDetails getUserDetails(Claims claims) {
+    AccessUserDetails userDetails = jwtUtil.extractUserDetails(claims);
+    if (userDetails != null
+        && userDetailsCache.isUnchangedSince(userDetails.getId(), claims.getIssuedAt())) {
+      return userDetails;
+    }
+    return userDetailsCache.getUserDetails(claims.getSubject());
   }
 
   /**
@@ -1,12 +1,23 @@
 package no.ntnu.stud.idata2306project.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import no.ntnu.stud.idata2306project.security.AccessUserDetails;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -14,13 +25,49 @@ import org.springframework.stereotype.Component;
 /**
  * Utility class for handling JWT tokens.
  *
+ * <p>Verifying the signature of a token is done once per token. The verified claims are cached
+ * under the SHA-256 digest of the token, so the token itself is not kept in memory, until the
+ * token expires. The cache holds at most {@code jwt.claims-cache.max-entries} tokens, evicting the
+ * least recently used.
+ *
+ * <p>Tokens for {@link AccessUserDetails} also carry the id and roles of the user, so requests can
+ * be authenticated without loading the user.
+ *
  * <p>Inspiration taken from:
  * <a href="https://github.com/strazdinsg/app-dev/tree/main/security-demos/05-jwt-authentication">...</a>
  */
 @Component
 public class JwtUtil {
-  @Value("${jwt.secret.key}")
-  private String secretKey;
+  /**
+   * How long a token is valid after it is issued.
+   */
+  public static final Duration TOKEN_LIFETIME = Duration.ofHours(3);
+
+  private static final String USER_ID_CLAIM = "uid";
+  private static final String ROLES_CLAIM = "roles";
+
+  private final SecretKey signingKey;
+  private final JwtParser parser;
+  private final Map<String, Claims> verifiedClaims;
+
+  /**
+   * Creates an instance of JwtUtil.
+   *
+   * @param secretKey the secret key used to sign the tokens
+   * @param maxCachedTokens the largest number of tokens to cache the verified claims of
+   */
+  public JwtUtil(@Value("${jwt.secret.key}") String secretKey,
+                 @Value("${jwt.claims-cache.max-entries:10000}") int maxCachedTokens) {
+    byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+    this.signingKey = new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+    this.parser = Jwts.parser().verifyWith(signingKey).build();
+    this.verifiedClaims = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+        return size() > maxCachedTokens;
+      }
+    };
+  }
 
   /**
    * Generates a token for a user.
@@ -30,46 +77,73 @@ public class JwtUtil {
    */
   public String generateToken(UserDetails userDetails) {
     final long timeNow = System.currentTimeMillis();
-    final long millisecondsInHour = (long) 60 * 60 * 1000;
-    final long timeAfterThreeHours = timeNow + 3 * millisecondsInHour;
+    final long expirationTime = timeNow + TOKEN_LIFETIME.toMillis();
 
-    return Jwts.builder()
+    JwtBuilder builder = Jwts.builder()
       .subject(userDetails.getUsername())
       .issuedAt(new Date(timeNow))
-      .expiration(new Date(timeAfterThreeHours))
-      .signWith(getSigningKey())
-      .compact();
+      .expiration(new Date(expirationTime));
+    if (userDetails instanceof AccessUserDetails accessUserDetails) {
+      builder
+        .claim(USER_ID_CLAIM, accessUserDetails.getId())
+        .claim(ROLES_CLAIM, accessUserDetails.getAuthorities().stream()
+          .map(GrantedAuthority::getAuthority)
+          .toList());
+    }
+    return builder.signWith(signingKey).compact();
   }
 
   /**
-   * Extract the username from a token.
+   * Create the user details described by the verified claims of a token.
    *
-   * @param token the token to extract the username from
-   * @return the username
+   * @param claims the claims of the token
+   * @return the user details, or null if the token does not carry the id and roles of the user
    */
-  public String extractUsername(String token) {
-    final Claims claims = extractAllClaims(token);
-    return claims.getSubject();
+  public AccessUserDetails extractUserDetails(Claims claims) {
+    Long userId = claims.get(USER_ID_CLAIM, Long.class);
+    List<?> roles = claims.get(ROLES_CLAIM, List.class);
+    if (userId == null || roles == null) {
+      return null;
+    }
+    return new AccessUserDetails(userId, claims.getSubject(),
+      roles.stream().map(String::valueOf).toList());
   }
 
   /**
-   * Extract a claim from a token.
+   * Extract the username from a token.
    *
-   * @param token the token to extract the claim from
-   * @return the claim
+   * @param token the token to extract the username from
+   * @return the username
    */
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
+  public String extractUsername(String token) {
+    return extractAllClaims(token).getSubject();
   }
 
   /**
-   * Gets the signing key.
+   * Extract the verified claims of a token, verifying its signature only if it has not been
+   * verified before.
    *
-   * @return the signing key
+   * @param token the token to extract the claims from
+   * @return the claims
+   * @throws io.jsonwebtoken.ExpiredJwtException if the token is expired
+   * @throws io.jsonwebtoken.JwtException if the token is invalid
    */
-  private SecretKey getSigningKey() {
-    byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-    return new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+  public Claims extractAllClaims(String token) {
+    String digest = digest(token);
+    synchronized (verifiedClaims) {
+      Claims claims = verifiedClaims.get(digest);
+      if (claims != null && !isExpired(claims)) {
+        return claims;
+      }
+      verifiedClaims.remove(digest);
+    }
+
+    // Parsing again also throws the ExpiredJwtException for a cached token that has expired
+    Claims claims = parser.parseSignedClaims(token).getPayload();
+    synchronized (verifiedClaims) {
+      verifiedClaims.put(digest, claims);
+    }
+    return claims;
   }
 
   /**
@@ -80,10 +154,20 @@ public class JwtUtil {
    * @return true if the token is valid, false otherwise
    */
   public boolean validateToken(String token, UserDetails userDetails) {
-    final String username = extractUsername(token);
+    return validateClaims(extractAllClaims(token), userDetails);
+  }
+
+  /**
+   * Validate the verified claims of a token.
+   *
+   * @param claims the claims to validate
+   * @param userDetails the user details to validate the claims against
+   * @return true if the claims are valid, false otherwise
+   */
+  public boolean validateClaims(Claims claims, UserDetails userDetails) {
     return userDetails != null
-      && username.equals(userDetails.getUsername())
-      && !isTokenExpired(token);
+      && claims.getSubject().equals(userDetails.getUsername())
+      && !isExpired(claims);
   }
 
   /**
@@ -93,18 +177,26 @@ public class JwtUtil {
    * @return true if the token is expired, false otherwise
    */
   public boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
+    return isExpired(extractAllClaims(token));
+  }
+
+  private static boolean isExpired(Claims claims) {
+    Date expiration = claims.getExpiration();
+    return expiration != null && expiration.before(new Date());
   }
 
   /**
-   * Extract the expiration date from a token.
-   *
-   * @param token the token to extract the expiration date from
-   * @return the expiration date
+   * Returns the hex encoded SHA-256 digest of a token.
    */
-  private Date extractExpiration(String token) {
-    final Claims claims = extractAllClaims(token);
-    return claims.getExpiration();
+  private static String digest(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
   }
 
 }
@@ -59,10 +59,13 @@ public class SecurityConfig {
           HttpMethod.GET,
           "/car",
           "/car/{id}",
+          "/car/facets",
+          "/reference",
           "/company/with_rentals",
           "/brand/with_rentals",
           "/fuel/with_rentals",
           "/image/{carId}/{imageType}/{imageWidth}",
+          "/image/{carId}/{imageType}/{imageWidth}/raw",
           "/order/car/{carId}",
           "company/cars/{companyId}"
         ).permitAll()
@@ -4,18 +4,21 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import no.ntnu.stud.idata2306project.config.AuthenticationRequest;
 import no.ntnu.stud.idata2306project.config.JwtUtil;
-import no.ntnu.stud.idata2306project.service.UserDetailsServiceImpl;
+import no.ntnu.stud.idata2306project.exception.AuthenticationUnavailableException;
+import no.ntnu.stud.idata2306project.exception.TooManyLoginAttemptsException;
+import no.ntnu.stud.idata2306project.service.AuthenticationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -30,14 +33,18 @@ import org.springframework.web.bind.annotation.RestController;
  * <ul>
  *   <li> Authenticate user
  *   <li> Validate Jwt
+ *   <li> Get the statistics of the login verifications
  * </ul>
+ *
+ * <p>Passwords are verified by the {@link AuthenticationService} off the request thread. Logins
+ * are answered with 429 Too Many Requests when an account or address makes too many attempts, and
+ * with 503 Service Unavailable when too many logins are being verified at once.
  */
 @Tag(name = "Authentication", description = "Endpoints for authentication")
 @RestController
 @RequestMapping("/authenticate")
 public class AuthenticationController {
-  private final AuthenticationManager authenticationManager;
-  private final UserDetailsServiceImpl userDetailsService;
+  private final AuthenticationService authenticationService;
   private final JwtUtil jwtUtil;
 
   Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
@@ -45,16 +52,13 @@ public class AuthenticationController {
   /**
    * Creates a new AuthenticationController.
    *
-   * @param authenticationManager the authentication manager to use
-   * @param userDetailsService    the user details service to use
+   * @param authenticationService the authentication service to use
    * @param jwtUtil               the JWT utility to use
    */
   public AuthenticationController(
-      AuthenticationManager authenticationManager,
-      UserDetailsServiceImpl userDetailsService,
+      AuthenticationService authenticationService,
       JwtUtil jwtUtil) {
-    this.authenticationManager = authenticationManager;
-    this.userDetailsService = userDetailsService;
+    this.authenticationService = authenticationService;
     this.jwtUtil = jwtUtil;
   }
 
@@ -62,7 +66,8 @@ public class AuthenticationController {
    * Authenticates a user.
    *
    * @param request the authentication request
-   * @return a response entity containing the JWT token
+   * @param httpRequest the HTTP request, giving the address of the client
+   * @return a response entity containing the JWT token, when the password has been verified
    */
   @Operation(summary = "Authenticate user",
       description = "Authenticates a user and returns a JWT token")
@@ -70,38 +75,55 @@ public class AuthenticationController {
       @ApiResponse(responseCode = "200", description = "JWT"),
       @ApiResponse(responseCode = "400", description = "Missing body"),
       @ApiResponse(responseCode = "401", description = "Incorrect username or password"),
-      @ApiResponse(responseCode = "500", description = "Error during authentication")
+      @ApiResponse(responseCode = "429", description = "Too many login attempts"),
+      @ApiResponse(responseCode = "500", description = "Error during authentication"),
+      @ApiResponse(responseCode = "503", description = "Too many logins are being verified")
   })
   @PostMapping()
-  public ResponseEntity<String> authenticate(
-      @RequestBody(required = false) AuthenticationRequest request) {
+  public CompletableFuture<ResponseEntity<String>> authenticate(
+      @RequestBody(required = false) AuthenticationRequest request,
+      HttpServletRequest httpRequest) {
     if (request == null) {
       logger.warn("Missing body in authenticate request");
-      return new ResponseEntity<>("Missing body", HttpStatus.BAD_REQUEST);
+      return CompletableFuture.completedFuture(
+          new ResponseEntity<>("Missing body", HttpStatus.BAD_REQUEST));
     }
 
     logger.info("Authenticating user {}", request.getUsername());
 
     try {
-      authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
-          request.getUsername(),
-          request.getPassword()));
-
-      UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
-      String jwt = jwtUtil.generateToken(userDetails);
-      return ResponseEntity.ok(jwt);
-    } catch (BadCredentialsException e) {
-      logger.error(e.getMessage());
-      return new ResponseEntity<>("Incorrect username or password", HttpStatus.UNAUTHORIZED);
-    } catch (UsernameNotFoundException e) {
-      logger.error(e.getMessage());
-      return new ResponseEntity<>("User not found", HttpStatus.UNAUTHORIZED);
-    } catch (Exception e) {
-      logger.error(e.getMessage());
-      return new ResponseEntity<>("Error during authentication", HttpStatus.INTERNAL_SERVER_ERROR);
+      return authenticationService
+          .authenticate(request.getUsername(), request.getPassword(), httpRequest.getRemoteAddr())
+          .thenApply(userDetails -> ResponseEntity.ok(jwtUtil.generateToken(userDetails)))
+          .exceptionally(this::toErrorResponse);
+    } catch (TooManyLoginAttemptsException e) {
+      logger.warn("{} for user {}", e.getMessage(), request.getUsername());
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+          .body("Too many login attempts"));
+    } catch (AuthenticationUnavailableException e) {
+      return CompletableFuture.completedFuture(toErrorResponse(e));
     }
   }
 
+  /**
+   * Get the number of verified logins, how long they took, and the state of the queue.
+   *
+   * @return the statistics of the login verifications
+   */
+  @Operation(
+      summary = "Get login verification statistics",
+      description = "Get the number of verified logins, how long they took, and the queue depth"
+  )
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Login verification statistics"),
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @GetMapping("/statistics")
+  public ResponseEntity<AuthenticationService.Statistics> getStatistics() {
+    return ResponseEntity.ok(authenticationService.getStatistics());
+  }
+
   /**
    * Validates the JWT token.
    *
@@ -117,4 +139,24 @@ public class AuthenticationController {
   public ResponseEntity<String> validateJwt() {
     return ResponseEntity.ok("Token is valid");
   }
+
+  /**
+   * Creates the response to a login that failed.
+   *
+   * @param e the exception the login failed with
+   * @return the response to the login
+   */
+  private ResponseEntity<String> toErrorResponse(Throwable e) {
+    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+    logger.error(cause.getMessage());
+    if (cause instanceof BadCredentialsException) {
+      return new ResponseEntity<>("Incorrect username or password", HttpStatus.UNAUTHORIZED);
+    } else if (cause instanceof UsernameNotFoundException) {
+      return new ResponseEntity<>("User not found", HttpStatus.UNAUTHORIZED);
+    } else if (cause instanceof AuthenticationUnavailableException) {
+      return new ResponseEntity<>("Too many logins are being verified, try again later",
+          HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    return new ResponseEntity<>("Error during authentication", HttpStatus.INTERNAL_SERVER_ERROR);
+  }
 }
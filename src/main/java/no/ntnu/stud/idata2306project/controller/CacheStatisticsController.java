@@ -0,0 +1,62 @@
+package no.ntnu.stud.idata2306project.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import no.ntnu.stud.idata2306project.dto.CacheRegionStatisticsDto;
+import no.ntnu.stud.idata2306project.service.CacheStatisticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Represents a controller for the statistics of the second-level cache.
+ *
+ * <p>Contains the following endpoints:
+ * <ul>
+ *   <li> Get the statistics of every cache region
+ * </ul>
+ */
+@Tag(name = "Cache", description = "Endpoints for inspecting the second-level cache")
+@RestController
+@RequestMapping("/cache")
+public class CacheStatisticsController {
+  private final CacheStatisticsService cacheStatisticsService;
+  private final Logger logger = LoggerFactory.getLogger(CacheStatisticsController.class);
+
+  /**
+   * Creates a new cache statistics controller.
+   *
+   * @param cacheStatisticsService the cache statistics service
+   */
+  public CacheStatisticsController(CacheStatisticsService cacheStatisticsService) {
+    this.cacheStatisticsService = cacheStatisticsService;
+  }
+
+  /**
+   * Gets the hits, misses, puts, hit ratio and size of every region of the second-level cache.
+   *
+   * @return the statistics of every cache region
+   */
+  @Operation(
+      summary = "Get the statistics of the cache regions",
+      description = "Get the hits, misses, puts, hit ratio and size of every region of the "
+          + "second-level cache. Only accessible by admin"
+  )
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "The statistics of every cache region"),
+      @ApiResponse(responseCode = "403", description = "Forbidden")
+  })
+  @PreAuthorize("hasAuthority('ADMIN')")
+  @GetMapping("/statistics")
+  public ResponseEntity<List<CacheRegionStatisticsDto>> getStatistics() {
+    this.logger.info("Getting cache region statistics");
+    return ResponseEntity.ok(cacheStatisticsService.getRegionStatistics());
+  }
+}
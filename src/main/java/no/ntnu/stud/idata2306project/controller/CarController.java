@@ -5,23 +5,39 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import no.ntnu.stud.idata2306project.dto.CarDto;
+import no.ntnu.stud.idata2306project.dto.CarFacetsDto;
 import no.ntnu.stud.idata2306project.exception.CarNotFoundException;
 import no.ntnu.stud.idata2306project.exception.CompanyNotFoundException;
 import no.ntnu.stud.idata2306project.exception.InvalidFilterException;
 import no.ntnu.stud.idata2306project.exception.UnauthorizedException;
 import no.ntnu.stud.idata2306project.model.car.Car;
 import no.ntnu.stud.idata2306project.security.AccessUserDetails;
+import no.ntnu.stud.idata2306project.service.CarCursor;
+import no.ntnu.stud.idata2306project.service.CarFacetService;
 import no.ntnu.stud.idata2306project.service.CarFilterService;
 import no.ntnu.stud.idata2306project.service.CarService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -34,6 +50,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Represents a controller for cars.
@@ -41,8 +58,10 @@ import org.springframework.web.bind.annotation.RestController;
  * <p>Contains the following endpoints:
  * <ul>
  * <li>Get all cars
+ * <li>Stream all cars as newline delimited JSON
  * <li>Get a car by its id
  * <li>Get all amount of seats
+ * <li>Get the facets of the cars matching filters
  * <li>Add a new car
  * <li>Update a car's visibility
  * <li>Delete a car by its id
@@ -56,19 +75,39 @@ public class CarController {
 
   private final CarService carService;
   private final CarFilterService carFilterService;
+  private final CarFacetService carFacetService;
+  private final ObjectMapper objectMapper;
   private final Logger logger = LoggerFactory.getLogger(CarController.class);
 
+  private static final String PARAM_PAGE = "page";
+  private static final String PARAM_SIZE = "size";
+  private static final String PARAM_SORT = "sort";
+  private static final String PARAM_CURSOR = "cursor";
+  private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final int STREAM_BATCH_SIZE = 500;
+  private static final int DEFAULT_PAGE_SIZE = 20;
+  private static final int MAX_PAGE_SIZE = 100;
+  private static final Set<String> SORTABLE_PROPERTIES =
+      Set.of("id", "year", "numberOfSeats", "pricePerDay");
+
   /**
    * Create a new CarController.
    *
    * @param carService       The service for cars
    * @param carFilterService The service for filtering cars
+   * @param carFacetService  The service for counting cars per facet
+   * @param objectMapper     The mapper writing streamed cars as JSON
    */
   public CarController(
       CarService carService,
-      CarFilterService carFilterService) {
+      CarFilterService carFilterService,
+      CarFacetService carFacetService,
+      ObjectMapper objectMapper) {
     this.carService = carService;
     this.carFilterService = carFilterService;
+    this.carFacetService = carFacetService;
+    this.objectMapper = objectMapper;
   }
 
   /**
@@ -78,6 +117,19 @@ public class CarController {
    * Note that cars marked as not visible will not be included.
    * </p>
    *
+   * <p>The reserved parameters {@code page}, {@code size} and {@code sort} are not treated as
+   * filters. If {@code page} or {@code size} is given, only the requested page is returned and
+   * the total number of matching cars is given in the {@code X-Total-Count} header.
+   * {@code sort} is given as {@code property[,asc|desc]}.
+   * </p>
+   *
+   * <p>If {@code cursor} is given, the cars are returned in windows of {@code size} cars instead
+   * of pages. An empty cursor returns the first window. If there are more cars, the cursor of
+   * the next window is given in the {@code X-Next-Cursor} header. A cursor can not be combined
+   * with {@code page}, and is only valid with the same filters and sort as the window it came
+   * from.
+   * </p>
+   *
    * @return ResponseEntity with a list of all cars
    */
   @Operation(summary = "Get all cars", 
@@ -98,16 +150,24 @@ public class CarController {
     ResponseEntity<List<CarDto>> response;
 
     if (filters.isEmpty()) {
-      response = ResponseEntity.ok(carService.getAllVisibleCars().stream()
-          .map(carService::getCarDtoFromCar)
-          .toList());
+      response = ResponseEntity.ok(carService.getAllVisibleCarDtos());
     } else {
       try {
-        List<Car> cars = carFilterService.getCarsByFilters(filters);
-        logger.info("{} cars found with filters: {}", cars.size(), filters);
-        response = ResponseEntity.ok(cars.stream()
-            .map(carService::getCarDtoFromCar)
-            .toList());
+        Map<String, String> criteria = new HashMap<>(filters);
+        if (criteria.containsKey(PARAM_CURSOR)) {
+          response = getWindow(criteria);
+        } else {
+          Pageable pageable = extractPageable(criteria);
+
+          Page<Car> cars = carFilterService.getCarsByFilters(criteria, pageable);
+          logger.info("{} cars found with filters: {}", cars.getTotalElements(), filters);
+
+          ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+          if (pageable.isPaged()) {
+            builder.header(TOTAL_COUNT_HEADER, Long.toString(cars.getTotalElements()));
+          }
+          response = builder.body(carService.getCarDtosFromCars(cars.getContent()));
+        }
       } catch (InvalidFilterException e) {
         logger.warn(e.getMessage());
         response = ResponseEntity.badRequest().body(null);
@@ -120,6 +180,57 @@ public class CarController {
     return response;
   }
 
+  /**
+   * Endpoint to stream all cars as newline delimited JSON, one car per line.
+   *
+   * <p>Chosen over the JSON list when the request accepts {@code application/x-ndjson}. Takes
+   * the same filters and {@code sort} as the list, but no paging parameters. The cars are read
+   * and written in batches, so neither the server nor the client has to hold every car at once.
+   * </p>
+   *
+   * @return ResponseEntity streaming every matching car
+   */
+  @Operation(summary = "Stream all cars",
+      description = "Stream all cars as newline delimited JSON. Cars marked as not visible will "
+          + "not be included.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Stream of cars"),
+      @ApiResponse(responseCode = "400", description = "Invalid filter")
+  })
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAll(
+      @Parameter(name = "filters",
+          description = "Filters to apply when filtering which cars get returned")
+      @RequestParam Map<String, String> filters) {
+    logger.info("Streaming all cars{}", !filters.isEmpty() ? " with filters: " + filters : "");
+
+    Iterator<List<Car>> batches;
+    try {
+      Map<String, String> criteria = new HashMap<>(filters);
+      if (criteria.containsKey(PARAM_PAGE) || criteria.containsKey(PARAM_SIZE)
+          || criteria.containsKey(PARAM_CURSOR)) {
+        throw new InvalidFilterException(PARAM_PAGE, filters.toString(),
+            "Paging parameters can not be used when streaming");
+      }
+      Sort sort = extractPageable(criteria).getSort();
+      batches = carFilterService.getCarBatchesByFilters(criteria, sort, STREAM_BATCH_SIZE);
+    } catch (InvalidFilterException e) {
+      logger.warn(e.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+
+    StreamingResponseBody body = output -> {
+      while (batches.hasNext()) {
+        for (CarDto car : carService.getCarDtosFromCars(batches.next())) {
+          output.write(objectMapper.writeValueAsBytes(car));
+          output.write('\n');
+        }
+        output.flush();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
   /**
    * Endpoint for getting a car by its id.
    *
@@ -162,6 +273,42 @@ public class CarController {
     return ResponseEntity.ok(carService.getAllAmountOfSeatsInCars().stream().toList());
   }
 
+  /**
+   * Endpoint for getting the facets of the cars matching filters.
+   *
+   * <p>Counts the visible cars matching the filters per brand, fuel type, transmission type,
+   * number of seats, seller and price range. Takes the same filters as the list of cars. The
+   * facets are cached per combination of filters, and may be cached by the client for as long.
+   * </p>
+   *
+   * @param filters The filters to apply
+   * @return ResponseEntity with the facets of the matching cars
+   */
+  @Operation(summary = "Get the facets of the cars matching filters",
+      description = "Count the cars matching the filters per brand, fuel type, transmission "
+          + "type, number of seats, seller and price range.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Facets of the matching cars"),
+      @ApiResponse(responseCode = "400", description = "Invalid filter")
+  })
+  @GetMapping("/facets")
+  public ResponseEntity<CarFacetsDto> getFacets(
+      @Parameter(name = "filters",
+          description = "Filters to apply when counting which cars match")
+      @RequestParam Map<String, String> filters) {
+    logger.info("Getting car facets{}", !filters.isEmpty() ? " with filters: " + filters : "");
+    try {
+      CarFacetsDto facets = carFacetService.getFacets(filters);
+      CacheControl cacheControl = CacheControl
+          .maxAge(carFacetService.getTimeToLiveMillis(), TimeUnit.MILLISECONDS)
+          .cachePublic();
+      return ResponseEntity.ok().cacheControl(cacheControl).body(facets);
+    } catch (InvalidFilterException e) {
+      logger.warn(e.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
   /**
    * Endpoint for adding a new car.
    *
@@ -274,7 +421,13 @@ public class CarController {
   /**
    * Get all cars belonging to a company.
    *
+   * <p>If {@code cursor} or {@code size} is given, the cars are returned in windows of
+   * {@code size} cars, sorted by id, like {@link #getAll(Map)}.
+   * </p>
+   *
    * @param companyId the id of the company to get cars from
+   * @param cursor the cursor of the window to get, or an empty cursor for the first window
+   * @param size the largest number of cars in the window
    * @return a list of all cars belonging to the company
    */
   @Operation(
@@ -283,14 +436,109 @@ public class CarController {
   )
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "List of cars belonging to the company"),
+      @ApiResponse(responseCode = "400", description = "Invalid cursor or size"),
       @ApiResponse(responseCode = "404", description = "Company not found")
   })
   @PreAuthorize("hasAuthority('USER')")
   @GetMapping("/company/{companyId}")
-  public ResponseEntity<List<CarDto>> getCarsBelongingToCompany(@PathVariable Long companyId) {
+  public ResponseEntity<List<CarDto>> getCarsBelongingToCompany(
+      @PathVariable Long companyId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
     logger.info("Getting all cars belonging to company with id {}", companyId);
-    List<CarDto> cars = carService.getCarsBelongingToCompany(companyId);
-    return ResponseEntity.ok(cars);
+    if (cursor == null && size == null) {
+      List<CarDto> cars = carService.getCarsBelongingToCompany(companyId);
+      return ResponseEntity.ok(cars);
+    }
+
+    try {
+      int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+      if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+        throw new InvalidFilterException(PARAM_SIZE, size.toString(), "Page out of range");
+      }
+      ScrollPosition position = CarCursor.decode(cursor != null ? cursor : "", Sort.unsorted());
+      return toWindowResponse(carService.getCarsBelongingToCompany(companyId, limit, position));
+    } catch (InvalidFilterException e) {
+      logger.warn(e.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  /**
+   * Returns the requested window of cars, removing the cursor and paging parameters from the
+   * given parameters.
+   *
+   * @param parameters the request parameters, including the cursor
+   * @return the response with the window of cars
+   * @throws InvalidFilterException if the cursor, a paging parameter or a filter is invalid
+   */
+  private ResponseEntity<List<CarDto>> getWindow(Map<String, String> parameters) {
+    String cursor = parameters.remove(PARAM_CURSOR);
+    if (parameters.containsKey(PARAM_PAGE)) {
+      throw new InvalidFilterException(PARAM_PAGE, parameters.get(PARAM_PAGE),
+          "Page can not be combined with a cursor");
+    }
+    Pageable pageable = extractPageable(parameters);
+    int limit = pageable.isPaged() ? pageable.getPageSize() : DEFAULT_PAGE_SIZE;
+    ScrollPosition position = CarCursor.decode(cursor, pageable.getSort());
+
+    Window<Car> cars =
+        carFilterService.getCarsByFilters(parameters, pageable.getSort(), limit, position);
+    logger.info("{} cars found after cursor '{}'", cars.size(), cursor);
+    return toWindowResponse(cars);
+  }
+
+  /**
+   * Creates the response for a window of cars, with the cursor of the next window if there are
+   * more cars.
+   *
+   * @param cars the window of cars
+   * @return the response with the window of cars
+   */
+  private ResponseEntity<List<CarDto>> toWindowResponse(Window<Car> cars) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (cars.hasNext()) {
+      builder.header(NEXT_CURSOR_HEADER, CarCursor.encode(cars.positionAt(cars.size() - 1)));
+    }
+    return builder.body(carService.getCarDtosFromCars(cars.getContent()));
+  }
+
+  /**
+   * Removes the paging parameters from the given parameters and returns the page they describe.
+   *
+   * @param parameters the request parameters, paging parameters are removed from it
+   * @return the requested page, or {@link Pageable#unpaged()} if no page was requested
+   * @throws InvalidFilterException if a paging parameter is invalid
+   */
+  private Pageable extractPageable(Map<String, String> parameters) {
+    String page = parameters.remove(PARAM_PAGE);
+    String size = parameters.remove(PARAM_SIZE);
+    String sort = parameters.remove(PARAM_SORT);
+
+    Sort order = Sort.unsorted();
+    if (sort != null) {
+      String[] sortParts = sort.split(",");
+      if (!SORTABLE_PROPERTIES.contains(sortParts[0])) {
+        throw new InvalidFilterException(PARAM_SORT, sort, "Unknown sort property");
+      }
+      boolean descending = sortParts.length > 1 && sortParts[1].equalsIgnoreCase("desc");
+      order = descending ? Sort.by(sortParts[0]).descending() : Sort.by(sortParts[0]);
+    }
+
+    if (page == null && size == null) {
+      return Pageable.unpaged(order);
+    }
+
+    try {
+      int pageNumber = page != null ? Integer.parseInt(page) : 0;
+      int pageSize = size != null ? Integer.parseInt(size) : DEFAULT_PAGE_SIZE;
+      if (pageNumber < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+        throw new InvalidFilterException(PARAM_SIZE, size, "Page out of range");
+      }
+      return PageRequest.of(pageNumber, pageSize, order);
+    } catch (NumberFormatException e) {
+      throw new InvalidFilterException(PARAM_PAGE, page + "," + size, "Invalid number format");
+    }
   }
 
   private void logNotFound(Long id) {
@@ -6,12 +6,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.Base64;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import no.ntnu.stud.idata2306project.enums.ImageType;
-import no.ntnu.stud.idata2306project.model.image.CarImage;
+import no.ntnu.stud.idata2306project.exception.ImageResizeUnavailableException;
+import no.ntnu.stud.idata2306project.service.CarImageCache;
+import no.ntnu.stud.idata2306project.service.CarImageContent;
 import no.ntnu.stud.idata2306project.service.CarImageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -22,8 +32,18 @@ import org.springframework.web.bind.annotation.RestController;
  *
  * <p>Has the following endpoints:
  * <ul>
- *   <li> Get car image by car id, image type and image width
+ *   <li> Get car image by car id, image type and image width, as Base64 text
+ *   <li> Get car image by car id, image type and image width, as binary
+ *   <li> Get the statistics of the image cache
  * </ul>
+ *
+ * <p>The Base64 endpoint is kept for clients that still expect text. New clients should use the
+ * binary endpoint, which can be cached by browsers and proxies.
+ *
+ * <p>Images may be requested in any width within the widths set by {@code image.widths}, and are
+ * served in the nearest of those widths below it. Other widths are answered with 400 Bad Request.
+ * Widths that are not stored are created on the first request, which may be answered with 503
+ * Service Unavailable if too many images are being created at once.
  */
 @Tag(name = "Car Image", description = "Controller for car images")
 @RestController
@@ -32,6 +52,9 @@ public class CarImageController {
   private final CarImageService carImageService;
   private static final Logger logger = LoggerFactory.getLogger(CarImageController.class);
 
+  private static final CacheControl IMAGE_CACHE_CONTROL =
+      CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
   /**
    * Create a new CarImageController.
    *
@@ -42,12 +65,12 @@ public class CarImageController {
   }
 
   /**
-   * Get car image by car id, image type and image width.
+   * Get car image by car id, image type and image width, encoded as Base64 text.
    *
    * @param carId the car id
    * @param imageType the image type
    * @param imageWidth the image width
-   * @return the car image
+   * @return the car image as Base64 text
    */
   @Operation(
       summary = "Get car image",
@@ -56,6 +79,7 @@ public class CarImageController {
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Car image found"),
       @ApiResponse(responseCode = "400", description = "Invalid car id, image type or image width"),
+      @ApiResponse(responseCode = "503", description = "Car image can not be resized right now"),
   })
   @GetMapping("/{carId}/{imageType}/{imageWidth}")
   public ResponseEntity<String> getCarImage(
@@ -66,30 +90,25 @@ public class CarImageController {
       @Parameter(name = "imageWidth", description = "Image width", required = true)
       @PathVariable long imageWidth
   ) {
-    ImageType type;
-    if (carId <= 0 || imageWidth <= 0) {
+    Optional<ImageType> parsedType = ImageType.fromExtension(imageType);
+    OptionalLong servedWidth = carImageService.toServedWidth(imageWidth);
+    if (carId <= 0 || servedWidth.isEmpty() || parsedType.isEmpty()) {
       return ResponseEntity.badRequest().build();
     }
-    switch (imageType) {
-      case "webp":
-        type = ImageType.WEBP;
-        break;
-      case "png":
-        type = ImageType.PNG;
-        break;
-      case "jpg":
-        type = ImageType.JPG;
-        break;
-      default:
-        return ResponseEntity.badRequest().build();
-    }
+    ImageType type = parsedType.get();
 
-    CarImage carImage = carImageService.getCarImage(carId, type, imageWidth);
-    if (carImage == null || carImage.getImage() == null) {
+    Optional<CarImageContent> carImage;
+    try {
+      carImage = carImageService.getCarImage(carId, type, servedWidth.getAsLong());
+    } catch (ImageResizeUnavailableException e) {
+      logger.warn(e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    if (carImage.isEmpty()) {
       return ResponseEntity.ok().header("Content-Type", "text/plain").body("");
     }
 
-    String base64Image = Base64.getEncoder().encodeToString(carImage.getImage());
+    String base64Image = Base64.getEncoder().encodeToString(carImage.get().getBytes());
 
     logger.info("Returning image of type {} for car with id {}", type, carId);
 
@@ -97,4 +116,87 @@ public class CarImageController {
         .header("Content-Type", "text/plain")
         .body(base64Image);
   }
+
+  /**
+   * Get car image by car id, image type and image width, as binary.
+   *
+   * <p>The response has a strong ETag, a Last-Modified date and may be cached for a day. A
+   * conditional GET for an unchanged image is answered with 304 Not Modified, and a Range
+   * header returns only the requested bytes with 206 Partial Content.
+   *
+   * @param carId the car id
+   * @param imageType the image type
+   * @param imageWidth the image width
+   * @return the car image
+   */
+  @Operation(
+      summary = "Get car image as binary",
+      description = "Get car image by car id, image type and image width, as binary"
+  )
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Car image found"),
+      @ApiResponse(responseCode = "206", description = "Part of the car image found"),
+      @ApiResponse(responseCode = "304", description = "Car image not modified"),
+      @ApiResponse(responseCode = "400", description = "Invalid car id, image type or image width"),
+      @ApiResponse(responseCode = "404", description = "Car image not found"),
+      @ApiResponse(responseCode = "503", description = "Car image can not be resized right now"),
+  })
+  @GetMapping("/{carId}/{imageType}/{imageWidth}/raw")
+  public ResponseEntity<Resource> getRawCarImage(
+      @Parameter(name = "carId", description = "Car ID", required = true)
+      @PathVariable long carId,
+      @Parameter(name = "imageType", description = "Image type", required = true)
+      @PathVariable String imageType,
+      @Parameter(name = "imageWidth", description = "Image width", required = true)
+      @PathVariable long imageWidth
+  ) {
+    Optional<ImageType> parsedType = ImageType.fromExtension(imageType);
+    OptionalLong servedWidth = carImageService.toServedWidth(imageWidth);
+    if (carId <= 0 || servedWidth.isEmpty() || parsedType.isEmpty()) {
+      return ResponseEntity.badRequest().build();
+    }
+    ImageType type = parsedType.get();
+
+    Optional<CarImageContent> carImage;
+    try {
+      carImage = carImageService.getCarImage(carId, type, servedWidth.getAsLong());
+    } catch (ImageResizeUnavailableException e) {
+      logger.warn(e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    if (carImage.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+    CarImageContent content = carImage.get();
+
+    logger.info("Returning binary image of type {} for car with id {}", type, carId);
+
+    // Not modified and range responses are created by Spring from these headers
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(type.getMediaType()))
+        .cacheControl(IMAGE_CACHE_CONTROL)
+        .eTag(content.getEntityTag());
+    if (content.getLastModified() != null) {
+      builder.lastModified(content.getLastModified());
+    }
+    return builder.body(content.asResource());
+  }
+
+  /**
+   * Get the size and the hit, miss and eviction counts of the image cache.
+   *
+   * @return the statistics of the image cache
+   */
+  @Operation(
+      summary = "Get image cache statistics",
+      description = "Get the size and the hit, miss and eviction counts of the image cache"
+  )
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Image cache statistics"),
+  })
+  @GetMapping("/cache")
+  @PreAuthorize("hasAuthority('ADMIN')")
+  public ResponseEntity<CarImageCache.Statistics> getCacheStatistics() {
+    return ResponseEntity.ok(carImageService.getCacheStatistics());
+  }
 }
@@ -119,8 +119,7 @@ public class CompanyController {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
     }
 
-    boolean isUserInCompany = company.getUsers()
-            .stream().anyMatch(user -> user.getId().equals(userDetails.getId()));
+    boolean isUserInCompany = companyService.isUserInCompany(userDetails.getId(), id);
 
     if (isAdmin || isUserInCompany) {
       this.logger.info("Company found with id {}", id);
@@ -7,7 +7,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
+import no.ntnu.stud.idata2306project.dto.OrderBatchResponseDto;
 import no.ntnu.stud.idata2306project.dto.OrderRequestDto;
 import no.ntnu.stud.idata2306project.dto.OrderResponseDto;
 import no.ntnu.stud.idata2306project.exception.CarNotFoundException;
@@ -20,6 +23,7 @@ import no.ntnu.stud.idata2306project.service.OrderService;
 import no.ntnu.stud.idata2306project.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,6 +36,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -42,10 +47,12 @@ import org.springframework.web.bind.annotation.RestController;
  * <li> Get all orders for the logged in user
  * <li> Get all active orders for the logged in user
  * <li> Add a new order
+ * <li> Add a batch of orders
  * <li> Get a order by its id
  * <li> Remove an order by its id
  * <li> Get all orders for a car
  * <li> Get all orders for a company
+ * <li> Verify the availability index against the database
  * </ul>
  */
 @Tag(name = "Orders", description = "Endpoints for managing orders")
@@ -53,15 +60,19 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/order")
 public class OrderController {
   private final OrderService orderService;
+  private final int maxBatchSize;
   private final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
   /**
    * Creates a new OrderController.
    *
    * @param orderService the order service to use
+   * @param maxBatchSize the largest number of orders in a batch
    */
-  public OrderController(OrderService orderService) {
+  public OrderController(OrderService orderService,
+      @Value("${order.batch.max-size:100}") int maxBatchSize) {
     this.orderService = orderService;
+    this.maxBatchSize = maxBatchSize;
   }
 
   /**
@@ -167,6 +178,58 @@ public class OrderController {
     }
   }
 
+  /**
+   * Add a batch of orders, such as a fleet of cars for a company.
+   *
+   * @param accessUserDetails the user details of the logged-in user
+   * @param orderDtos the orders to add
+   * @param atomic true to book every order or none of them
+   * @return the outcome of each order
+   */
+  @Operation(
+      summary = "Add a batch of orders",
+      description = "Add several orders at once. An atomic batch books every order or none of "
+          + "them, otherwise every order that can be booked is booked. The outcome of each order "
+          + "is returned in the order they were given. Can only be done by a user."
+  )
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "At least one order was added"),
+      @ApiResponse(responseCode = "400", description = "Empty or too large batch"),
+      @ApiResponse(responseCode = "403", description = "Not authorized"),
+      @ApiResponse(responseCode = "409", description = "No order was added"),
+      @ApiResponse(responseCode = "500", description = "Unknown error"),
+  })
+  @PreAuthorize("hasAnyAuthority('USER')")
+  @PostMapping("/batch")
+  public ResponseEntity<OrderBatchResponseDto> addOrders(
+      @Parameter(description = "User details of the logged-in user")
+      @AuthenticationPrincipal AccessUserDetails accessUserDetails,
+      @Parameter(description = "Orders to add")
+      @RequestBody List<OrderRequestDto> orderDtos,
+      @Parameter(description = "True to book every order or none of them")
+      @RequestParam(defaultValue = "true") boolean atomic
+  ) {
+    long userId = accessUserDetails.getId();
+    if (orderDtos.isEmpty() || orderDtos.size() > maxBatchSize
+        || orderDtos.stream().anyMatch(Objects::isNull)) {
+      logger.error("Invalid batch of {} orders", orderDtos.size());
+      return ResponseEntity.badRequest().build();
+    }
+
+    logger.info("Adding batch of {} orders for user with id {}", orderDtos.size(), userId);
+    try {
+      OrderBatchResponseDto result = orderService.addOrders(userId, orderDtos, atomic);
+      HttpStatus status = result.getBooked() > 0 ? HttpStatus.CREATED : HttpStatus.CONFLICT;
+      return ResponseEntity.status(status).body(result);
+    } catch (UserNotFoundException e) {
+      logger.error("User not found: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+    } catch (Exception e) {
+      logger.error("Unknown error: {}", e.getMessage());
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
   /**
    * Get an order by its id.
    *
@@ -320,4 +383,26 @@ public class OrderController {
       return ResponseEntity.internalServerError().build();
     }
   }
+
+  /**
+   * Verify the in-memory availability index against the orders in the database. The index is
+   * rebuilt if they differ.
+   *
+   * @return the ids of the cars whose availability differed from the database
+   */
+  @Operation(
+      summary = "Verify the availability index",
+      description = "Compare the in-memory availability index with the database, "
+          + "and rebuild it if they differ"
+  )
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Ids of cars that were inconsistent"),
+      @ApiResponse(responseCode = "403", description = "Not authorized")
+  })
+  @GetMapping("availability/verify")
+  @PreAuthorize("hasAuthority('ADMIN')")
+  public ResponseEntity<Set<Long>> verifyAvailabilityIndex() {
+    logger.info("Verifying availability index");
+    return ResponseEntity.ok(orderService.verifyAvailabilityIndex());
+  }
 }
@@ -0,0 +1,75 @@
+package no.ntnu.stud.idata2306project.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import no.ntnu.stud.idata2306project.dto.ReferenceDataDto;
+import no.ntnu.stud.idata2306project.service.ReferenceDataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Represents a controller for the reference data of the car catalog.
+ *
+ * <p>Contains the following endpoints:
+ * <ul>
+ *   <li> Get all reference data
+ * </ul>
+ */
+@Tag(name = "Reference Data", description = "Endpoints for the reference data of the catalog")
+@RestController
+@RequestMapping("/reference")
+public class ReferenceDataController {
+
+  private final ReferenceDataCache referenceDataCache;
+  private final Logger logger = LoggerFactory.getLogger(ReferenceDataController.class);
+
+  /**
+   * Creates a new ReferenceDataController.
+   *
+   * @param referenceDataCache the cache of the reference data
+   */
+  public ReferenceDataController(ReferenceDataCache referenceDataCache) {
+    this.referenceDataCache = referenceDataCache;
+  }
+
+  /**
+   * Gets the brands, models, fuel types, transmission types, addons and features of the catalog.
+   *
+   * <p>The response carries the version of the reference data as its ETag. A request with the
+   * current version in {@code If-None-Match} is answered with 304 Not Modified and no body.
+   * </p>
+   *
+   * @param request the request, checked for the ETag of the current version
+   * @return the reference data, or no body if the client has the current version
+   */
+  @Operation(summary = "Get the reference data of the catalog",
+      description = "Get all brands, models, fuel types, transmission types, addons and "
+          + "features, and which brands and fuel types are used in cars.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "The reference data"),
+      @ApiResponse(responseCode = "304", description = "The client has the current version")
+  })
+  @GetMapping
+  public ResponseEntity<ReferenceDataDto> getReferenceData(WebRequest request) {
+    ReferenceDataDto referenceData = referenceDataCache.getReferenceData();
+    String eTag = "\"" + referenceData.getVersion() + "\"";
+    if (request.checkNotModified(eTag)) {
+      logger.debug("Reference data version {} not modified", referenceData.getVersion());
+      return null;
+    }
+
+    logger.info("Getting reference data version {}", referenceData.getVersion());
+    return ResponseEntity.ok()
+        .eTag(eTag)
+        .cacheControl(CacheControl.noCache())
+        .body(referenceData);
+  }
+}
@@ -107,7 +107,7 @@ public class UserController {
   public ResponseEntity<User> getAuthenticatedUser() {
     AccessUserDetails userDetails = (AccessUserDetails) SecurityContextHolder
         .getContext().getAuthentication().getPrincipal();
-    User user = userService.getUserById(userDetails.getId());
+    User user = userService.getUserWithRolesById(userDetails.getId());
     return ResponseEntity.ok(user);
   }
 
@@ -130,8 +130,7 @@ public class UserController {
   public ResponseEntity<List<CarDto>> getAuthenticatedUserFavorites() {
     AccessUserDetails userDetails = (AccessUserDetails) SecurityContextHolder
         .getContext().getAuthentication().getPrincipal();
-    User user = userService.getUserById(userDetails.getId());
-    return ResponseEntity.ok(userService.getUserFavorites(user));
+    return ResponseEntity.ok(userService.getUserFavorites(userDetails.getId()));
   }
 
   /**
@@ -189,14 +188,13 @@ public class UserController {
 
     AccessUserDetails userDetails = (AccessUserDetails) SecurityContextHolder
         .getContext().getAuthentication().getPrincipal();
-    User user = userService.getUserById(userDetails.getId());
 
     Long id = carFavorite.getCarId();
     boolean isFavorite = carFavorite.isFavorite();
 
     ResponseEntity<Boolean> toReturn;
     try {
-      boolean resultingFavorite = userService.setUserFavorite(user, id, isFavorite);
+      boolean resultingFavorite = userService.setUserFavorite(userDetails.getId(), id, isFavorite);
       toReturn = ResponseEntity.ok(resultingFavorite);
     } catch (IllegalArgumentException e) {
       toReturn = badRequest;
@@ -224,7 +222,7 @@ public class UserController {
     this.logger.info("Getting roles for authenticated user");
     AccessUserDetails userDetails = (AccessUserDetails) SecurityContextHolder
         .getContext().getAuthentication().getPrincipal();
-    User user = userService.getUserById(userDetails.getId());
+    User user = userService.getUserWithRolesById(userDetails.getId());
     return ResponseEntity.ok(user.getRoles());
   }
 
@@ -247,7 +245,7 @@ public class UserController {
       @PathVariable long id
   ) {
     try {
-      User user = userService.getUserById(id);
+      User user = userService.getUserWithRolesById(id);
       this.logger.info("User found with id {}", id);
       return ResponseEntity.ok().body(user);
     } catch (UserNotFoundException e) {
@@ -0,0 +1,76 @@
+package no.ntnu.stud.idata2306project.dto;
+
+/**
+ * Represents the statistics of a region of the second-level cache since the application started.
+ *
+ * <p>Used by administrators to tune the size and time to live of each region in
+ * {@code ehcache.xml}.
+ */
+public class CacheRegionStatisticsDto {
+  private final String name;
+  private final long hits;
+  private final long misses;
+  private final long puts;
+  private final long elementsInMemory;
+
+  /**
+   * Creates a CacheRegionStatisticsDto.
+   *
+   * @param name the name of the region
+   * @param hits the number of lookups answered by the region
+   * @param misses the number of lookups not answered by the region
+   * @param puts the number of entries put into the region
+   * @param elementsInMemory the number of entries in the region, or -1 if it is not known
+   */
+  public CacheRegionStatisticsDto(String name, long hits, long misses, long puts,
+      long elementsInMemory) {
+    this.name = name;
+    this.hits = hits;
+    this.misses = misses;
+    this.puts = puts;
+    this.elementsInMemory = elementsInMemory;
+  }
+
+  /**
+   * Returns the name of the region.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of lookups answered by the region.
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups not answered by the region.
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of entries put into the region.
+   */
+  public long getPuts() {
+    return puts;
+  }
+
+  /**
+   * Returns the share of lookups answered by the region, or 0 if nothing was looked up.
+   */
+  public double getHitRatio() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Returns the number of entries in the region, or -1 if it is not known.
+   */
+  public long getElementsInMemory() {
+    return elementsInMemory;
+  }
+}
@@ -0,0 +1,210 @@
+package no.ntnu.stud.idata2306project.dto;
+
+import java.util.List;
+
+/**
+ * Represents the facets of the car catalog: how many of the cars matching a set of filters have
+ * each brand, fuel type, transmission type, number of seats, seller and price range.
+ *
+ * <p>Used by the frontend to build its filter sidebar in a single request.
+ */
+public class CarFacetsDto {
+  private final long total;
+  private final List<NamedCount> brands;
+  private final List<NamedCount> fuelTypes;
+  private final List<NamedCount> transmissionTypes;
+  private final List<ValueCount> seats;
+  private final List<NamedCount> sellers;
+  private final List<RangeCount> priceBuckets;
+
+  /**
+   * Creates a CarFacetsDto.
+   *
+   * @param total the number of matching cars
+   * @param brands the number of matching cars per brand
+   * @param fuelTypes the number of matching cars per fuel type
+   * @param transmissionTypes the number of matching cars per transmission type
+   * @param seats the number of matching cars per number of seats
+   * @param sellers the number of matching cars per seller
+   * @param priceBuckets the number of matching cars per price range
+   */
+  public CarFacetsDto(long total, List<NamedCount> brands, List<NamedCount> fuelTypes,
+      List<NamedCount> transmissionTypes, List<ValueCount> seats, List<NamedCount> sellers,
+      List<RangeCount> priceBuckets) {
+    this.total = total;
+    this.brands = brands;
+    this.fuelTypes = fuelTypes;
+    this.transmissionTypes = transmissionTypes;
+    this.seats = seats;
+    this.sellers = sellers;
+    this.priceBuckets = priceBuckets;
+  }
+
+  /**
+   * Returns the number of matching cars.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * Returns the number of matching cars per brand, sorted by name.
+   */
+  public List<NamedCount> getBrands() {
+    return brands;
+  }
+
+  /**
+   * Returns the number of matching cars per fuel type, sorted by name.
+   */
+  public List<NamedCount> getFuelTypes() {
+    return fuelTypes;
+  }
+
+  /**
+   * Returns the number of matching cars per transmission type, sorted by name.
+   */
+  public List<NamedCount> getTransmissionTypes() {
+    return transmissionTypes;
+  }
+
+  /**
+   * Returns the number of matching cars per number of seats, sorted by the number of seats.
+   */
+  public List<ValueCount> getSeats() {
+    return seats;
+  }
+
+  /**
+   * Returns the number of matching cars per seller, sorted by name.
+   */
+  public List<NamedCount> getSellers() {
+    return sellers;
+  }
+
+  /**
+   * Returns the number of matching cars per price range, sorted by price.
+   */
+  public List<RangeCount> getPriceBuckets() {
+    return priceBuckets;
+  }
+
+  /**
+   * The number of cars with a named value, such as a brand.
+   */
+  public static final class NamedCount {
+    private final long id;
+    private final String name;
+    private final long count;
+
+    /**
+     * Creates a NamedCount.
+     *
+     * @param id the id of the value
+     * @param name the name of the value
+     * @param count the number of cars with the value
+     */
+    public NamedCount(long id, String name, long count) {
+      this.id = id;
+      this.name = name;
+      this.count = count;
+    }
+
+    /**
+     * Returns the id of the value.
+     */
+    public long getId() {
+      return id;
+    }
+
+    /**
+     * Returns the name of the value.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the number of cars with the value.
+     */
+    public long getCount() {
+      return count;
+    }
+  }
+
+  /**
+   * The number of cars with a number, such as a number of seats.
+   */
+  public static final class ValueCount {
+    private final int value;
+    private final long count;
+
+    /**
+     * Creates a ValueCount.
+     *
+     * @param value the value
+     * @param count the number of cars with the value
+     */
+    public ValueCount(int value, long count) {
+      this.value = value;
+      this.count = count;
+    }
+
+    /**
+     * Returns the value.
+     */
+    public int getValue() {
+      return value;
+    }
+
+    /**
+     * Returns the number of cars with the value.
+     */
+    public long getCount() {
+      return count;
+    }
+  }
+
+  /**
+   * The number of cars with a number in a range, such as a price range.
+   */
+  public static final class RangeCount {
+    private final int from;
+    private final int to;
+    private final long count;
+
+    /**
+     * Creates a RangeCount.
+     *
+     * @param from the lower bound of the range, inclusive
+     * @param to the upper bound of the range, inclusive
+     * @param count the number of cars in the range
+     */
+    public RangeCount(int from, int to, long count) {
+      this.from = from;
+      this.to = to;
+      this.count = count;
+    }
+
+    /**
+     * Returns the lower bound of the range, inclusive.
+     */
+    public int getFrom() {
+      return from;
+    }
+
+    /**
+     * Returns the upper bound of the range, inclusive.
+     */
+    public int getTo() {
+      return to;
+    }
+
+    /**
+     * Returns the number of cars in the range.
+     */
+    public long getCount() {
+      return count;
+    }
+  }
+}
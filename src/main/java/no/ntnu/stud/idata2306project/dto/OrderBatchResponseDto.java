@@ -0,0 +1,112 @@
+package no.ntnu.stud.idata2306project.dto;
+
+import java.util.List;
+import no.ntnu.stud.idata2306project.enums.OrderBatchStatus;
+
+/**
+ * Represents the outcome of a batch of orders, with one item per requested order.
+ *
+ * <p>The items are in the same order as the requested orders. In an atomic batch either every
+ * order is booked, or none are.
+ */
+public class OrderBatchResponseDto {
+  private final boolean atomic;
+  private final List<Item> items;
+
+  /**
+   * Creates an OrderBatchResponseDto.
+   *
+   * @param atomic true if the batch was booked atomically
+   * @param items the outcome of each requested order
+   */
+  public OrderBatchResponseDto(boolean atomic, List<Item> items) {
+    this.atomic = atomic;
+    this.items = List.copyOf(items);
+  }
+
+  /**
+   * Returns true if the batch was booked atomically.
+   */
+  public boolean isAtomic() {
+    return atomic;
+  }
+
+  /**
+   * Returns the number of orders that were booked.
+   */
+  public int getBooked() {
+    return (int) items.stream()
+        .filter(item -> item.getStatus() == OrderBatchStatus.BOOKED)
+        .count();
+  }
+
+  /**
+   * Returns the outcome of each requested order.
+   */
+  public List<Item> getItems() {
+    return items;
+  }
+
+  /**
+   * Represents the outcome of one requested order.
+   */
+  public static final class Item {
+    private final int index;
+    private final long carId;
+    private final OrderBatchStatus status;
+    private final Long orderId;
+    private final Long price;
+
+    /**
+     * Creates an Item.
+     *
+     * @param index the position of the order in the request
+     * @param carId the id of the requested car
+     * @param status the outcome of the order
+     * @param orderId the id of the booked order, or null if it was not booked
+     * @param price the price of the booked order, or null if it was not booked
+     */
+    public Item(int index, long carId, OrderBatchStatus status, Long orderId, Long price) {
+      this.index = index;
+      this.carId = carId;
+      this.status = status;
+      this.orderId = orderId;
+      this.price = price;
+    }
+
+    /**
+     * Returns the position of the order in the request.
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    /**
+     * Returns the id of the requested car.
+     */
+    public long getCarId() {
+      return carId;
+    }
+
+    /**
+     * Returns the outcome of the order.
+     */
+    public OrderBatchStatus getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the id of the booked order, or null if it was not booked.
+     */
+    public Long getOrderId() {
+      return orderId;
+    }
+
+    /**
+     * Returns the price of the booked order, or null if it was not booked.
+     */
+    public Long getPrice() {
+      return price;
+    }
+  }
+}
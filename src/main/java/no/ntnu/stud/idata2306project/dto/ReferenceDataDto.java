@@ -0,0 +1,117 @@
+package no.ntnu.stud.idata2306project.dto;
+
+import java.util.List;
+import no.ntnu.stud.idata2306project.model.car.Addon;
+import no.ntnu.stud.idata2306project.model.car.CarBrand;
+import no.ntnu.stud.idata2306project.model.car.CarModel;
+import no.ntnu.stud.idata2306project.model.car.Feature;
+import no.ntnu.stud.idata2306project.model.car.FuelType;
+import no.ntnu.stud.idata2306project.model.car.TransmissionType;
+
+/**
+ * Represents the reference data of the car catalog: the brands, models, fuel types,
+ * transmission types, addons and features cars are described with.
+ *
+ * <p>Used by the frontend to render the catalog, and fetched once per version.
+ */
+public class ReferenceDataDto {
+  private final String version;
+  private final List<CarBrand> brands;
+  private final List<CarBrand> brandsInUse;
+  private final List<CarModel> models;
+  private final List<FuelType> fuelTypes;
+  private final List<FuelType> fuelTypesInUse;
+  private final List<TransmissionType> transmissionTypes;
+  private final List<Addon> addons;
+  private final List<Feature> features;
+
+  /**
+   * Creates a ReferenceDataDto.
+   *
+   * @param version the version of the reference data
+   * @param brands all car brands
+   * @param brandsInUse the car brands used in cars
+   * @param models all car models
+   * @param fuelTypes all fuel types
+   * @param fuelTypesInUse the fuel types used in cars
+   * @param transmissionTypes all transmission types
+   * @param addons all addons
+   * @param features all features
+   */
+  public ReferenceDataDto(String version, List<CarBrand> brands, List<CarBrand> brandsInUse,
+      List<CarModel> models, List<FuelType> fuelTypes, List<FuelType> fuelTypesInUse,
+      List<TransmissionType> transmissionTypes, List<Addon> addons, List<Feature> features) {
+    this.version = version;
+    this.brands = brands;
+    this.brandsInUse = brandsInUse;
+    this.models = models;
+    this.fuelTypes = fuelTypes;
+    this.fuelTypesInUse = fuelTypesInUse;
+    this.transmissionTypes = transmissionTypes;
+    this.addons = addons;
+    this.features = features;
+  }
+
+  /**
+   * Returns the version of the reference data. Equal versions have equal reference data.
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns all car brands.
+   */
+  public List<CarBrand> getBrands() {
+    return brands;
+  }
+
+  /**
+   * Returns the car brands used in cars.
+   */
+  public List<CarBrand> getBrandsInUse() {
+    return brandsInUse;
+  }
+
+  /**
+   * Returns all car models, with their brand.
+   */
+  public List<CarModel> getModels() {
+    return models;
+  }
+
+  /**
+   * Returns all fuel types.
+   */
+  public List<FuelType> getFuelTypes() {
+    return fuelTypes;
+  }
+
+  /**
+   * Returns the fuel types used in cars.
+   */
+  public List<FuelType> getFuelTypesInUse() {
+    return fuelTypesInUse;
+  }
+
+  /**
+   * Returns all transmission types.
+   */
+  public List<TransmissionType> getTransmissionTypes() {
+    return transmissionTypes;
+  }
+
+  /**
+   * Returns all addons.
+   */
+  public List<Addon> getAddons() {
+    return addons;
+  }
+
+  /**
+   * Returns all features.
+   */
+  public List<Feature> getFeatures() {
+    return features;
+  }
+}
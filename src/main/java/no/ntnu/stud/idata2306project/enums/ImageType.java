@@ -1,8 +1,51 @@
 package no.ntnu.stud.idata2306project.enums;
 
+import java.util.Arrays;
+import java.util.Optional;
+
 /**
  * Represents the type of image.
  */
 public enum ImageType {
-  PNG, JPG, WEBP
+  PNG("png", "image/png"),
+  JPG("jpg", "image/jpeg"),
+  WEBP("webp", "image/webp");
+
+  private final String extension;
+  private final String mediaType;
+
+  ImageType(String extension, String mediaType) {
+    this.extension = extension;
+    this.mediaType = mediaType;
+  }
+
+  /**
+   * Returns the file extension of the image type, as used in image URLs.
+   *
+   * @return the file extension, without the leading dot
+   */
+  public String getExtension() {
+    return extension;
+  }
+
+  /**
+   * Returns the media type of the image type, as used in the Content-Type header.
+   *
+   * @return the media type
+   */
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Finds the image type with the given file extension.
+   *
+   * @param extension the file extension, without the leading dot
+   * @return the image type, or an empty Optional if no image type has the extension
+   */
+  public static Optional<ImageType> fromExtension(String extension) {
+    return Arrays.stream(values())
+        .filter(type -> type.extension.equals(extension))
+        .findFirst();
+  }
 }
@@ -0,0 +1,19 @@
+package no.ntnu.stud.idata2306project.enums;
+
+/**
+ * Represents the outcome of one order in a batch of orders.
+ */
+public enum OrderBatchStatus {
+  /** The order was booked. */
+  BOOKED,
+  /** The start date is missing, or after the end date. */
+  INVALID_DATES,
+  /** The car does not exist. */
+  CAR_NOT_FOUND,
+  /** One of the addons does not exist. */
+  ADDON_NOT_FOUND,
+  /** The car is booked in the period, by an existing order or an earlier order in the batch. */
+  UNAVAILABLE,
+  /** The order could have been booked, but was not, as another order in the atomic batch failed. */
+  NOT_BOOKED
+}
@@ -0,0 +1,19 @@
+package no.ntnu.stud.idata2306project.exception;
+
+/**
+ * Exception thrown when a login can not be verified right now, because the password verification
+ * workers are busy or the verification took too long.
+ */
+public class AuthenticationUnavailableException extends RuntimeException {
+
+  /**
+   * Constructs a new AuthenticationUnavailableException with the specified detail message and
+   * cause.
+   *
+   * @param message the detail message
+   * @param cause the cause
+   */
+  public AuthenticationUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,18 @@
+package no.ntnu.stud.idata2306project.exception;
+
+/**
+ * Exception thrown when an image can not be resized right now, because the resize workers are
+ * busy or the resize took too long.
+ */
+public class ImageResizeUnavailableException extends RuntimeException {
+
+  /**
+   * Constructs a new ImageResizeUnavailableException with the specified detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause the cause
+   */
+  public ImageResizeUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,29 @@
+package no.ntnu.stud.idata2306project.exception;
+
+/**
+ * Exception thrown when there have been too many login attempts for an account, or from an
+ * address, in a short time.
+ */
+public class TooManyLoginAttemptsException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  /**
+   * Constructs a new TooManyLoginAttemptsException with the specified detail message.
+   *
+   * @param message the detail message
+   * @param retryAfterSeconds the number of seconds until another attempt is allowed
+   */
+  public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * Returns the number of seconds until another attempt is allowed.
+   *
+   * @return the number of seconds until another attempt is allowed
+   */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -7,19 +7,26 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.util.List;
 import java.util.Objects;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 /**
  * Represents a car.
+ *
+ * <p>The model, fuel type and transmission type are loaded by id rather than joined, so they are
+ * served from the second-level cache once cached.
  */
 @Entity
 public class Car {
   @Schema(description = "The id of the car", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+  @SequenceGenerator(name = "car_seq", allocationSize = 50)
   private long id;
 
   @Schema(description = "The year of the car", example = "2015")
@@ -40,16 +47,19 @@ public class Car {
   @Schema(description = "The model of the car")
   @NotNull
   @ManyToOne
+  @Fetch(FetchMode.SELECT)
   private CarModel model;
 
   @Schema(description = "The fuel type of the car")
   @NotNull
   @ManyToOne
+  @Fetch(FetchMode.SELECT)
   private FuelType fuelType;
 
   @Schema(description = "The transmission type of the car")
   @NotNull
   @ManyToOne
+  @Fetch(FetchMode.SELECT)
   private TransmissionType transmissionType;
 
   @Schema(description = "The addons of the car")
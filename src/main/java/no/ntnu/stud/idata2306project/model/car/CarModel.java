@@ -1,24 +1,33 @@
 package no.ntnu.stud.idata2306project.model.car;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 /**
  * Represents a car model.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "car-model")
 public class CarModel {
 
   @Schema(description = "The id of the car model", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_model_seq")
+  @SequenceGenerator(name = "car_model_seq", allocationSize = 50)
   long id;
 
   @Schema(description = "The name of the car model", example = "Corolla")
@@ -29,6 +38,7 @@ public class CarModel {
   @Schema(description = "The brand of the car model", example = "Toyota")
   @NotNull
   @ManyToOne
+  @Fetch(FetchMode.SELECT)
   CarBrand brand;
 
   /**
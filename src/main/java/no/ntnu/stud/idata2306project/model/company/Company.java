@@ -2,14 +2,15 @@ package no.ntnu.stud.idata2306project.model.company;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.util.ArrayList;
@@ -20,16 +21,21 @@ import no.ntnu.stud.idata2306project.model.car.Car;
 import no.ntnu.stud.idata2306project.model.contact.Address;
 import no.ntnu.stud.idata2306project.model.contact.PhoneNumber;
 import no.ntnu.stud.idata2306project.model.user.User;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents a car providing company.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "company")
 public class Company {
 
   @Schema(description = "The id of the company", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "company_seq")
+  @SequenceGenerator(name = "company_seq", allocationSize = 50)
   private long id;
 
   @Schema(description = "The name of the company", example = "Company")
@@ -53,7 +59,7 @@ public class Company {
 
   @Schema(description = "The list of users that are associated with the company")
   @JsonIgnore
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany
   private Set<User> users = new HashSet<>();
 
   /**
@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotBlank;
 
 /**
@@ -14,7 +15,8 @@ import jakarta.validation.constraints.NotBlank;
 public class Address {
   @Schema(description = "the id of the address", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
+  @SequenceGenerator(name = "address_seq", allocationSize = 50)
   private Long id;
 
   @Schema(description = "the zip code of the address", example = "6009")
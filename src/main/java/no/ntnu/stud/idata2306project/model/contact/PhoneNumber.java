@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotBlank;
 
 /**
@@ -14,7 +15,8 @@ import jakarta.validation.constraints.NotBlank;
 public class PhoneNumber {
   @Schema(description = "The id of the phone number", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phone_number_seq")
+  @SequenceGenerator(name = "phone_number_seq", allocationSize = 50)
   private long id;
 
   @Schema(description = "The country code of the phone number", example = "+47")
@@ -1,30 +1,42 @@
 package no.ntnu.stud.idata2306project.model.image;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 import no.ntnu.stud.idata2306project.enums.ImageType;
 
 /**
  * Represents a car image.
+ *
+ * <p>The bytes of the image are kept in an
+ * {@link no.ntnu.stud.idata2306project.service.ImageStore} and referred to by their content hash.
+ * Images saved before the store existed keep their bytes in the image column until they are
+ * migrated.
  */
 @Entity
 public class CarImage {
 
   @Schema(description = "The id of the image", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_image_seq")
+  @SequenceGenerator(name = "car_image_seq", allocationSize = 50)
   private long id;
 
-  @Schema(description = "The image of the car")
-  @NotNull
+  @Schema(description = "The image of the car, if it is not in the image store")
   @Lob
   private byte[] image;
 
+  @Schema(description = "The SHA-256 digest the image is stored under in the image store")
+  @Column(length = 64)
+  private String contentHash;
+
   @Schema(description = "The id of the car", example = "1")
   @NotNull
   private long carId;
@@ -36,6 +48,9 @@ public class CarImage {
   @Schema(description = "The type of the image", example = "JPEG")
   private ImageType imageType;
 
+  @Schema(description = "When the image was last changed")
+  private Instant lastModified;
+
   /**
    * Creates a new car image.
    */
@@ -55,6 +70,32 @@ public class CarImage {
     this.image = image;
     this.imageWidth = imageWidth;
     this.imageType = imageType;
+    this.lastModified = Instant.now();
+  }
+
+  /**
+   * Creates a new car image derived from another image, such as a resized copy.
+   *
+   * @param carId the id of the car
+   * @param image the image of the car
+   * @param imageWidth the width of the image
+   * @param imageType the type of the image
+   * @param lastModified when the image it is derived from was last changed
+   */
+  public CarImage(long carId, byte[] image, long imageWidth, ImageType imageType,
+      Instant lastModified) {
+    this.carId = carId;
+    this.image = image;
+    this.imageWidth = imageWidth;
+    this.imageType = imageType;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Returns the id of the image.
+   */
+  public long getId() {
+    return id;
   }
 
   /**
@@ -71,6 +112,24 @@ public class CarImage {
     return image;
   }
 
+  /**
+   * Returns the SHA-256 digest the image is stored under in the image store, or null if the
+   * image is kept in the database.
+   */
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  /**
+   * Marks the image as moved to the image store, removing its bytes from the entity.
+   *
+   * @param contentHash the SHA-256 digest the image is stored under
+   */
+  public void moveToStore(String contentHash) {
+    this.contentHash = contentHash;
+    this.image = null;
+  }
+
   /**
    * Returns the width of the image.
    */
@@ -84,4 +143,11 @@ public class CarImage {
   public ImageType getImageType() {
     return imageType;
   }
+
+  /**
+   * Returns when the image was last changed, or null if it is not known.
+   */
+  public Instant getLastModified() {
+    return lastModified;
+  }
 }
@@ -3,12 +3,12 @@ package no.ntnu.stud.idata2306project.model.user;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -23,13 +23,18 @@ import no.ntnu.stud.idata2306project.model.contact.PhoneNumber;
 
 /**
  * Represents a user.
+ *
+ * <p>The favorites and roles of a user are loaded lazily. {@link
+ * no.ntnu.stud.idata2306project.repository.UserRepository} has queries loading a user with its
+ * roles, and the ids of its favorite cars on their own.
  */
 @Entity
 @Table(name = "app_user")
 public class User {
   @Schema(description = "The id of the user", example = "1")
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+  @SequenceGenerator(name = "app_user_seq", allocationSize = 50)
   long id;
 
   @Schema(description = "The password of the user", example = "password")
@@ -68,11 +73,11 @@ public class User {
 
   @Schema(description = "The user's favorite cars")
   @JsonIgnore
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany
   Set<Car> favorites;
 
   @Schema(description = "The user's roles")
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany
   Set<Role> roles = new HashSet<>();
 
   /**
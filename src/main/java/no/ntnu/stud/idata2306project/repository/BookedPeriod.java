@@ -0,0 +1,41 @@
+package no.ntnu.stud.idata2306project.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of an {@link no.ntnu.stud.idata2306project.model.order.Order} to the period it
+ * books a car for.
+ *
+ * <p>Used where only the booked dates are needed, so the user, car and addons of each order do
+ * not have to be loaded.
+ */
+public interface BookedPeriod {
+
+  /**
+   * Returns the id of the order.
+   *
+   * @return the id of the order
+   */
+  long getOrderId();
+
+  /**
+   * Returns the id of the booked car.
+   *
+   * @return the id of the booked car
+   */
+  long getCarId();
+
+  /**
+   * Returns the start date of the order.
+   *
+   * @return the start date of the order
+   */
+  LocalDate getStartDate();
+
+  /**
+   * Returns the end date of the order.
+   *
+   * @return the end date of the order
+   */
+  LocalDate getEndDate();
+}
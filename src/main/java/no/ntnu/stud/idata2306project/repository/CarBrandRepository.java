@@ -1,8 +1,11 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import jakarta.persistence.QueryHint;
 import java.util.Set;
 import no.ntnu.stud.idata2306project.model.car.CarBrand;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListCrudRepository;
 
 /**
@@ -33,6 +36,7 @@ public interface CarBrandRepository extends ListCrudRepository<CarBrand, Long> {
       SELECT DISTINCT brand
             FROM CarBrand brand JOIN Car car ON brand.id = car.model.brand.id
       """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Set<CarBrand> findAllInUseOnCars();
 
 }
@@ -0,0 +1,57 @@
+package no.ntnu.stud.idata2306project.repository;
+
+/**
+ * Projection of a {@link no.ntnu.stud.idata2306project.model.car.Car} to the values it is filtered
+ * and sorted by.
+ */
+public interface CarColumns {
+
+  /**
+   * Returns the id of the car.
+   *
+   * @return the id of the car
+   */
+  long getCarId();
+
+  /**
+   * Returns whether the car is visible to users.
+   *
+   * @return true if the car is visible, false otherwise
+   */
+  boolean getVisible();
+
+  /**
+   * Returns the year of the car.
+   *
+   * @return the year of the car
+   */
+  int getYear();
+
+  /**
+   * Returns the number of seats in the car.
+   *
+   * @return the number of seats in the car
+   */
+  int getNumberOfSeats();
+
+  /**
+   * Returns the price per day for renting the car.
+   *
+   * @return the price per day for renting the car
+   */
+  int getPricePerDay();
+
+  /**
+   * Returns the name of the car's brand.
+   *
+   * @return the name of the car's brand
+   */
+  String getBrandName();
+
+  /**
+   * Returns the name of the car's fuel type.
+   *
+   * @return the name of the car's fuel type
+   */
+  String getFuelTypeName();
+}
@@ -0,0 +1,31 @@
+package no.ntnu.stud.idata2306project.repository;
+
+import java.util.List;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Grouped counts of the cars matching a {@link Specification}, used for the facets of the car
+ * catalog.
+ *
+ * <p>Implemented by {@link CarFacetRepositoryImpl} and exposed through {@link CarRepository}.
+ */
+public interface CarFacetRepository {
+
+  /**
+   * Counts the cars matching a specification per combination of brand, fuel type, transmission
+   * type, number of seats and price per day.
+   *
+   * @param specification the specification the cars must match
+   * @return the number of matching cars in each combination that has any
+   */
+  List<CarGroupCount> countGroupsMatching(Specification<Car> specification);
+
+  /**
+   * Counts the cars matching a specification per owning company.
+   *
+   * @param specification the specification the cars must match
+   * @return the number of matching cars of each company that owns any
+   */
+  List<CompanyCarCount> countPerOwnerMatching(Specification<Car> specification);
+}
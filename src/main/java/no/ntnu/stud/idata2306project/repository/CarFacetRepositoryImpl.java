@@ -0,0 +1,70 @@
+package no.ntnu.stud.idata2306project.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.util.List;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.model.car.CarBrand;
+import no.ntnu.stud.idata2306project.model.car.CarModel;
+import no.ntnu.stud.idata2306project.model.car.FuelType;
+import no.ntnu.stud.idata2306project.model.car.TransmissionType;
+import no.ntnu.stud.idata2306project.model.company.Company;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Runs the grouped counts of {@link CarFacetRepository} as criteria queries, so any
+ * {@link Specification} built by {@link CarSpecifications} can restrict them.
+ */
+class CarFacetRepositoryImpl implements CarFacetRepository {
+
+  private final EntityManager entityManager;
+
+  CarFacetRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<CarGroupCount> countGroupsMatching(Specification<Car> specification) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<CarGroupCount> query = cb.createQuery(CarGroupCount.class);
+    Root<Car> car = query.from(Car.class);
+    Join<CarModel, CarBrand> brand = car.<Car, CarModel>join("model").join("brand");
+    Join<Car, FuelType> fuelType = car.join("fuelType");
+    Join<Car, TransmissionType> transmissionType = car.join("transmissionType");
+
+    List<Path<?>> groups = List.of(
+        brand.get("id"), brand.get("name"),
+        fuelType.get("id"), fuelType.get("name"),
+        transmissionType.get("id"), transmissionType.get("name"),
+        car.get("numberOfSeats"), car.get("pricePerDay"));
+    query.select(cb.construct(CarGroupCount.class,
+            groups.get(0), groups.get(1), groups.get(2), groups.get(3), groups.get(4),
+            groups.get(5), groups.get(6), groups.get(7), cb.count(car)))
+        .where(specification.toPredicate(car, query, cb))
+        .groupBy(groups.toArray(Path[]::new));
+    return entityManager.createQuery(query).getResultList();
+  }
+
+  @Override
+  public List<CompanyCarCount> countPerOwnerMatching(Specification<Car> specification) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<CompanyCarCount> query = cb.createQuery(CompanyCarCount.class);
+    Root<Company> company = query.from(Company.class);
+    Join<Company, Car> ownedCar = company.join("cars");
+
+    Subquery<Long> matchingCarIds = query.subquery(Long.class);
+    Root<Car> car = matchingCarIds.from(Car.class);
+    matchingCarIds.select(car.get("id")).where(specification.toPredicate(car, query, cb));
+
+    query.select(cb.construct(CompanyCarCount.class,
+            company.get("id"), company.get("name"), cb.count(ownedCar)))
+        .where(ownedCar.get("id").in(matchingCarIds))
+        .groupBy(company.get("id"), company.get("name"));
+    return entityManager.createQuery(query).getResultList();
+  }
+}
@@ -0,0 +1,29 @@
+package no.ntnu.stud.idata2306project.repository;
+
+/**
+ * Projection of a {@link no.ntnu.stud.idata2306project.model.car.Car} to the brand and model
+ * names it is searched by.
+ */
+public interface CarFullName {
+
+  /**
+   * Returns the id of the car.
+   *
+   * @return the id of the car
+   */
+  long getCarId();
+
+  /**
+   * Returns the name of the car's brand.
+   *
+   * @return the name of the car's brand
+   */
+  String getBrandName();
+
+  /**
+   * Returns the name of the car's model.
+   *
+   * @return the name of the car's model
+   */
+  String getModelName();
+}
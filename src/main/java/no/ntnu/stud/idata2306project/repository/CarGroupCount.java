@@ -0,0 +1,109 @@
+package no.ntnu.stud.idata2306project.repository;
+
+/**
+ * The number of cars sharing the same brand, fuel type, transmission type, number of seats and
+ * price per day.
+ *
+ * <p>Used to count the cars per value of each of these properties, without loading the cars.
+ */
+public class CarGroupCount {
+  private final long brandId;
+  private final String brandName;
+  private final long fuelTypeId;
+  private final String fuelTypeName;
+  private final long transmissionTypeId;
+  private final String transmissionTypeName;
+  private final int numberOfSeats;
+  private final int pricePerDay;
+  private final long count;
+
+  /**
+   * Creates a CarGroupCount.
+   *
+   * @param brandId the id of the brand
+   * @param brandName the name of the brand
+   * @param fuelTypeId the id of the fuel type
+   * @param fuelTypeName the name of the fuel type
+   * @param transmissionTypeId the id of the transmission type
+   * @param transmissionTypeName the name of the transmission type
+   * @param numberOfSeats the number of seats
+   * @param pricePerDay the price per day
+   * @param count the number of cars in the group
+   */
+  public CarGroupCount(long brandId, String brandName, long fuelTypeId, String fuelTypeName,
+      long transmissionTypeId, String transmissionTypeName, int numberOfSeats, int pricePerDay,
+      long count) {
+    this.brandId = brandId;
+    this.brandName = brandName;
+    this.fuelTypeId = fuelTypeId;
+    this.fuelTypeName = fuelTypeName;
+    this.transmissionTypeId = transmissionTypeId;
+    this.transmissionTypeName = transmissionTypeName;
+    this.numberOfSeats = numberOfSeats;
+    this.pricePerDay = pricePerDay;
+    this.count = count;
+  }
+
+  /**
+   * Returns the id of the brand.
+   */
+  public long getBrandId() {
+    return brandId;
+  }
+
+  /**
+   * Returns the name of the brand.
+   */
+  public String getBrandName() {
+    return brandName;
+  }
+
+  /**
+   * Returns the id of the fuel type.
+   */
+  public long getFuelTypeId() {
+    return fuelTypeId;
+  }
+
+  /**
+   * Returns the name of the fuel type.
+   */
+  public String getFuelTypeName() {
+    return fuelTypeName;
+  }
+
+  /**
+   * Returns the id of the transmission type.
+   */
+  public long getTransmissionTypeId() {
+    return transmissionTypeId;
+  }
+
+  /**
+   * Returns the name of the transmission type.
+   */
+  public String getTransmissionTypeName() {
+    return transmissionTypeName;
+  }
+
+  /**
+   * Returns the number of seats.
+   */
+  public int getNumberOfSeats() {
+    return numberOfSeats;
+  }
+
+  /**
+   * Returns the price per day.
+   */
+  public int getPricePerDay() {
+    return pricePerDay;
+  }
+
+  /**
+   * Returns the number of cars in the group.
+   */
+  public long getCount() {
+    return count;
+  }
+}
@@ -1,8 +1,12 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import java.util.Collection;
+import java.util.List;
 import no.ntnu.stud.idata2306project.enums.ImageType;
 import no.ntnu.stud.idata2306project.model.image.CarImage;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing {@link CarImage} entities.
@@ -22,8 +26,35 @@ public interface CarImageRepository extends ListCrudRepository<CarImage, Long> {
    * @param imageWidth the width of the image
    * @return the car image that matches the specified criteria
    */
+  @Transactional(readOnly = true)
   CarImage findCarImageByCarIdAndImageTypeAndImageWidth(
       long carId,
       ImageType imageType,
       long imageWidth);
+
+  /**
+   * Finds the widest image of a car among some image types, which is the one other sizes are
+   * derived from.
+   *
+   * @param carId the ID of the car
+   * @param imageTypes the image types to consider
+   * @return the widest image of the car with one of the types, or null if there is none
+   */
+  @Transactional(readOnly = true)
+  CarImage findFirstByCarIdAndImageTypeInOrderByImageWidthDesc(long carId,
+      Collection<ImageType> imageTypes);
+
+  /**
+   * Finds the ids of all car images whose bytes are kept in the database rather than in the
+   * image store.
+   *
+   * @return the ids of the car images that are not in the image store
+   */
+  @Query("""
+      SELECT carImage.id
+      FROM CarImage carImage
+      WHERE carImage.contentHash IS NULL AND carImage.image IS NOT NULL
+      ORDER BY carImage.id
+      """)
+  List<Long> findIdsOfImagesNotInStore();
 }
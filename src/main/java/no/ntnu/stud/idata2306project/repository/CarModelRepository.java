@@ -1,7 +1,11 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Set;
 import no.ntnu.stud.idata2306project.model.car.CarModel;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListCrudRepository;
 
 /**
@@ -31,4 +35,8 @@ public interface CarModelRepository extends ListCrudRepository<CarModel, Long> {
    * @return a set of car models whose brand names contain the specified keyword
    */
   Set<CarModel> findByBrandNameContainingIgnoreCase(String name);
+
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<CarModel> findAll();
 }
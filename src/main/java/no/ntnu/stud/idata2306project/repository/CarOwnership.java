@@ -0,0 +1,22 @@
+package no.ntnu.stud.idata2306project.repository;
+
+/**
+ * Projection of the link between a {@link no.ntnu.stud.idata2306project.model.car.Car} and the
+ * {@link no.ntnu.stud.idata2306project.model.company.Company} that owns it.
+ */
+public interface CarOwnership {
+
+  /**
+   * Returns the id of the car.
+   *
+   * @return the id of the car
+   */
+  long getCarId();
+
+  /**
+   * Returns the id of the company that owns the car.
+   *
+   * @return the id of the company that owns the car
+   */
+  long getCompanyId();
+}
@@ -1,10 +1,17 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import no.ntnu.stud.idata2306project.model.car.Car;
 import no.ntnu.stud.idata2306project.model.car.CarModel;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
 /**
@@ -13,9 +20,12 @@ import org.springframework.data.jpa.repository.Query;
  * <p>This interface extends the {@link JpaRepository} to provide CRUD operations
  * for {@link Car}
  * entities. It also includes custom query methods to retrieve cars based on
- * specific criteria.
+ * specific criteria, and extends {@link JpaSpecificationExecutor} so filters built by
+ * {@link CarSpecifications} can be run as a single query. The grouped counts of
+ * {@link CarFacetRepository} take the same specifications.
  */
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car>,
+    CarFacetRepository {
 
   /**
    * Finds a set of cars whose model matches the specified model.
@@ -44,11 +54,144 @@ public interface CarRepository extends JpaRepository<Car, Long> {
      * @return a list of cars that belong to the specified company
      */
   @Query("""
-      SELECT company.cars
-                  FROM Company company
-                  WHERE company.id = :companyId
+      SELECT car
+      FROM Company company
+      JOIN company.cars car
+      WHERE company.id = :companyId
       """)
   List<Car> getCarsBelongingToCompany(Long companyId);
 
   List<Car> findAllByVisible(boolean visible);
+
+  /**
+   * Finds a car by its id, and locks its row until the current transaction ends. Must be called
+   * in a transaction.
+   *
+   * @param id the ID of the car
+   * @return the car with the given ID, or an empty Optional if it does not exist
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("""
+      SELECT car
+      FROM Car car
+      WHERE car.id = :id
+      """)
+  Optional<Car> findByIdForUpdate(long id);
+
+  /**
+   * Finds cars by their ids, and locks their rows until the current transaction ends. The rows
+   * are locked in the order of their ids, so two transactions locking overlapping sets of cars do
+   * not deadlock. Must be called in a transaction.
+   *
+   * @param ids the IDs of the cars
+   * @return the cars with the given IDs, sorted by id
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("""
+      SELECT car
+      FROM Car car
+      WHERE car.id IN :ids
+      ORDER BY car.id
+      """)
+  List<Car> findAllByIdInForUpdate(Collection<Long> ids);
+
+  /**
+   * Finds cars by their ids, together with their addons. The other associations of the cars are
+   * loaded as they are mapped, so the model, fuel type and transmission type still come from the
+   * second-level cache.
+   *
+   * @param ids the IDs of the cars
+   * @return the cars with the given IDs
+   */
+  @EntityGraph(attributePaths = {"addons"}, type = EntityGraphType.LOAD)
+  List<Car> findWithDetailsByIdIn(Collection<Long> ids);
+
+  /**
+   * Finds cars by their ids, together with their features. Kept apart from
+   * {@link #findWithDetailsByIdIn(Collection)} as fetching two lists of a car in one query would
+   * multiply the rows.
+   *
+   * @param ids the IDs of the cars
+   * @return the cars with the given IDs
+   */
+  @EntityGraph(attributePaths = {"features"}, type = EntityGraphType.LOAD)
+  List<Car> findWithFeaturesByIdIn(Collection<Long> ids);
+
+  /**
+   * Finds the brand and model names of all cars.
+   *
+   * @return the brand and model names of every car
+   */
+  @Query("""
+      SELECT car.id AS carId, brand.name AS brandName, model.name AS modelName
+      FROM Car car
+      JOIN car.model model
+      JOIN model.brand brand
+      """)
+  List<CarFullName> findAllFullNames();
+
+  /**
+   * Finds the values all cars are filtered and sorted by, ordered by id.
+   *
+   * @return the values of every car, ordered by id
+   */
+  @Query("""
+      SELECT car.id AS carId, car.visible AS visible, car.year AS year,
+            car.numberOfSeats AS numberOfSeats, car.pricePerDay AS pricePerDay,
+            brand.name AS brandName, fuelType.name AS fuelTypeName
+      FROM Car car
+      JOIN car.model model
+      JOIN model.brand brand
+      JOIN car.fuelType fuelType
+      ORDER BY car.id
+      """)
+  List<CarColumns> findAllColumns();
+
+  /**
+   * Finds the values a car is filtered and sorted by.
+   *
+   * @param carId the ID of the car
+   * @return the values of the car, or an empty Optional if it does not exist
+   */
+  @Query("""
+      SELECT car.id AS carId, car.visible AS visible, car.year AS year,
+            car.numberOfSeats AS numberOfSeats, car.pricePerDay AS pricePerDay,
+            brand.name AS brandName, fuelType.name AS fuelTypeName
+      FROM Car car
+      JOIN car.model model
+      JOIN model.brand brand
+      JOIN car.fuelType fuelType
+      WHERE car.id = :carId
+      """)
+  Optional<CarColumns> findColumnsById(long carId);
+
+  /**
+   * Finds the brand and model names of a car.
+   *
+   * @param carId the ID of the car
+   * @return the brand and model names of the car, or an empty Optional if it does not exist
+   */
+  @Query("""
+      SELECT car.id AS carId, brand.name AS brandName, model.name AS modelName
+      FROM Car car
+      JOIN car.model model
+      JOIN model.brand brand
+      WHERE car.id = :carId
+      """)
+  Optional<CarFullName> findFullNameById(long carId);
+
+  /**
+   * Finds the favorite cars of a user, sorted by id.
+   *
+   * @param userId the ID of the user
+   * @return the favorite cars of the user
+   */
+  @Query("""
+      SELECT car
+      FROM User user
+      JOIN user.favorites car
+      WHERE user.id = :userId
+      ORDER BY car.id
+      """)
+  List<Car> findFavoritesOfUser(long userId);
 }
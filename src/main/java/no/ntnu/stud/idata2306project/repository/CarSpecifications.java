@@ -0,0 +1,188 @@
+package no.ntnu.stud.idata2306project.repository;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.time.LocalDate;
+import java.util.Collection;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.model.company.Company;
+import no.ntnu.stud.idata2306project.model.order.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Factory for {@link Specification} instances used to filter {@link Car} entities.
+ *
+ * <p>Every specification is translated into a predicate of a single query, so combining them
+ * lets the database do the filtering instead of loading every car into memory.
+ */
+public final class CarSpecifications {
+
+  private CarSpecifications() {
+  }
+
+  /**
+   * Matches cars with the given visibility.
+   *
+   * @param visible the visibility to match
+   * @return a specification matching cars with the given visibility
+   */
+  public static Specification<Car> isVisible(boolean visible) {
+    return (root, query, cb) -> cb.equal(root.get("visible"), visible);
+  }
+
+  /**
+   * Matches cars whose brand name is one of the given names, ignoring case.
+   *
+   * @param brandNames the lower case brand names to match
+   * @return a specification matching cars of the given brands
+   */
+  public static Specification<Car> hasBrandIn(Collection<String> brandNames) {
+    return (root, query, cb) ->
+        cb.lower(root.get("model").get("brand").get("name")).in(brandNames);
+  }
+
+  /**
+   * Matches cars whose fuel type name is one of the given names, ignoring case.
+   *
+   * @param fuelTypeNames the lower case fuel type names to match
+   * @return a specification matching cars with the given fuel types
+   */
+  public static Specification<Car> hasFuelTypeIn(Collection<String> fuelTypeNames) {
+    return (root, query, cb) -> cb.lower(root.get("fuelType").get("name")).in(fuelTypeNames);
+  }
+
+  /**
+   * Matches cars owned by a company whose name is one of the given names, ignoring case.
+   *
+   * @param sellerNames the lower case company names to match
+   * @return a specification matching cars owned by the given companies
+   */
+  public static Specification<Car> hasSellerIn(Collection<String> sellerNames) {
+    return (root, query, cb) -> {
+      Subquery<Long> owners = query.subquery(Long.class);
+      Root<Company> company = owners.from(Company.class);
+      Join<Company, Car> ownedCar = company.join("cars");
+      owners.select(ownedCar.get("id")).where(
+          cb.equal(ownedCar.get("id"), root.get("id")),
+          cb.lower(company.get("name")).in(sellerNames));
+      return cb.exists(owners);
+    };
+  }
+
+  /**
+   * Matches cars owned by the company with the given id.
+   *
+   * @param companyId the id of the company
+   * @return a specification matching cars owned by the company
+   */
+  public static Specification<Car> isOwnedByCompany(long companyId) {
+    return (root, query, cb) -> {
+      Subquery<Long> owners = query.subquery(Long.class);
+      Root<Company> company = owners.from(Company.class);
+      Join<Company, Car> ownedCar = company.join("cars");
+      owners.select(ownedCar.get("id")).where(
+          cb.equal(ownedCar.get("id"), root.get("id")),
+          cb.equal(company.get("id"), companyId));
+      return cb.exists(owners);
+    };
+  }
+
+  /**
+   * Matches cars with one of the given numbers of seats.
+   *
+   * @param seats the numbers of seats to match
+   * @return a specification matching cars with the given numbers of seats
+   */
+  public static Specification<Car> hasNumberOfSeatsIn(Collection<Integer> seats) {
+    return (root, query, cb) -> root.get("numberOfSeats").in(seats);
+  }
+
+  /**
+   * Matches cars that cost at least the given price per day.
+   *
+   * @param price the lower price bound, inclusive
+   * @return a specification matching cars costing at least the given price
+   */
+  public static Specification<Car> costsAtLeast(double price) {
+    return (root, query, cb) -> cb.ge(root.get("pricePerDay"), price);
+  }
+
+  /**
+   * Matches cars that cost at most the given price per day.
+   *
+   * @param price the upper price bound, inclusive
+   * @return a specification matching cars costing at most the given price
+   */
+  public static Specification<Car> costsAtMost(double price) {
+    return (root, query, cb) -> cb.le(root.get("pricePerDay"), price);
+  }
+
+  /**
+   * Matches cars that have no order covering the given date.
+   *
+   * <p>The booked cars are found by a single uncorrelated subquery, so the database can compute
+   * the set of booked car ids once and anti-join it against the cars.
+   *
+   * @param date the date the car must be available on
+   * @return a specification matching cars available on the given date
+   */
+  public static Specification<Car> isAvailableFrom(LocalDate date) {
+    return (root, query, cb) -> {
+      Subquery<Long> bookedCarIds = query.subquery(Long.class);
+      Root<Order> order = bookedCarIds.from(Order.class);
+      bookedCarIds.select(order.get("car").get("id")).where(
+          cb.lessThanOrEqualTo(order.get("startDate"), date),
+          cb.greaterThanOrEqualTo(order.get("endDate"), date));
+      return cb.not(root.get("id").in(bookedCarIds));
+    };
+  }
+
+  /**
+   * Matches cars that have no order overlapping the given date range.
+   *
+   * <p>The booked cars are found by a single uncorrelated subquery, so the database can compute
+   * the set of booked car ids once and anti-join it against the cars.
+   *
+   * @param startDate the start of the range
+   * @param endDate the end of the range
+   * @return a specification matching cars available in the given range
+   */
+  public static Specification<Car> isAvailableBetween(LocalDate startDate, LocalDate endDate) {
+    return (root, query, cb) -> {
+      Subquery<Long> bookedCarIds = query.subquery(Long.class);
+      Root<Order> order = bookedCarIds.from(Order.class);
+      bookedCarIds.select(order.get("car").get("id")).where(
+          cb.lessThanOrEqualTo(order.get("startDate"), endDate),
+          cb.greaterThanOrEqualTo(order.get("endDate"), startDate));
+      return cb.not(root.get("id").in(bookedCarIds));
+    };
+  }
+
+  /**
+   * Matches cars whose id is in the given collection. An empty collection matches no car.
+   *
+   * @param carIds the ids of the cars to match
+   * @return a specification matching cars in the given collection
+   */
+  public static Specification<Car> hasIdIn(Collection<Long> carIds) {
+    return (root, query, cb) -> carIds.isEmpty()
+        ? cb.disjunction()
+        : root.get("id").in(carIds);
+  }
+
+  /**
+   * Matches cars whose id is not in the given collection.
+   *
+   * <p>Used to exclude a precomputed set of unavailable cars. An empty collection matches every
+   * car.
+   *
+   * @param carIds the ids of the cars to exclude
+   * @return a specification matching cars not in the given collection
+   */
+  public static Specification<Car> hasIdNotIn(Collection<Long> carIds) {
+    return (root, query, cb) -> carIds.isEmpty()
+        ? cb.conjunction()
+        : cb.not(root.get("id").in(carIds));
+  }
+}
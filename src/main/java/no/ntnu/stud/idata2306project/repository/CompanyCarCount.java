@@ -0,0 +1,44 @@
+package no.ntnu.stud.idata2306project.repository;
+
+/**
+ * The number of cars owned by a company.
+ */
+public class CompanyCarCount {
+  private final long companyId;
+  private final String companyName;
+  private final long count;
+
+  /**
+   * Creates a CompanyCarCount.
+   *
+   * @param companyId the id of the company
+   * @param companyName the name of the company
+   * @param count the number of cars owned by the company
+   */
+  public CompanyCarCount(long companyId, String companyName, long count) {
+    this.companyId = companyId;
+    this.companyName = companyName;
+    this.count = count;
+  }
+
+  /**
+   * Returns the id of the company.
+   */
+  public long getCompanyId() {
+    return companyId;
+  }
+
+  /**
+   * Returns the name of the company.
+   */
+  public String getCompanyName() {
+    return companyName;
+  }
+
+  /**
+   * Returns the number of cars owned by the company.
+   */
+  public long getCount() {
+    return count;
+  }
+}
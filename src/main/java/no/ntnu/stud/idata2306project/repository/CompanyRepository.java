@@ -1,10 +1,15 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import no.ntnu.stud.idata2306project.model.car.Car;
 import no.ntnu.stud.idata2306project.model.company.Company;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListCrudRepository;
 
 /**
@@ -26,8 +31,18 @@ public interface CompanyRepository extends ListCrudRepository<Company, Long> {
             FROM Company company
                   WHERE company.cars IS NOT EMPTY
       """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Set<Company> findAllInUseOnCars();
 
+  /**
+   * Finds companies by their ids, together with their address and phone number.
+   *
+   * @param ids the IDs of the companies
+   * @return the companies with the given IDs
+   */
+  @EntityGraph(attributePaths = {"address", "phoneNumber"})
+  List<Company> findAllByIdIn(Collection<Long> ids);
+
   /**
    * Find all companies a user belongs to.
    *
@@ -36,6 +51,15 @@ public interface CompanyRepository extends ListCrudRepository<Company, Long> {
    */
   Set<Company> findAllByUsers_Id(long usersId);
 
+  /**
+   * Checks if a user belongs to a company, without loading the users of the company.
+   *
+   * @param id the ID of the company
+   * @param usersId the ID of the user
+   * @return true if the company exists and the user belongs to it, false otherwise
+   */
+  boolean existsByIdAndUsers_Id(long id, long usersId);
+
   /**
    * Finds all companies that have a specific car.
    *
@@ -52,4 +76,42 @@ public interface CompanyRepository extends ListCrudRepository<Company, Long> {
                         )
       """)
   Company findCompanyThatOwnsCar(Long carId);
+
+  /**
+   * Finds which company owns each car.
+   *
+   * @return the owning company of every car that has one
+   */
+  @Query("""
+      SELECT car.id AS carId, company.id AS companyId
+                  FROM Company company JOIN company.cars car
+      """)
+  List<CarOwnership> findAllCarOwnerships();
+
+  /**
+   * Finds the ids of all cars owned by a company.
+   *
+   * @param companyId the ID of the company
+   * @return the ids of the cars owned by the company
+   */
+  @Query("""
+      SELECT car.id
+                  FROM Company company JOIN company.cars car
+                  WHERE company.id = :companyId
+      """)
+  List<Long> findCarIdsOwnedByCompany(Long companyId);
+
+  /**
+   * Finds the ids of all companies whose lower case name is one of the given names.
+   *
+   * @param names the lower case names to search for
+   * @return the ids of the companies with the given names
+   */
+  @Query("""
+      SELECT company.id
+                  FROM Company company
+                  WHERE LOWER(company.name) IN :names
+      """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<Long> findIdsByLowerCaseNameIn(Collection<String> names);
 }
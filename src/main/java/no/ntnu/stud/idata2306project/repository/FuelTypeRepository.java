@@ -1,8 +1,11 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import jakarta.persistence.QueryHint;
 import java.util.Set;
 import no.ntnu.stud.idata2306project.model.car.FuelType;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.ListCrudRepository;
 
 /**
@@ -24,5 +27,6 @@ public interface FuelTypeRepository extends ListCrudRepository<FuelType, Long> {
       SELECT DISTINCT fuelType
             FROM FuelType fuelType JOIN Car car ON fuelType.id = car.fuelType.id
       """)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Set<FuelType> getFuelTypesUsedInCars();
 }
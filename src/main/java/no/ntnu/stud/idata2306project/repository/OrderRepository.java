@@ -1,6 +1,7 @@
 package no.ntnu.stud.idata2306project.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import no.ntnu.stud.idata2306project.model.order.Order;
 import org.springframework.data.jpa.repository.Query;
@@ -43,7 +44,8 @@ public interface OrderRepository extends ListCrudRepository<Order, Long> {
   public Order findOrderByUserId(Long id);
 
   /**
-   * Checks if a car is available for a specific date.
+   * Checks if a car is available for a specific date. An order occupies every date from its start
+   * date to its end date, both included.
    *
    * @param carId the ID of the car
    * @param startDate the start date to check availability
@@ -53,12 +55,13 @@ public interface OrderRepository extends ListCrudRepository<Order, Long> {
       SELECT CASE WHEN COUNT(o) = 0 THEN true ELSE false END
       FROM Order o
       WHERE o.car.id = :carId
-      AND (o.startDate <= :startDate AND o.endDate > :startDate)
+      AND (o.startDate <= :startDate AND o.endDate >= :startDate)
       """)
   boolean isAvailableFrom(Long carId, LocalDate startDate);
 
   /**
-   * Checks if a car is available for a specific date range.
+   * Checks if a car is available for a specific date range. An order occupies every date from its
+   * start date to its end date, both included, and so does the range.
    *
    * @param carId the ID of the car
    * @param startDate the start date to check availability
@@ -69,11 +72,37 @@ public interface OrderRepository extends ListCrudRepository<Order, Long> {
         SELECT CASE WHEN COUNT(o) = 0 THEN true ELSE false END
         FROM Order o
         WHERE o.car.id = :carId
-            AND o.startDate < :endDate
-            AND o.endDate > :startDate
+            AND o.startDate <= :endDate
+            AND o.endDate >= :startDate
       """)
   boolean isAvailableBetween(Long carId, LocalDate startDate, LocalDate endDate);
 
+  /**
+   * Finds the booked period of every order.
+   *
+   * @return the booked period of every order
+   */
+  @Query("""
+      SELECT o.orderId AS orderId, o.car.id AS carId,
+          o.startDate AS startDate, o.endDate AS endDate
+      FROM Order o
+      """)
+  List<BookedPeriod> findAllBookedPeriods();
+
+  /**
+   * Finds the booked period of every order of some cars.
+   *
+   * @param carIds the IDs of the cars
+   * @return the booked period of every order of the cars
+   */
+  @Query("""
+      SELECT o.orderId AS orderId, o.car.id AS carId,
+          o.startDate AS startDate, o.endDate AS endDate
+      FROM Order o
+      WHERE o.car.id IN :carIds
+      """)
+  List<BookedPeriod> findBookedPeriodsByCarIdIn(Collection<Long> carIds);
+
   /**
    * Finds a list of active orders associated with a specific user ID.
    *
@@ -1,7 +1,10 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
 import no.ntnu.stud.idata2306project.model.user.Role;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
 /**
@@ -19,5 +22,6 @@ public interface RoleRepository extends CrudRepository<Role, Long> {
    * @return an {@link Optional} containing the found role, or empty if no role with the specified
    *     name exists
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Optional<Role> findByName(String name);
 }
@@ -1,14 +1,28 @@
 package no.ntnu.stud.idata2306project.repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import jakarta.persistence.QueryHint;
 import no.ntnu.stud.idata2306project.model.user.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing {@link User} entities.
  *
  * <p>This interface extends the {@link JpaRepository} to provide CRUD operations for {@link User}
- * entities.
+ * entities. The roles and favorites of a user are lazy, so it also includes queries loading a user
+ * together with its roles, and reading or changing the favorites of a user by car id without
+ * loading them. The native queries changing the favorites name the one table they write, so that
+ * Hibernate only invalidates the cached data of that table rather than the whole second-level
+ * cache.
  */
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -20,4 +34,105 @@ public interface UserRepository extends JpaRepository<User, Long> {
    *     email exists
    */
   public Optional<User> findByEmail(String email);
+
+  /**
+   * Finds a user by their email address, together with their roles.
+   *
+   * @param email the email address of the user to find
+   * @return an {@link Optional} containing the found user, or empty if no user with the specified
+   *     email exists
+   */
+  @EntityGraph(attributePaths = {"roles"}, type = EntityGraphType.LOAD)
+  Optional<User> findWithRolesByEmail(String email);
+
+  /**
+   * Finds a user by their id, together with their roles.
+   *
+   * @param id the ID of the user to find
+   * @return an {@link Optional} containing the found user, or empty if no user has the ID
+   */
+  @EntityGraph(attributePaths = {"roles"}, type = EntityGraphType.LOAD)
+  Optional<User> findWithRolesById(long id);
+
+  /**
+   * Finds all users, together with their roles.
+   *
+   * @return all users
+   */
+  @EntityGraph(attributePaths = {"roles"}, type = EntityGraphType.LOAD)
+  List<User> findAllWithRolesBy();
+
+  /**
+   * Finds the users of a company, together with their roles.
+   *
+   * @param companyId the ID of the company
+   * @return the users of the company, or an empty set if the company does not exist
+   */
+  @Query("""
+      SELECT DISTINCT user
+                  FROM Company company
+                  JOIN company.users user
+                  LEFT JOIN FETCH user.roles
+                  WHERE company.id = :companyId
+      """)
+  Set<User> findAllWithRolesByCompanyId(long companyId);
+
+  /**
+   * Checks if a user has a role.
+   *
+   * @param id the ID of the user
+   * @param roleName the name of the role
+   * @return true if the user has the role, false otherwise
+   */
+  boolean existsByIdAndRoles_Name(long id, String roleName);
+
+  /**
+   * Finds the ids of the favorite cars of a user.
+   *
+   * @param userId the ID of the user
+   * @return the ids of the favorite cars of the user
+   */
+  @Query("""
+      SELECT car.id
+                  FROM User user JOIN user.favorites car
+                  WHERE user.id = :userId
+      """)
+  Set<Long> findFavoriteCarIds(long userId);
+
+  /**
+   * Adds a car to the favorites of a user, unless it already is a favorite.
+   *
+   * <p>Two calls adding the same favorite at the same time may both find it missing, and the
+   * second then fails with a {@link org.springframework.dao.DataIntegrityViolationException}.
+   *
+   * @param userId the ID of the user
+   * @param carId the ID of the car
+   * @return the number of favorites added, 0 or 1
+   */
+  @Modifying
+  @Transactional
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "app_user_favorites"))
+  @Query(value = """
+      INSERT INTO app_user_favorites (user_id, favorites_id)
+      SELECT :userId, :carId
+      WHERE NOT EXISTS (
+          SELECT 1 FROM app_user_favorites WHERE user_id = :userId AND favorites_id = :carId
+      )
+      """, nativeQuery = true)
+  int addFavorite(long userId, long carId);
+
+  /**
+   * Removes a car from the favorites of a user.
+   *
+   * @param userId the ID of the user
+   * @param carId the ID of the car
+   * @return the number of favorites removed, 0 or 1
+   */
+  @Modifying
+  @Transactional
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "app_user_favorites"))
+  @Query(value = """
+      DELETE FROM app_user_favorites WHERE user_id = :userId AND favorites_id = :carId
+      """, nativeQuery = true)
+  int removeFavorite(long userId, long carId);
 }
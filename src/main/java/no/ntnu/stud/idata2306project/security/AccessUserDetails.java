@@ -34,6 +34,23 @@ public class AccessUserDetails implements UserDetails {
     convertRolesToAuthorities(user.getRoles());
   }
 
+  /**
+   * Constructor for AccessUserDetails without a password, for a user already authenticated by a
+   * token.
+   *
+   * @param userId The id of the user
+   * @param email The email of the user
+   * @param roleNames The names of the roles of the user
+   */
+  public AccessUserDetails(Long userId, String email, Collection<String> roleNames) {
+    this.email = email;
+    this.userId = userId;
+    this.authorities = new HashSet<>();
+    for (String roleName : roleNames) {
+      this.authorities.add(new SimpleGrantedAuthority(roleName));
+    }
+  }
+
   private void convertRolesToAuthorities(Set<Role> roles) {
     Iterator<Role> iterator = roles.iterator();
 
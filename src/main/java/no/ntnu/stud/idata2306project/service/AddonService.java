@@ -4,6 +4,8 @@ import no.ntnu.stud.idata2306project.model.car.Addon;
 import no.ntnu.stud.idata2306project.repository.AddonRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -31,4 +33,14 @@ public class AddonService {
   public Optional<Addon> findById(Long id) {
     return addonRepository.findById(id);
   }
+
+  /**
+   * Finds the addons with the given ids in one query. Ids without an addon are left out.
+   *
+   * @param ids the ids of the addons
+   * @return the addons that were found
+   */
+  public List<Addon> findAllById(Collection<Long> ids) {
+    return addonRepository.findAllById(ids);
+  }
 }
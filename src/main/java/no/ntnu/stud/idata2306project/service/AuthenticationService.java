@@ -0,0 +1,250 @@
+package no.ntnu.stud.idata2306project.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.stud.idata2306project.exception.AuthenticationUnavailableException;
+import no.ntnu.stud.idata2306project.exception.TooManyLoginAttemptsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+/**
+ * Verifies the passwords of users logging in.
+ *
+ * <p>Hashing a password with BCrypt is deliberately slow, so it is done by a small pool of worker
+ * threads with a bounded queue instead of on the request thread. A burst of logins then only
+ * occupies the workers, and other requests are served as usual. The number of workers is set by
+ * {@code authentication.threads} and the queue length by {@code authentication.queue-capacity}.
+ * When the queue is full, or a login is not verified within {@code authentication.timeout-ms},
+ * an {@link AuthenticationUnavailableException} is thrown instead of waiting.
+ *
+ * <p>Login attempts are limited per account and per client address by the
+ * {@link LoginRateLimiter} before they reach the workers.
+ */
+@Service
+public class AuthenticationService {
+
+  private final AuthenticationManager authenticationManager;
+  private final LoginRateLimiter loginRateLimiter;
+  private final long timeoutMillis;
+  private final ThreadPoolExecutor executor;
+
+  private long verifications = 0;
+  private long totalVerificationNanos = 0;
+  private long maxVerificationNanos = 0;
+  private int peakQueueDepth = 0;
+  private long rejected = 0;
+  private long timedOut = 0;
+
+  /**
+   * Creates an instance of AuthenticationService.
+   *
+   * @param authenticationManager the authentication manager verifying the passwords
+   * @param loginRateLimiter the limiter of login attempts
+   * @param threads the number of worker threads
+   * @param queueCapacity the number of logins that may wait for a worker
+   * @param timeoutMillis how long to wait for a login to be verified, in milliseconds
+   */
+  public AuthenticationService(AuthenticationManager authenticationManager,
+      LoginRateLimiter loginRateLimiter,
+      @Value("${authentication.threads:2}") int threads,
+      @Value("${authentication.queue-capacity:32}") int queueCapacity,
+      @Value("${authentication.timeout-ms:5000}") long timeoutMillis) {
+    this.authenticationManager = authenticationManager;
+    this.loginRateLimiter = loginRateLimiter;
+    this.timeoutMillis = timeoutMillis;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("authentication-", 0).daemon().factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Verify the username and password of a user logging in.
+   *
+   * <p>The returned future completes with the details of the user if the password is correct, or
+   * exceptionally with the {@link org.springframework.security.core.AuthenticationException} of
+   * the authentication manager if it is not. If the login is not verified in time, it completes
+   * exceptionally with an {@link AuthenticationUnavailableException}.
+   *
+   * @param username the username of the user
+   * @param password the password of the user
+   * @param clientAddress the address of the client logging in
+   * @return the details of the authenticated user, when the password has been verified
+   * @throws TooManyLoginAttemptsException if there are too many attempts for the account or from
+   *     the address
+   * @throws AuthenticationUnavailableException if too many logins are waiting to be verified
+   */
+  public CompletableFuture<UserDetails> authenticate(String username, String password,
+      String clientAddress) {
+    loginRateLimiter.acquire(username, clientAddress);
+
+    CompletableFuture<UserDetails> authenticated = new CompletableFuture<>();
+    try {
+      executor.execute(() -> verify(authenticated, username, password));
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        rejected++;
+      }
+      throw new AuthenticationUnavailableException("Too many logins are being verified", e);
+    }
+    synchronized (this) {
+      peakQueueDepth = Math.max(peakQueueDepth, executor.getQueue().size());
+    }
+
+    CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS).execute(() -> {
+      boolean expired = authenticated.completeExceptionally(
+          new AuthenticationUnavailableException("Verifying the login timed out", null));
+      if (expired) {
+        synchronized (this) {
+          timedOut++;
+        }
+      }
+    });
+    return authenticated;
+  }
+
+  /**
+   * Returns the number of verified logins, how long they took, and the state of the queue.
+   *
+   * @return the statistics of the login verifications
+   */
+  public synchronized Statistics getStatistics() {
+    return new Statistics(verifications, totalVerificationNanos, maxVerificationNanos,
+        executor.getQueue().size(), peakQueueDepth, executor.getActiveCount(), rejected,
+        timedOut, loginRateLimiter.getLimitedAttempts());
+  }
+
+  /**
+   * Stop the workers when the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void verify(CompletableFuture<UserDetails> authenticated, String username,
+      String password) {
+    if (authenticated.isDone()) {
+      // Timed out while waiting for a worker, so nobody is waiting for the result
+      return;
+    }
+
+    long startTime = System.nanoTime();
+    try {
+      Authentication authentication = authenticationManager.authenticate(
+          new UsernamePasswordAuthenticationToken(username, password));
+      authenticated.complete((UserDetails) authentication.getPrincipal());
+    } catch (RuntimeException e) {
+      authenticated.completeExceptionally(e);
+    } finally {
+      long elapsed = System.nanoTime() - startTime;
+      synchronized (this) {
+        verifications++;
+        totalVerificationNanos += elapsed;
+        maxVerificationNanos = Math.max(maxVerificationNanos, elapsed);
+      }
+    }
+  }
+
+  /**
+   * Snapshot of the login verifications.
+   */
+  public static final class Statistics {
+    private final long verifications;
+    private final long totalVerificationNanos;
+    private final long maxVerificationNanos;
+    private final int queueDepth;
+    private final int peakQueueDepth;
+    private final int activeWorkers;
+    private final long rejected;
+    private final long timedOut;
+    private final long rateLimited;
+
+    private Statistics(long verifications, long totalVerificationNanos,
+        long maxVerificationNanos, int queueDepth, int peakQueueDepth, int activeWorkers,
+        long rejected, long timedOut, long rateLimited) {
+      this.verifications = verifications;
+      this.totalVerificationNanos = totalVerificationNanos;
+      this.maxVerificationNanos = maxVerificationNanos;
+      this.queueDepth = queueDepth;
+      this.peakQueueDepth = peakQueueDepth;
+      this.activeWorkers = activeWorkers;
+      this.rejected = rejected;
+      this.timedOut = timedOut;
+      this.rateLimited = rateLimited;
+    }
+
+    /**
+     * Returns the number of logins verified, successfully or not.
+     */
+    public long getVerifications() {
+      return verifications;
+    }
+
+    /**
+     * Returns the average time taken to verify a login, in milliseconds.
+     */
+    public double getAverageVerificationMillis() {
+      return verifications == 0
+          ? 0
+          : (double) totalVerificationNanos / verifications / 1_000_000;
+    }
+
+    /**
+     * Returns the longest time taken to verify a login, in milliseconds.
+     */
+    public double getMaxVerificationMillis() {
+      return (double) maxVerificationNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the number of logins waiting for a worker.
+     */
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    /**
+     * Returns the largest number of logins that have waited for a worker at once.
+     */
+    public int getPeakQueueDepth() {
+      return peakQueueDepth;
+    }
+
+    /**
+     * Returns the number of workers verifying a login.
+     */
+    public int getActiveWorkers() {
+      return activeWorkers;
+    }
+
+    /**
+     * Returns the number of logins refused because the queue was full.
+     */
+    public long getRejected() {
+      return rejected;
+    }
+
+    /**
+     * Returns the number of logins that were not verified in time.
+     */
+    public long getTimedOut() {
+      return timedOut;
+    }
+
+    /**
+     * Returns the number of logins refused by the rate limits.
+     */
+    public long getRateLimited() {
+      return rateLimited;
+    }
+  }
+}
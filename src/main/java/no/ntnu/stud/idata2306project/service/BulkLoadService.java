@@ -0,0 +1,89 @@
+package no.ntnu.stud.idata2306project.service;
+
+import jakarta.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for inserting large numbers of new entities.
+ *
+ * <p>The entities are persisted in one transaction, and the persistence context is flushed and
+ * cleared after every {@code hibernate.jdbc.batch_size} entities. Each flush sends the inserts of
+ * the entities, and the rows of their collections, in JDBC batches, and the ids of the entities
+ * come from pooled sequences, so the database is asked for ids once per batch rather than once
+ * per row. As the persistence context is cleared, memory use does not grow with the number of
+ * entities, and entities referenced by the new entities may be detached.
+ *
+ * <p>Bulk loads bypass the services of the entities. New orders are not in the
+ * {@link CarAvailabilityIndex} until it is rebuilt.
+ */
+@Service
+public class BulkLoadService {
+
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final Logger logger = LoggerFactory.getLogger(BulkLoadService.class);
+
+  /**
+   * Creates an instance of BulkLoadService.
+   *
+   * @param entityManager the entity manager of the current transaction
+   * @param transactionTemplate the template running each bulk load in a transaction
+   * @param batchSize the number of entities between each flush, the JDBC batch size
+   */
+  public BulkLoadService(EntityManager entityManager, TransactionTemplate transactionTemplate,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Inserts new entities in one transaction. The stream is consumed lazily, so the entities may be
+   * created as they are inserted.
+   *
+   * @param entities the entities to insert, which must not have been persisted
+   * @return the number of entities inserted
+   */
+  public long insertAll(Stream<?> entities) {
+    return insertAll(entities, entity -> { });
+  }
+
+  /**
+   * Inserts new entities in one transaction, telling the caller about each entity once it has
+   * been persisted and has its id. The stream is consumed lazily, so the entities may be created
+   * as they are inserted.
+   *
+   * @param entities the entities to insert, which must not have been persisted
+   * @param persisted called with each entity after it is persisted
+   * @param <T> the type of the entities
+   * @return the number of entities inserted
+   */
+  public <T> long insertAll(Stream<T> entities, Consumer<? super T> persisted) {
+    Long inserted = transactionTemplate.execute(status -> {
+      long count = 0;
+      Iterator<T> iterator = entities.iterator();
+      while (iterator.hasNext()) {
+        T entity = iterator.next();
+        entityManager.persist(entity);
+        persisted.accept(entity);
+        if (++count % batchSize == 0) {
+          entityManager.flush();
+          entityManager.clear();
+        }
+      }
+      entityManager.flush();
+      entityManager.clear();
+      return count;
+    });
+    logger.debug("Bulk loaded {} entities", inserted);
+    return inserted == null ? 0 : inserted;
+  }
+}
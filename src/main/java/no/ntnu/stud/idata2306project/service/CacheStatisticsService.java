@@ -0,0 +1,68 @@
+package no.ntnu.stud.idata2306project.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import no.ntnu.stud.idata2306project.dto.CacheRegionStatisticsDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for reading the statistics of the regions of the Hibernate second-level cache.
+ *
+ * <p>The regions and their sizes are configured in {@code ehcache.xml}. The statistics are
+ * collected by Hibernate, and are only counted while {@code hibernate.generate_statistics} is
+ * enabled.
+ */
+@Service
+public class CacheStatisticsService {
+
+  private final Statistics statistics;
+
+  /**
+   * Creates an instance of CacheStatisticsService.
+   *
+   * @param entityManagerFactory the entity manager factory, backed by Hibernate
+   */
+  public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  /**
+   * Get the statistics of every region of the second-level cache, sorted by name.
+   *
+   * @return the statistics of every region
+   */
+  public List<CacheRegionStatisticsDto> getRegionStatistics() {
+    String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+    Arrays.sort(regionNames);
+    List<CacheRegionStatisticsDto> regions = new ArrayList<>();
+    for (String regionName : regionNames) {
+      CacheRegionStatistics region = getRegion(regionName);
+      if (region != null) {
+        long elementsInMemory = region.getElementCountInMemory();
+        if (elementsInMemory == CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN) {
+          elementsInMemory = -1;
+        }
+        regions.add(new CacheRegionStatisticsDto(regionName, region.getHitCount(),
+            region.getMissCount(), region.getPutCount(), elementsInMemory));
+      }
+    }
+    return regions;
+  }
+
+  /**
+   * Returns the statistics of an entity or a query results region, or null if the region holds
+   * neither.
+   */
+  private CacheRegionStatistics getRegion(String regionName) {
+    try {
+      return statistics.getDomainDataRegionStatistics(regionName);
+    } catch (IllegalArgumentException e) {
+      return statistics.getQueryRegionStatistics(regionName);
+    }
+  }
+}
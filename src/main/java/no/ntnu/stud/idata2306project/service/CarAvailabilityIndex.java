@@ -0,0 +1,357 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import no.ntnu.stud.idata2306project.model.order.Order;
+import no.ntnu.stud.idata2306project.repository.BookedPeriod;
+import no.ntnu.stud.idata2306project.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory index of the date ranges every car is booked for.
+ *
+ * <p>For each car the booked ranges are kept in an immutable array sorted by start date, together
+ * with the running maximum of the end dates. Checking whether a car is free in a range is then a
+ * binary search instead of a database query. The arrays are replaced, never modified, so readers
+ * need no locking. A rebuild loads new maps beside the current ones and then replaces them in one
+ * step, so readers see either the old or the new index, never a partly loaded one.
+ *
+ * <p>The index is loaded from the {@link OrderRepository} on first use and must be told about
+ * every order that is saved or deleted afterwards. Orders written directly to the repository are
+ * only picked up by {@link #rebuild()}.
+ *
+ * <p>Like {@link OrderRepository#isAvailableBetween}, an order occupies every date from its start
+ * date to its end date, both included. Ranges are kept as the half-open range of epoch days from
+ * the start date up to the day after the end date.
+ */
+@Service
+public class CarAvailabilityIndex {
+
+  private final OrderRepository orderRepository;
+  private final Logger logger = LoggerFactory.getLogger(CarAvailabilityIndex.class);
+
+  private volatile Tables tables = null;
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Creates an instance of CarAvailabilityIndex.
+   *
+   * @param orderRepository the order repository
+   */
+  public CarAvailabilityIndex(OrderRepository orderRepository) {
+    this.orderRepository = orderRepository;
+  }
+
+  /**
+   * Check if a car has no order covering a given date.
+   *
+   * @param carId the id of the car
+   * @param date  the date to check
+   * @return true if the car is available on the date, false otherwise
+   */
+  public boolean isAvailableFrom(long carId, LocalDate date) {
+    long day = date.toEpochDay();
+    return !bookings(carId).overlaps(day, day + 1);
+  }
+
+  /**
+   * Check if a car has no order overlapping two dates.
+   *
+   * @param carId     the id of the car
+   * @param startDate the start date to check
+   * @param endDate   the end date to check
+   * @return true if the car is available between the dates, false otherwise
+   */
+  public boolean isAvailableBetween(long carId, LocalDate startDate, LocalDate endDate) {
+    return !bookings(carId).overlaps(startDate.toEpochDay(), endDate.toEpochDay() + 1);
+  }
+
+  /**
+   * Get the ids of all cars that have an order covering a given date.
+   *
+   * @param date the date to check
+   * @return the ids of the cars booked on the date
+   */
+  public Set<Long> getCarIdsBookedOn(LocalDate date) {
+    long day = date.toEpochDay();
+    return getCarIdsBooked(day, day + 1);
+  }
+
+  /**
+   * Get the ids of all cars that have an order overlapping two dates.
+   *
+   * @param startDate the start date to check
+   * @param endDate   the end date to check
+   * @return the ids of the cars booked between the dates
+   */
+  public Set<Long> getCarIdsBookedBetween(LocalDate startDate, LocalDate endDate) {
+    return getCarIdsBooked(startDate.toEpochDay(), endDate.toEpochDay() + 1);
+  }
+
+  /**
+   * Returns the version of the bookings, which is increased by every added or removed booking and
+   * every rebuild. Availability computed at one version is out of date at any later one.
+   *
+   * @return the version of the bookings of the cars
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Add a saved order to the index.
+   *
+   * @param order the order that was saved
+   */
+  public synchronized void add(Order order) {
+    Tables current = tables();
+    long carId = order.getCar().getId();
+    Long previousCarId = current.carIdByOrderId.put(order.getOrderId(), carId);
+    if (previousCarId != null) {
+      current.removeBooking(previousCarId, order.getOrderId());
+    }
+    current.bookingsByCar.compute(carId, (id, bookings) -> Objects.requireNonNullElse(
+        bookings, Bookings.EMPTY).with(order.getOrderId(),
+        order.getStartDate().toEpochDay(), order.getEndDate().toEpochDay() + 1));
+    version.incrementAndGet();
+  }
+
+  /**
+   * Remove a deleted order from the index.
+   *
+   * @param orderId the id of the order that was deleted
+   */
+  public synchronized void remove(long orderId) {
+    Tables current = tables();
+    Long carId = current.carIdByOrderId.remove(orderId);
+    if (carId != null) {
+      current.removeBooking(carId, orderId);
+      version.incrementAndGet();
+    }
+  }
+
+  /**
+   * Reload the whole index from the database.
+   */
+  public synchronized void rebuild() {
+    Tables loaded = new Tables(load(orderRepository.findAllBookedPeriods()));
+    tables = loaded;
+    version.incrementAndGet();
+    logger.info("Availability index built with {} orders for {} cars",
+        loaded.carIdByOrderId.size(), loaded.bookingsByCar.size());
+  }
+
+  /**
+   * Compare the index with the orders in the database.
+   *
+   * @return the ids of the cars whose bookings in the index differ from the database
+   */
+  public Set<Long> findInconsistentCarIds() {
+    Map<Long, Bookings> bookingsByCar = tables().bookingsByCar;
+    Map<Long, Bookings> expected = load(orderRepository.findAllBookedPeriods());
+
+    Set<Long> carIds = new HashSet<>(expected.keySet());
+    carIds.addAll(bookingsByCar.keySet());
+
+    Set<Long> inconsistent = new HashSet<>();
+    for (Long carId : carIds) {
+      Bookings actual = bookingsByCar.getOrDefault(carId, Bookings.EMPTY);
+      if (!actual.sameAs(expected.getOrDefault(carId, Bookings.EMPTY))) {
+        inconsistent.add(carId);
+      }
+    }
+    return inconsistent;
+  }
+
+  private Set<Long> getCarIdsBooked(long startDay, long endDay) {
+    Set<Long> carIds = new HashSet<>();
+    tables().bookingsByCar.forEach((carId, bookings) -> {
+      if (bookings.overlaps(startDay, endDay)) {
+        carIds.add(carId);
+      }
+    });
+    return carIds;
+  }
+
+  private Bookings bookings(long carId) {
+    return tables().bookingsByCar.getOrDefault(carId, Bookings.EMPTY);
+  }
+
+  private Tables tables() {
+    Tables current = tables;
+    if (current == null) {
+      synchronized (this) {
+        if (tables == null) {
+          rebuild();
+        }
+        current = tables;
+      }
+    }
+    return current;
+  }
+
+  private static Map<Long, Bookings> load(List<BookedPeriod> periods) {
+    Map<Long, List<BookedPeriod>> periodsByCar = periods.stream()
+        .collect(Collectors.groupingBy(BookedPeriod::getCarId));
+
+    Map<Long, Bookings> bookings = new HashMap<>();
+    periodsByCar.forEach((carId, carPeriods) -> bookings.put(carId, Bookings.of(carPeriods)));
+    return bookings;
+  }
+
+  /**
+   * The bookings of every car, and the car of every order. Changed in place by single orders, and
+   * replaced as a whole by {@link #rebuild()}.
+   */
+  private static final class Tables {
+    private final Map<Long, Bookings> bookingsByCar;
+    private final Map<Long, Long> carIdByOrderId = new ConcurrentHashMap<>();
+
+    private Tables(Map<Long, Bookings> bookingsByCar) {
+      this.bookingsByCar = new ConcurrentHashMap<>(bookingsByCar);
+      bookingsByCar.forEach((carId, bookings) -> {
+        for (long orderId : bookings.orderIds) {
+          carIdByOrderId.put(orderId, carId);
+        }
+      });
+    }
+
+    /**
+     * Removes an order from the bookings of a car, dropping the car if it has no bookings left.
+     */
+    private void removeBooking(long carId, long orderId) {
+      bookingsByCar.computeIfPresent(carId, (id, bookings) -> {
+        Bookings remaining = bookings.without(orderId);
+        return remaining.isEmpty() ? null : remaining;
+      });
+    }
+  }
+
+  /**
+   * Immutable, start-sorted booked ranges of a single car.
+   *
+   * <p>{@code maxEnds[i]} is the largest end of the ranges {@code 0..i}, which makes overlap
+   * checks correct even if two orders for the same car overlap each other.
+   */
+  private static final class Bookings {
+    private static final Bookings EMPTY =
+        new Bookings(new long[0], new long[0], new long[0]);
+
+    private final long[] orderIds;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private Bookings(long[] orderIds, long[] starts, long[] ends) {
+      this.orderIds = orderIds;
+      this.starts = starts;
+      this.ends = ends;
+      this.maxEnds = new long[ends.length];
+      long maxEnd = Long.MIN_VALUE;
+      for (int i = 0; i < ends.length; i++) {
+        maxEnd = Math.max(maxEnd, ends[i]);
+        maxEnds[i] = maxEnd;
+      }
+    }
+
+    private static Bookings of(List<BookedPeriod> periods) {
+      List<BookedPeriod> sorted = periods.stream()
+          .sorted(Comparator.comparing(BookedPeriod::getStartDate))
+          .toList();
+      long[] orderIds = new long[sorted.size()];
+      long[] starts = new long[sorted.size()];
+      long[] ends = new long[sorted.size()];
+      for (int i = 0; i < sorted.size(); i++) {
+        BookedPeriod period = sorted.get(i);
+        orderIds[i] = period.getOrderId();
+        starts[i] = period.getStartDate().toEpochDay();
+        ends[i] = period.getEndDate().toEpochDay() + 1;
+      }
+      return new Bookings(orderIds, starts, ends);
+    }
+
+    private boolean isEmpty() {
+      return orderIds.length == 0;
+    }
+
+    /**
+     * Returns true if any range overlaps {@code [startDay, endDay)}.
+     */
+    private boolean overlaps(long startDay, long endDay) {
+      // Index of the last range starting before endDay
+      int low = 0;
+      int high = starts.length - 1;
+      int last = -1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (starts[mid] < endDay) {
+          last = mid;
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return last >= 0 && maxEnds[last] > startDay;
+    }
+
+    private Bookings with(long orderId, long startDay, long endDay) {
+      int position = 0;
+      while (position < starts.length && starts[position] <= startDay) {
+        position++;
+      }
+      return new Bookings(
+          insert(orderIds, position, orderId),
+          insert(starts, position, startDay),
+          insert(ends, position, endDay));
+    }
+
+    private Bookings without(long orderId) {
+      for (int i = 0; i < orderIds.length; i++) {
+        if (orderIds[i] == orderId) {
+          return new Bookings(remove(orderIds, i), remove(starts, i), remove(ends, i));
+        }
+      }
+      return this;
+    }
+
+    private boolean sameAs(Bookings other) {
+      return Arrays.equals(sortedRanges(), other.sortedRanges());
+    }
+
+    private String[] sortedRanges() {
+      String[] ranges = new String[orderIds.length];
+      for (int i = 0; i < orderIds.length; i++) {
+        ranges[i] = orderIds[i] + ":" + starts[i] + "-" + ends[i];
+      }
+      Arrays.sort(ranges);
+      return ranges;
+    }
+
+    private static long[] insert(long[] values, int position, long value) {
+      long[] result = new long[values.length + 1];
+      System.arraycopy(values, 0, result, 0, position);
+      result[position] = value;
+      System.arraycopy(values, position, result, position + 1, values.length - position);
+      return result;
+    }
+
+    private static long[] remove(long[] values, int position) {
+      long[] result = new long[values.length - 1];
+      System.arraycopy(values, 0, result, 0, position);
+      System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Striped in-process locks serializing the bookings of each car.
+ *
+ * <p>Every car maps to one of {@code booking.lock-stripes} locks, so bookings of the same car never
+ * run at the same time in this process, while bookings of most other cars run in parallel. A
+ * booker waiting for a stripe holds no database connection, so a hot car can not use up the
+ * connection pool. A batch of bookings takes the locks of all its cars in the order of the stripes,
+ * so two batches can not each hold a lock the other waits for.
+ *
+ * <p>The stripes only order bookers within one process. Bookings are also serialized by a lock on
+ * the row of the car in the database, see {@link OrderService#addOrder}, which holds across
+ * processes.
+ */
+@Service
+public class CarBookingLocks {
+
+  private final ReentrantLock[] stripes;
+  private final int mask;
+
+  /**
+   * Creates an instance of CarBookingLocks.
+   *
+   * @param stripeCount the number of locks, rounded up to a power of two
+   */
+  public CarBookingLocks(@Value("${booking.lock-stripes:256}") int stripeCount) {
+    int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Run an action while holding the lock of a car.
+   *
+   * @param carId the id of the car
+   * @param action the action to run
+   * @param <T> the type of the result of the action
+   * @return the result of the action
+   */
+  public <T> T withLock(long carId, Supplier<T> action) {
+    ReentrantLock lock = stripes[stripe(carId)];
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Run an action while holding the locks of several cars.
+   *
+   * @param carIds the ids of the cars
+   * @param action the action to run
+   * @param <T> the type of the result of the action
+   * @return the result of the action
+   */
+  public <T> T withLocks(Collection<Long> carIds, Supplier<T> action) {
+    int[] indexes = carIds.stream()
+        .mapToInt(this::stripe)
+        .distinct()
+        .sorted()
+        .toArray();
+    int locked = 0;
+    try {
+      for (int index : indexes) {
+        stripes[index].lock();
+        locked++;
+      }
+      return action.get();
+    } finally {
+      for (int i = locked - 1; i >= 0; i--) {
+        stripes[indexes[i]].unlock();
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a car id, so cars with nearby ids use different stripes.
+   */
+  private int stripe(long carId) {
+    long hash = carId * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
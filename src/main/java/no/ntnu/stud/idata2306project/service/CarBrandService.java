@@ -1,30 +1,30 @@
 package no.ntnu.stud.idata2306project.service;
 
 import no.ntnu.stud.idata2306project.model.car.CarBrand;
-import no.ntnu.stud.idata2306project.repository.CarBrandRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 @Service
 public class CarBrandService {
-  private CarBrandRepository carBrandRepository;
+  private final ReferenceDataCache referenceDataCache;
 
   /**
    * Creates an instance of CarBrandService.
    *
-   * @param carBrandRepository the car brand repository
+   * @param referenceDataCache the cache of the reference data
    */
-  public CarBrandService(CarBrandRepository carBrandRepository) {
-    this.carBrandRepository = carBrandRepository;
+  public CarBrandService(ReferenceDataCache referenceDataCache) {
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
    * Finds all car brands used in cars.
    *
-   * @return a set of car brands used in cars
+   * @return a set of car brands used in cars, ordered by id
    */
   public Set<CarBrand> getCarBrandsUsedInCars() {
-    return carBrandRepository.findAllInUseOnCars();
+    return new LinkedHashSet<>(referenceDataCache.getReferenceData().getBrandsInUse());
   }
 }
@@ -0,0 +1,90 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import no.ntnu.stud.idata2306project.exception.InvalidFilterException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Encodes the position of the last car of a window of cars as an opaque cursor, and decodes it
+ * again.
+ *
+ * <p>A cursor holds the values of the sort properties and the id of the last car, so the next
+ * window can continue right after it without counting or skipping rows. An empty cursor is the
+ * start of the listing. A cursor is only valid for the sort order it was created with.
+ */
+public final class CarCursor {
+
+  /**
+   * The properties cars can be sorted by in a cursor, with a parser for their values.
+   */
+  private static final Map<String, Function<String, Object>> PROPERTIES = Map.of(
+      "id", Long::valueOf,
+      "year", Integer::valueOf,
+      "numberOfSeats", Integer::valueOf,
+      "pricePerDay", Integer::valueOf);
+
+  private CarCursor() {
+  }
+
+  /**
+   * Encode a position as a cursor.
+   *
+   * @param position the keyset position of the last car of a window
+   * @return the cursor
+   */
+  public static String encode(ScrollPosition position) {
+    StringBuilder cursor = new StringBuilder();
+    ((KeysetScrollPosition) position).getKeys().forEach((property, value) -> {
+      if (!cursor.isEmpty()) {
+        cursor.append(',');
+      }
+      cursor.append(property).append('=').append(value);
+    });
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor into the position to continue from.
+   *
+   * @param cursor the cursor, or an empty string for the start of the listing
+   * @param sort the sort order of the listing, without the id
+   * @return the position to continue from
+   * @throws InvalidFilterException if the cursor is not valid for the sort order
+   */
+  public static ScrollPosition decode(String cursor, Sort sort) {
+    if (cursor.isEmpty()) {
+      return ScrollPosition.keyset();
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      Map<String, Object> keys = new LinkedHashMap<>();
+      for (String key : decoded.split(",")) {
+        String[] parts = key.split("=", 2);
+        Function<String, Object> parser = PROPERTIES.get(parts[0]);
+        if (parser == null || parts.length != 2) {
+          throw new IllegalArgumentException("Unknown cursor key " + key);
+        }
+        keys.put(parts[0], parser.apply(parts[1]));
+      }
+
+      Set<String> expectedKeys = new HashSet<>(Set.of("id"));
+      sort.forEach(order -> expectedKeys.add(order.getProperty()));
+      if (!keys.keySet().equals(expectedKeys)) {
+        throw new IllegalArgumentException("Cursor does not match the sort order");
+      }
+      return ScrollPosition.forward(keys);
+    } catch (IllegalArgumentException e) {
+      // Also covers NumberFormatException
+      throw new InvalidFilterException("cursor", cursor, "Invalid cursor");
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import no.ntnu.stud.idata2306project.dto.CarDto;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.model.car.Feature;
+import no.ntnu.stud.idata2306project.model.company.Company;
+import no.ntnu.stud.idata2306project.repository.CarRepository;
+import no.ntnu.stud.idata2306project.repository.CompanyRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds {@link CarDto} objects for many cars at once.
+ *
+ * <p>Everything a car DTO shows is loaded for all the given cars together: the cars with their
+ * model, brand, fuel type, transmission type and addons in one query, their features in a second
+ * query and the owning companies in a third. The owners are resolved by the
+ * {@link CarOwnershipIndex}. Each lookup binds at most {@link IdChunks#MAX_SIZE} ids, so the
+ * number of queries only grows with every thousand cars converted.
+ */
+@Service
+public class CarDtoAssembler {
+
+  private final CarRepository carRepository;
+  private final CompanyRepository companyRepository;
+  private final CarOwnershipIndex carOwnershipIndex;
+
+  /**
+   * Creates an instance of CarDtoAssembler.
+   *
+   * @param carRepository the car repository
+   * @param companyRepository the company repository
+   * @param carOwnershipIndex the lookup of which company owns each car
+   */
+  public CarDtoAssembler(CarRepository carRepository, CompanyRepository companyRepository,
+      CarOwnershipIndex carOwnershipIndex) {
+    this.carRepository = carRepository;
+    this.companyRepository = companyRepository;
+    this.carOwnershipIndex = carOwnershipIndex;
+  }
+
+  /**
+   * Converts a list of cars to a list of carDtos, keeping the order of the cars.
+   *
+   * @param cars the cars to convert
+   * @return a carDto for each car
+   */
+  public List<CarDto> toCarDtos(List<Car> cars) {
+    if (cars.isEmpty()) {
+      return List.of();
+    }
+    Set<Long> carIds = cars.stream()
+        .map(Car::getId)
+        .collect(Collectors.toSet());
+    Map<Long, Car> carsWithDetails = byId(
+        IdChunks.findAll(carIds, carRepository::findWithDetailsByIdIn));
+
+    return toCarDtosWithDetails(cars.stream()
+        .map(car -> carsWithDetails.getOrDefault(car.getId(), car))
+        .toList());
+  }
+
+  /**
+   * Converts the cars with the given ids to carDtos, keeping the order of the ids. Unlike
+   * {@link #toCarDtos(List)} the cars are only loaded once, together with their details.
+   *
+   * @param carIds the ids of the cars to convert
+   * @return a carDto for each car that still exists
+   */
+  public List<CarDto> toCarDtos(long[] carIds) {
+    Map<Long, Car> carsWithDetails = byId(IdChunks.findAll(
+        Arrays.stream(carIds).boxed().toList(), carRepository::findWithDetailsByIdIn));
+
+    List<Car> cars = new ArrayList<>(carIds.length);
+    for (long carId : carIds) {
+      Car car = carsWithDetails.get(carId);
+      if (car != null) {
+        cars.add(car);
+      }
+    }
+    return toCarDtosWithDetails(cars);
+  }
+
+  private List<CarDto> toCarDtosWithDetails(List<Car> cars) {
+    if (cars.isEmpty()) {
+      return List.of();
+    }
+    Set<Long> carIds = cars.stream()
+        .map(Car::getId)
+        .collect(Collectors.toSet());
+    Map<Long, Car> carsWithFeatures = byId(
+        IdChunks.findAll(carIds, carRepository::findWithFeaturesByIdIn));
+
+    Map<Long, Long> ownerIdByCarId = new HashMap<>();
+    for (Long carId : carIds) {
+      carOwnershipIndex.getOwnerId(carId).ifPresent(ownerId -> ownerIdByCarId.put(carId, ownerId));
+    }
+    Map<Long, Company> ownersById = IdChunks
+        .findAll(new HashSet<>(ownerIdByCarId.values()), companyRepository::findAllByIdIn).stream()
+        .collect(Collectors.toMap(Company::getId, Function.identity()));
+
+    List<CarDto> carDtos = new ArrayList<>(cars.size());
+    for (Car car : cars) {
+      List<Feature> features = carsWithFeatures.getOrDefault(car.getId(), car).getFeatures();
+      Long ownerId = ownerIdByCarId.get(car.getId());
+      Company owner = ownerId == null ? null : ownersById.get(ownerId);
+      carDtos.add(toCarDto(car, features, owner));
+    }
+    return carDtos;
+  }
+
+  private CarDto toCarDto(Car car, List<Feature> features, Company owner) {
+    CarDto carDto = new CarDto();
+    carDto.setId(car.getId());
+    carDto.setYear(car.getYear());
+    carDto.setNumberOfSeats(car.getNumberOfSeats());
+    carDto.setPricePerDay(car.getPricePerDay());
+    carDto.setFuelType(car.getFuelType());
+    carDto.setTransmissionType(car.getTransmissionType());
+    carDto.setModel(car.getModel());
+    carDto.setCompany(owner);
+    carDto.setDescription(car.getDescription());
+    carDto.setAddons(car.getAddons());
+    carDto.setFeatures(features);
+    carDto.setVisible(car.isVisible());
+
+    return carDto;
+  }
+
+  private static Map<Long, Car> byId(List<Car> cars) {
+    return cars.stream().collect(Collectors.toMap(Car::getId, Function.identity()));
+  }
+}
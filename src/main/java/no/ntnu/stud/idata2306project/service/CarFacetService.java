@@ -0,0 +1,224 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import no.ntnu.stud.idata2306project.dto.CarFacetsDto;
+import no.ntnu.stud.idata2306project.exception.InvalidFilterException;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.repository.CarGroupCount;
+import no.ntnu.stud.idata2306project.repository.CarRepository;
+import no.ntnu.stud.idata2306project.repository.CompanyCarCount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for counting the cars matching a set of filters per brand, fuel type,
+ * transmission type, number of seats, seller and price range.
+ *
+ * <p>The matching cars are counted per combination of brand, fuel type, transmission type, number
+ * of seats and price in a single grouped query, and the combinations are then added up per facet.
+ * Sellers are not reachable from a car, so they are counted by a second grouped query. A keyword
+ * filter is matched by car id, in chunks, so with many matching cars both queries are run once
+ * per chunk and their counts added up.
+ *
+ * <p>The facets are cached per combination of filters for {@code car.facets.cache-ttl-ms}, and at
+ * most {@code car.facets.cache-max-entries} combinations are cached at once. {@link CarService}
+ * calls {@link #clear()} when a car is saved, hidden or deleted. Cached facets are also dropped
+ * when an order is saved or deleted, or a car changes owner, which is found from the versions of
+ * the {@link CarAvailabilityIndex} and the {@link CarOwnershipIndex}.
+ */
+@Service
+public class CarFacetService {
+
+  private final CarRepository carRepository;
+  private final CarFilterService carFilterService;
+  private final CarAvailabilityIndex carAvailabilityIndex;
+  private final CarOwnershipIndex carOwnershipIndex;
+  private final int priceBucketWidth;
+  private final long timeToLiveMillis;
+  private final Map<String, CachedFacets> facetsByFilters;
+  /**
+   * Counts the calls to {@link #clear()}. Guarded by {@link #facetsByFilters}.
+   */
+  private long generation = 0;
+
+  /**
+   * Creates an instance of CarFacetService.
+   *
+   * @param carRepository the car repository
+   * @param carFilterService the service translating filters into specifications
+   * @param carAvailabilityIndex the index of the bookings of every car
+   * @param carOwnershipIndex the index of the owner of every car
+   * @param priceBucketWidth the width of each price range
+   * @param timeToLiveMillis how long facets are cached, in milliseconds
+   * @param maxEntries the largest number of filter combinations to cache the facets of
+   */
+  public CarFacetService(CarRepository carRepository, CarFilterService carFilterService,
+      CarAvailabilityIndex carAvailabilityIndex, CarOwnershipIndex carOwnershipIndex,
+      @Value("${car.facets.price-bucket-width:250}") int priceBucketWidth,
+      @Value("${car.facets.cache-ttl-ms:60000}") long timeToLiveMillis,
+      @Value("${car.facets.cache-max-entries:1000}") int maxEntries) {
+    this.carRepository = carRepository;
+    this.carFilterService = carFilterService;
+    this.carAvailabilityIndex = carAvailabilityIndex;
+    this.carOwnershipIndex = carOwnershipIndex;
+    this.priceBucketWidth = priceBucketWidth;
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.facetsByFilters = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedFacets> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns how long facets are cached, in milliseconds.
+   *
+   * @return how long facets are cached, in milliseconds
+   */
+  public long getTimeToLiveMillis() {
+    return timeToLiveMillis;
+  }
+
+  /**
+   * Count the visible cars matching the given filters per facet.
+   *
+   * @param filters a map of filters to apply, as accepted by {@link CarFilterService}
+   * @return the facets of the matching cars
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
+   */
+  public CarFacetsDto getFacets(Map<String, String> filters) {
+    CarFilterPlan plan = carFilterService.compile(filters);
+    String key = plan.getQueryString();
+    long now = System.currentTimeMillis();
+    long version;
+    synchronized (facetsByFilters) {
+      version = version();
+      CachedFacets cached = facetsByFilters.get(key);
+      if (cached != null && cached.version == version && cached.expiresAt > now) {
+        return cached.facets;
+      }
+    }
+
+    CarFacetsDto facets = countFacets(carFilterService.toSpecifications(plan));
+    synchronized (facetsByFilters) {
+      // Facets counted while the cars or their orders changed may already be out of date
+      if (version() == version) {
+        facetsByFilters.put(key, new CachedFacets(facets, version, now + timeToLiveMillis));
+      }
+    }
+    return facets;
+  }
+
+  /**
+   * Forget all cached facets.
+   */
+  public void clear() {
+    synchronized (facetsByFilters) {
+      facetsByFilters.clear();
+      generation++;
+    }
+  }
+
+  /**
+   * Returns a number that grows every time the cars, their orders or their owners change, as
+   * the sum of counters that never decrease. Must be called holding {@link #facetsByFilters}.
+   */
+  private long version() {
+    return generation + carAvailabilityIndex.getVersion() + carOwnershipIndex.getVersion();
+  }
+
+  /**
+   * Counts the cars matching any of the given specifications, which match disjoint sets of cars.
+   */
+  private CarFacetsDto countFacets(List<Specification<Car>> specifications) {
+    List<CarGroupCount> groups = new ArrayList<>();
+    List<CompanyCarCount> owners = new ArrayList<>();
+    for (Specification<Car> specification : specifications) {
+      groups.addAll(carRepository.countGroupsMatching(specification));
+      owners.addAll(carRepository.countPerOwnerMatching(specification));
+    }
+
+    long total = groups.stream().mapToLong(CarGroupCount::getCount).sum();
+    return new CarFacetsDto(total,
+        countNamed(groups, CarGroupCount::getBrandId, CarGroupCount::getBrandName,
+            CarGroupCount::getCount),
+        countNamed(groups, CarGroupCount::getFuelTypeId, CarGroupCount::getFuelTypeName,
+            CarGroupCount::getCount),
+        countNamed(groups, CarGroupCount::getTransmissionTypeId,
+            CarGroupCount::getTransmissionTypeName, CarGroupCount::getCount),
+        countSeats(groups),
+        countNamed(owners, CompanyCarCount::getCompanyId, CompanyCarCount::getCompanyName,
+            CompanyCarCount::getCount),
+        countPriceBuckets(groups));
+  }
+
+  /**
+   * Adds up the counts of the groups per named value, sorted by name.
+   */
+  private static <T> List<CarFacetsDto.NamedCount> countNamed(List<T> groups,
+      ToLongFunction<T> id, Function<T, String> name, ToLongFunction<T> count) {
+    Map<Long, String> names = new TreeMap<>();
+    Map<Long, Long> counts = new TreeMap<>();
+    for (T group : groups) {
+      long groupId = id.applyAsLong(group);
+      names.putIfAbsent(groupId, name.apply(group));
+      counts.merge(groupId, count.applyAsLong(group), Long::sum);
+    }
+
+    List<CarFacetsDto.NamedCount> namedCounts = new ArrayList<>();
+    counts.forEach((groupId, total) ->
+        namedCounts.add(new CarFacetsDto.NamedCount(groupId, names.get(groupId), total)));
+    namedCounts.sort(Comparator.comparing(CarFacetsDto.NamedCount::getName));
+    return namedCounts;
+  }
+
+  private List<CarFacetsDto.ValueCount> countSeats(List<CarGroupCount> groups) {
+    Map<Integer, Long> counts = countPerValue(groups, CarGroupCount::getNumberOfSeats);
+    List<CarFacetsDto.ValueCount> seats = new ArrayList<>();
+    counts.forEach((value, count) -> seats.add(new CarFacetsDto.ValueCount(value, count)));
+    return seats;
+  }
+
+  private List<CarFacetsDto.RangeCount> countPriceBuckets(List<CarGroupCount> groups) {
+    Map<Integer, Long> counts = countPerValue(groups,
+        group -> Math.floorDiv(group.getPricePerDay(), priceBucketWidth) * priceBucketWidth);
+    List<CarFacetsDto.RangeCount> buckets = new ArrayList<>();
+    counts.forEach((from, count) ->
+        buckets.add(new CarFacetsDto.RangeCount(from, from + priceBucketWidth - 1, count)));
+    return buckets;
+  }
+
+  /**
+   * Adds up the counts of the groups per value, sorted by value.
+   */
+  private static Map<Integer, Long> countPerValue(List<CarGroupCount> groups,
+      ToIntFunction<CarGroupCount> value) {
+    Map<Integer, Long> counts = new TreeMap<>();
+    for (CarGroupCount group : groups) {
+      counts.merge(value.applyAsInt(group), group.getCount(), Long::sum);
+    }
+    return counts;
+  }
+
+  private static final class CachedFacets {
+    private final CarFacetsDto facets;
+    private final long version;
+    private final long expiresAt;
+
+    private CachedFacets(CarFacetsDto facets, long version, long expiresAt) {
+      this.facets = facets;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
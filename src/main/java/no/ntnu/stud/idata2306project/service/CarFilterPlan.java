@@ -0,0 +1,240 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import no.ntnu.stud.idata2306project.exception.InvalidFilterException;
+import no.ntnu.stud.idata2306project.exception.MissingFilterParameterException;
+import no.ntnu.stud.idata2306project.exception.UnknownFilterException;
+
+/**
+ * Immutable, parsed form of the filters of a car search.
+ *
+ * <p>Every filter parameter is parsed and checked once, when the plan is compiled, into the typed
+ * values the filters are evaluated with: sets of lower case names, a set of numbers of seats,
+ * price bounds and dates. A plan is therefore only ever created from valid filters, and can be
+ * evaluated any number of times without parsing anything again.
+ *
+ * <p>Each plan carries the normalized query string of its filters, with the filters sorted by
+ * name and encoded like a URL query, so equivalent searches share the same key.
+ */
+public final class CarFilterPlan {
+
+  private static final String FILTER_BRAND = "brand";
+  private static final String FILTER_FUEL_TYPE = "fuel_type";
+  private static final String FILTER_SELLER = "seller";
+  private static final String FILTER_SEATS = "seats";
+  private static final String FILTER_FROM_TIME = "from_time";
+  private static final String FILTER_BETWEEN_TIMES = "between_times";
+  private static final String FILTER_FROM_PRICE = "from_price";
+  private static final String FILTER_TO_PRICE = "to_price";
+  private static final String FILTER_KEYWORD = "keyword";
+
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+  private final String queryString;
+  private final Set<String> brands;
+  private final Set<String> fuelTypes;
+  private final Set<String> sellers;
+  private final Set<Integer> seats;
+  private final Double minPrice;
+  private final Double maxPrice;
+  private final LocalDate availableFrom;
+  private final LocalDate availableBetweenStart;
+  private final LocalDate availableBetweenEnd;
+  private final String keyword;
+
+  private CarFilterPlan(String queryString, Set<String> brands, Set<String> fuelTypes,
+      Set<String> sellers, Set<Integer> seats, Double minPrice, Double maxPrice,
+      LocalDate availableFrom, LocalDate availableBetweenStart, LocalDate availableBetweenEnd,
+      String keyword) {
+    this.queryString = queryString;
+    this.brands = brands;
+    this.fuelTypes = fuelTypes;
+    this.sellers = sellers;
+    this.seats = seats;
+    this.minPrice = minPrice;
+    this.maxPrice = maxPrice;
+    this.availableFrom = availableFrom;
+    this.availableBetweenStart = availableBetweenStart;
+    this.availableBetweenEnd = availableBetweenEnd;
+    this.keyword = keyword;
+  }
+
+  /**
+   * Parse and check the given filters.
+   *
+   * @param filters a map of filters
+   * @return the plan of the filters
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
+   */
+  public static CarFilterPlan compile(Map<String, String> filters) {
+    Set<String> brands = null;
+    Set<String> fuelTypes = null;
+    Set<String> sellers = null;
+    Set<Integer> seats = null;
+    Double minPrice = null;
+    Double maxPrice = null;
+    LocalDate availableFrom = null;
+    LocalDate availableBetweenStart = null;
+    LocalDate availableBetweenEnd = null;
+    String keyword = null;
+
+    for (Map.Entry<String, String> entry : filters.entrySet()) {
+      String filter = entry.getKey();
+      String givenParameter = entry.getValue();
+      try {
+        switch (filter) {
+          case FILTER_BRAND -> brands = lowerCaseValues(givenParameter);
+          case FILTER_FUEL_TYPE -> fuelTypes = lowerCaseValues(givenParameter);
+          case FILTER_SELLER -> sellers = lowerCaseValues(givenParameter);
+          case FILTER_SEATS -> seats = parseSeats(givenParameter);
+          case FILTER_FROM_TIME -> availableFrom = LocalDate.parse(givenParameter, FORMATTER);
+          case FILTER_BETWEEN_TIMES -> {
+            String[] dates = givenParameter.split(",");
+            if (dates.length < 2) {
+              throw new MissingFilterParameterException(filter, givenParameter);
+            }
+            availableBetweenStart = LocalDate.parse(dates[0], FORMATTER);
+            availableBetweenEnd = LocalDate.parse(dates[1], FORMATTER);
+          }
+          case FILTER_FROM_PRICE -> minPrice = Double.parseDouble(givenParameter);
+          case FILTER_TO_PRICE -> maxPrice = Double.parseDouble(givenParameter);
+          case FILTER_KEYWORD -> keyword = givenParameter;
+          default -> throw new UnknownFilterException(filter, givenParameter);
+        }
+      } catch (NumberFormatException e) {
+        throw new InvalidFilterException(filter, givenParameter, "Invalid number format");
+      } catch (UnknownFilterException e) {
+        throw new InvalidFilterException(filter, givenParameter, "Unknown filter");
+      } catch (DateTimeParseException e) {
+        throw new InvalidFilterException(filter, givenParameter, "Invalid date format");
+      } catch (MissingFilterParameterException e) {
+        throw new InvalidFilterException(filter, givenParameter, "Missing filter parameter");
+      }
+    }
+    return new CarFilterPlan(toQueryString(filters), brands, fuelTypes, sellers, seats,
+        minPrice, maxPrice, availableFrom, availableBetweenStart, availableBetweenEnd, keyword);
+  }
+
+  /**
+   * Normalize filters into a query string, with the filters sorted by name.
+   *
+   * @param filters a map of filters
+   * @return the normalized query string of the filters
+   */
+  public static String toQueryString(Map<String, String> filters) {
+    return new TreeMap<>(filters).entrySet().stream()
+        .map(entry -> encode(entry.getKey()) + "=" + encode(entry.getValue()))
+        .collect(Collectors.joining("&"));
+  }
+
+  /**
+   * Returns the normalized query string of the filters.
+   */
+  public String getQueryString() {
+    return queryString;
+  }
+
+  /**
+   * Returns the lower case names of the brands to match, or null if any brand matches.
+   */
+  public Set<String> getBrands() {
+    return brands;
+  }
+
+  /**
+   * Returns the lower case names of the fuel types to match, or null if any fuel type matches.
+   */
+  public Set<String> getFuelTypes() {
+    return fuelTypes;
+  }
+
+  /**
+   * Returns the lower case names of the sellers to match, or null if any seller matches.
+   */
+  public Set<String> getSellers() {
+    return sellers;
+  }
+
+  /**
+   * Returns the numbers of seats to match, or null if any number of seats matches.
+   */
+  public Set<Integer> getSeats() {
+    return seats;
+  }
+
+  /**
+   * Returns the lowest price per day to match, or null if there is no lower bound.
+   */
+  public Double getMinPrice() {
+    return minPrice;
+  }
+
+  /**
+   * Returns the highest price per day to match, or null if there is no upper bound.
+   */
+  public Double getMaxPrice() {
+    return maxPrice;
+  }
+
+  /**
+   * Returns the date cars must be available on, or null if it is not filtered by.
+   */
+  public LocalDate getAvailableFrom() {
+    return availableFrom;
+  }
+
+  /**
+   * Returns the first date of the period cars must be available in, or null if it is not
+   * filtered by.
+   */
+  public LocalDate getAvailableBetweenStart() {
+    return availableBetweenStart;
+  }
+
+  /**
+   * Returns the last date of the period cars must be available in, or null if it is not
+   * filtered by.
+   */
+  public LocalDate getAvailableBetweenEnd() {
+    return availableBetweenEnd;
+  }
+
+  /**
+   * Returns the keyword the full name of cars must match, or null if it is not filtered by.
+   */
+  public String getKeyword() {
+    return keyword;
+  }
+
+  /**
+   * Splits a comma separated filter parameter into lower case values.
+   */
+  private static Set<String> lowerCaseValues(String value) {
+    return Arrays.stream(value.split(","))
+        .map(name -> name.toLowerCase(Locale.ROOT))
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
+  /**
+   * Parses a comma separated list of numbers of seats.
+   */
+  private static Set<Integer> parseSeats(String value) {
+    return Arrays.stream(value.split(","))
+        .map(Integer::parseInt)
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -1,60 +1,96 @@
 package no.ntnu.stud.idata2306project.service;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import no.ntnu.stud.idata2306project.exception.InvalidFilterException;
-import no.ntnu.stud.idata2306project.exception.MissingFilterParameterException;
-import no.ntnu.stud.idata2306project.exception.UnknownFilterException;
 import no.ntnu.stud.idata2306project.model.car.Car;
-import no.ntnu.stud.idata2306project.model.car.CarBrand;
-import no.ntnu.stud.idata2306project.model.car.FuelType;
-import no.ntnu.stud.idata2306project.model.company.Company;
-import no.ntnu.stud.idata2306project.repository.OrderRepository;
-
+import no.ntnu.stud.idata2306project.repository.CarRepository;
+import no.ntnu.stud.idata2306project.repository.CarSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 /**
  * Service class for filtering cars based on various criteria.
+ *
+ * <p>The filters are first compiled into a {@link CarFilterPlan}, which parses and checks every
+ * filter parameter once. Plans are cached by their normalized query string, so a repeated search
+ * skips parsing altogether. At most {@code car.filter.plan-cache.max-entries} plans are cached.
+ *
+ * <p>Cars are selected from the {@link CarFleetIndex}: the filters narrow down a bit set of the
+ * visible cars in the current {@link CarFleetSnapshot}, which also gives the total count and the
+ * ids of the requested page. Availability, seller and keyword filters are answered by the
+ * {@link CarAvailabilityIndex}, the {@link CarOwnershipIndex} and the {@link CarKeywordIndex}.
+ * Only the cars of the requested page are then loaded by id.
+ *
+ * <p>Besides pages, the cars can be read in windows continuing after a {@link ScrollPosition}.
+ * Windows are found by comparing the cars to the keys of the position, so no total count is
+ * needed.
+ *
+ * <p>For counting, a plan is instead translated into {@link Specification Specifications} so the
+ * database does the filtering, see {@link #toSpecifications(CarFilterPlan)}.
  */
 @Service
 public class CarFilterService {
 
-  private final OrderRepository orderRepository;
-  private final CarSearchService carSearchService;
+  private final CarRepository carRepository;
+  private final CarAvailabilityIndex carAvailabilityIndex;
   private final CompanyService companyService;
+  private final CarKeywordIndex carKeywordIndex;
+  private final CarFleetIndex carFleetIndex;
 
-  
+  private final Map<String, CarFilterPlan> plansByQueryString;
 
-  private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final Sort DEFAULT_SORT = Sort.by("id");
 
-  private static final String FILTER_BRAND = "brand";
-  private static final String FILTER_FUEL_TYPE = "fuel_type";
-  private static final String FILTER_SELLER = "seller";
-  private static final String FILTER_SEATS = "seats";
-  private static final String FILTER_FROM_TIME = "from_time";
-  private static final String FILTER_BETWEEN_TIMES = "between_times";
-  private static final String FILTER_FROM_PRICE = "from_price";
-  private static final String FILTER_TO_PRICE = "to_price";
-  private static final String FILTER_KEYWORD = "keyword";
-  private final CarService carService;
+  /**
+   * Largest number of car ids matched or excluded by an id list. Above this the filter is left to
+   * a subquery, to stay well below the bind parameter limit of the database driver.
+   */
+  private static final int MAX_CAR_ID_LIST_SIZE = 1000;
 
   /**
    * Constructor for CarFilterService.
    *
-   * @param orderRepository the order repository
-   * @param carSearchService the car search service
-   * @param carService the car service
+   * @param carRepository the car repository
+   * @param carAvailabilityIndex the index of booked periods per car
+   * @param companyService the company service
+   * @param carKeywordIndex the index of car brand and model names
+   * @param carFleetIndex the snapshot of all cars
+   * @param maxCachedPlans the largest number of filter plans to cache
    */
-  public CarFilterService(OrderRepository orderRepository, CarSearchService carSearchService, 
-      CarService carService, CompanyService companyService) {
-    this.orderRepository = orderRepository;
-    this.carSearchService = carSearchService;
-    this.carService = carService;
+  public CarFilterService(CarRepository carRepository,
+      CarAvailabilityIndex carAvailabilityIndex, CompanyService companyService,
+      CarKeywordIndex carKeywordIndex, CarFleetIndex carFleetIndex,
+      @Value("${car.filter.plan-cache.max-entries:1000}") int maxCachedPlans) {
+    this.carRepository = carRepository;
+    this.carAvailabilityIndex = carAvailabilityIndex;
     this.companyService = companyService;
+    this.carKeywordIndex = carKeywordIndex;
+    this.carFleetIndex = carFleetIndex;
+    this.plansByQueryString = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CarFilterPlan> eldest) {
+        return size() > maxCachedPlans;
+      }
+    };
   }
 
   /**
@@ -62,216 +98,303 @@ public class CarFilterService {
    *
    * @param filters a map of filters to apply
    * @return a list of cars that match the filters
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
    */
   public List<Car> getCarsByFilters(Map<String, String> filters) {
-    return carService.getAllVisibleCars().stream().filter(
-      (Car car) -> fulfillsAllConstraints(filters, car)).toList();
+    CarFilterPlan plan = compile(filters);
+    CarFleetSnapshot snapshot = carFleetIndex.getSnapshot();
+    BitSet positions = selectPositions(snapshot, plan);
+    return findCarsInOrder(snapshot.getIds(positions, DEFAULT_SORT, 0, Integer.MAX_VALUE));
   }
 
   /**
-   * Checks if a car fulfills all the constraints specified in the filters.
+   * Filters the cars based on the provided filters, returning only the requested page.
+   *
+   * <p>If the pageable is not sorted, the cars are sorted by id so pages are stable. An unpaged
+   * pageable returns every matching car in a single page.
    *
    * @param filters a map of filters to apply
-   * @param car the car to check
-   * @return true if the car fulfills all constraints, false otherwise
+   * @param pageable the page to return
+   * @return a page of cars that match the filters
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
    */
-  private boolean fulfillsAllConstraints(Map<String, String> filters, Car car) {
-    boolean fulfillsAllConstraints = true;
-    for (Map.Entry<String, String> entry : filters.entrySet()) {
-      String filter = entry.getKey();
-      String givenParameter = entry.getValue();
-      try {
-        if (!fulfillsConstraint(car, filter, givenParameter)) {
-          fulfillsAllConstraints = false;
-          break;
-        }
-      } catch (NumberFormatException e) {
-        throw new InvalidFilterException(filter, givenParameter, "Invalid number format");
-      } catch (UnknownFilterException e) {
-        throw new InvalidFilterException(filter, givenParameter, "Unknown filter");
-      } catch (DateTimeParseException e) {
-        throw new InvalidFilterException(filter, givenParameter, "Invalid date format");
-      } catch (MissingFilterParameterException e) {
-        throw new InvalidFilterException(filter, givenParameter, "Missing filter parameter");
-      }
+  public Page<Car> getCarsByFilters(Map<String, String> filters, Pageable pageable) {
+    CarFilterPlan plan = compile(filters);
+    CarFleetSnapshot snapshot = carFleetIndex.getSnapshot();
+    BitSet positions = selectPositions(snapshot, plan);
+    Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : DEFAULT_SORT;
 
+    if (pageable.isUnpaged()) {
+      return new PageImpl<>(
+          findCarsInOrder(snapshot.getIds(positions, sort, 0, Integer.MAX_VALUE)));
     }
-    return fulfillsAllConstraints;
+    long[] ids = snapshot.getIds(positions, sort, pageable.getOffset(), pageable.getPageSize());
+    return new PageImpl<>(findCarsInOrder(ids),
+        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort),
+        positions.cardinality());
   }
 
   /**
-   * Checks if a car fulfills a specific constraint based on the filter and filter parameter.
+   * Filters the cars based on the provided filters, returning only the window of cars after a
+   * position.
+   *
+   * <p>Cars are sorted by the given sort, and then by id so the order is stable.
    *
-   * @param car the car to check
-   * @param filter the filter to apply
-   * @param filterParameter the filter parameter
-   * @return true if the car fulfills the constraint, false otherwise
+   * @param filters a map of filters to apply
+   * @param sort the sort order, or an unsorted sort to sort by id only
+   * @param limit the largest number of cars in the window
+   * @param position the position to continue after
+   * @return a window of cars that match the filters
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
    */
-  private boolean fulfillsConstraint(Car car, String filter, String filterParameter) {
-    return switch (filter) {
-      case FILTER_BRAND -> hasBrand(car, filterParameter);
-      case FILTER_FUEL_TYPE -> hasFuelType(car, filterParameter);
-      case FILTER_SELLER -> hasSeller(car, filterParameter);
-      case FILTER_SEATS -> hasNumberOfSeats(car, filterParameter);
-      case FILTER_FROM_TIME -> isAvailableFromTime(car, filterParameter);
-      case FILTER_BETWEEN_TIMES -> isAvailableBetweenTimes(car, filterParameter);
-      case FILTER_FROM_PRICE -> costsMoreThan(car, filterParameter);
-      case FILTER_TO_PRICE -> costsLessThan(car, filterParameter);
-      case FILTER_KEYWORD -> matchesKeyword(car, filterParameter);
-      default -> throw new UnknownFilterException(filter, filterParameter);
-    };
+  public Window<Car> getCarsByFilters(Map<String, String> filters, Sort sort, int limit,
+      ScrollPosition position) {
+    CarFilterPlan plan = compile(filters);
+    CarFleetSnapshot snapshot = carFleetIndex.getSnapshot();
+    BitSet positions = selectPositions(snapshot, plan);
+
+    // One car more than the limit tells if there is a next window
+    long[] ids = snapshot.getIdsAfter(
+        positions, sort, ((KeysetScrollPosition) position).getKeys(), limit + 1);
+    List<Car> cars = findCarsInOrder(Arrays.copyOf(ids, Math.min(ids.length, limit)));
+    return Window.from(cars, index -> positionOf(cars.get(index), sort), ids.length > limit);
   }
 
   /**
-   * Checks if a car has a specific brand.
+   * Filters the cars based on the provided filters, returning every matching car in batches.
+   *
+   * <p>The filters are checked and the ids of the matching cars are selected right away, while
+   * the batches are only read from the database as the iterator is advanced. Only one batch of
+   * cars is held in memory at a time.
    *
-   * @param car the car to check
-   * @param value the brand value to check against
-   * @return true if the car has the brand, false otherwise
+   * @param filters a map of filters to apply
+   * @param sort the sort order, or an unsorted sort to sort by id only
+   * @param batchSize the largest number of cars in a batch
+   * @return an iterator over batches of cars that match the filters
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
    */
-  private boolean hasBrand(Car car, String value) {
-    boolean result = false;
-    String[] brandNames = value.split(",");
-    for (String brandName : brandNames) {
-      CarBrand brand = car.getModel().getBrand();
-      if (brand.getName().equalsIgnoreCase(brandName)) {
-        result = true;
-        break;
+  public Iterator<List<Car>> getCarBatchesByFilters(Map<String, String> filters, Sort sort,
+      int batchSize) {
+    CarFilterPlan plan = compile(filters);
+    CarFleetSnapshot snapshot = carFleetIndex.getSnapshot();
+    long[] ids = snapshot.getIds(selectPositions(snapshot, plan), sort, 0, Integer.MAX_VALUE);
+    return new Iterator<>() {
+      private int from = 0;
+
+      @Override
+      public boolean hasNext() {
+        return from < ids.length;
       }
-    }
-    return result;
+
+      @Override
+      public List<Car> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int to = Math.min(ids.length, from + batchSize);
+        List<Car> batch = findCarsInOrder(Arrays.copyOfRange(ids, from, to));
+        from = to;
+        return batch;
+      }
+    };
   }
 
   /**
-   * Checks if a car has a specific fuel type.
+   * Loads the cars with the given ids, in the order of the ids. The ids are looked up in chunks,
+   * to stay well below the bind parameter limit of the database driver.
    *
-   * @param car the car to check
-   * @param value the fuel type value to check against
-   * @return true if the car has the fuel type, false otherwise
+   * @param ids the ids of the cars
+   * @return the cars that still exist, in the order of the ids
    */
-  private boolean hasFuelType(Car car, String value) {
-    boolean result = false;
-    String[] fuelTypes = value.split(",");
-    for (String fuelType : fuelTypes) {
-      FuelType carFuelType = car.getFuelType();
-      if (carFuelType.getName().equalsIgnoreCase(fuelType)) {
-        result = true;
-        break;
+  private List<Car> findCarsInOrder(long[] ids) {
+    Map<Long, Car> carsById = new HashMap<>();
+    for (Car car : IdChunks.findAll(Arrays.stream(ids).boxed().toList(),
+        chunk -> carRepository.findAll(CarSpecifications.hasIdIn(chunk), Sort.unsorted()))) {
+      carsById.put(car.getId(), car);
+    }
+
+    List<Car> cars = new ArrayList<>(ids.length);
+    for (long id : ids) {
+      Car car = carsById.get(id);
+      if (car != null) {
+        cars.add(car);
       }
     }
-    return result;
+    return cars;
   }
 
   /**
-   * Checks if a car has a specific seller.
-   *
-   * @param car the car to check
-   * @param value the seller value to check against
-   * @return true if the car has the seller, false otherwise
+   * Returns the keyset position of a car: the values of the sort properties, and then the id.
    */
-  private boolean hasSeller(Car car, String value) {
-    boolean result = false;
-
-    List<String> sellers = Arrays.stream(value.split(",")).toList();
-    sellers = sellers.stream().map(String::toLowerCase).toList();
-
-    List<Company> companies = companyService.getCompanies();
-    for (Company company : companies) {
-      if (sellers.contains(company.getName().toLowerCase())
-          && company.getCars().contains(car)
-      ) {
-        result = true;
-        break;
-      }
+  private static ScrollPosition positionOf(Car car, Sort sort) {
+    Map<String, Object> keys = new LinkedHashMap<>();
+    for (Sort.Order order : sort) {
+      keys.put(order.getProperty(), switch (order.getProperty()) {
+        case "year" -> car.getYear();
+        case "numberOfSeats" -> car.getNumberOfSeats();
+        case "pricePerDay" -> car.getPricePerDay();
+        default -> car.getId();
+      });
     }
-    return result;
+    keys.put("id", car.getId());
+    return ScrollPosition.forward(keys);
   }
 
   /**
-   * Checks if a car has a specific number of seats.
+   * Compiles the given filters into a plan, or returns the cached plan of the same filters.
    *
-   * @param car the car to check
-   * @param value the number of seats value to check against
-   * @return true if the car has the number of seats, false otherwise
+   * <p>Every filter parameter is parsed before any query is run, so invalid filters are reported
+   * without touching the database.
+   *
+   * @param filters a map of filters
+   * @return the plan of the filters
+   * @throws InvalidFilterException if a filter is unknown or has an invalid parameter
    */
-  private boolean hasNumberOfSeats(Car car, String value) {
-    boolean result = false;
-    String[] seats = value.split(",");
-    for (String seat : seats) {
-      int numberOfSeats = car.getNumberOfSeats();
-      if (Integer.parseInt(seat) == numberOfSeats) {
-        result = true;
-        break;
+  CarFilterPlan compile(Map<String, String> filters) {
+    String queryString = CarFilterPlan.toQueryString(filters);
+    synchronized (plansByQueryString) {
+      CarFilterPlan plan = plansByQueryString.get(queryString);
+      if (plan != null) {
+        return plan;
       }
     }
-    return result;
+
+    CarFilterPlan plan = CarFilterPlan.compile(filters);
+    synchronized (plansByQueryString) {
+      plansByQueryString.put(queryString, plan);
+    }
+    return plan;
   }
 
   /**
-   * Checks if a car is available from a specific date.
+   * Builds specifications that together match the visible cars that fulfill all the filters of a
+   * plan.
+   *
+   * <p>A keyword filter matches the cars by id, and its ids are split into chunks of at most
+   * {@link IdChunks#MAX_SIZE} ids, giving one specification per chunk. No car matches more than
+   * one of the specifications, so counts over them can be added up.
    *
-   * @param car the car to check
-   * @param value the date value to check against
-   * @return true if the car is available from the date, false otherwise
+   * @param plan the plan of the filters
+   * @return the specifications matching the filters, none if no car can match
    */
-  private boolean isAvailableFromTime(Car car, String value) {
-    LocalDate fromDate = LocalDate.parse(value, formatter);
-    return orderRepository.isAvailableFrom(car.getId(), fromDate);
+  List<Specification<Car>> toSpecifications(CarFilterPlan plan) {
+    List<Specification<Car>> specifications = new ArrayList<>();
+    specifications.add(CarSpecifications.isVisible(true));
+
+    if (plan.getBrands() != null) {
+      specifications.add(CarSpecifications.hasBrandIn(plan.getBrands()));
+    }
+    if (plan.getFuelTypes() != null) {
+      specifications.add(CarSpecifications.hasFuelTypeIn(plan.getFuelTypes()));
+    }
+    if (plan.getSellers() != null) {
+      specifications.add(hasSeller(plan.getSellers()));
+    }
+    if (plan.getSeats() != null) {
+      specifications.add(CarSpecifications.hasNumberOfSeatsIn(plan.getSeats()));
+    }
+    if (plan.getMinPrice() != null) {
+      specifications.add(CarSpecifications.costsAtLeast(plan.getMinPrice()));
+    }
+    if (plan.getMaxPrice() != null) {
+      specifications.add(CarSpecifications.costsAtMost(plan.getMaxPrice()));
+    }
+    if (plan.getAvailableFrom() != null) {
+      specifications.add(availableFromTime(plan.getAvailableFrom()));
+    }
+    if (plan.getAvailableBetweenStart() != null) {
+      specifications.add(availableBetweenTimes(
+          plan.getAvailableBetweenStart(), plan.getAvailableBetweenEnd()));
+    }
+    Specification<Car> specification = Specification.allOf(specifications);
+    if (plan.getKeyword() == null) {
+      return List.of(specification);
+    }
+    return IdChunks.split(carKeywordIndex.getCarIdsMatching(plan.getKeyword())).stream()
+        .map(chunk -> specification.and(CarSpecifications.hasIdIn(chunk)))
+        .toList();
   }
 
   /**
-   * Checks if a car is available between two dates.
+   * Finds the positions in a snapshot of the visible cars that fulfill all the filters of a plan.
    *
-   * @param car the car to check
-   * @param value the date range value to check against
-   * @return true if the car is available between the dates, false otherwise
+   * @param snapshot the snapshot of all cars
+   * @param plan the plan of the filters
+   * @return the positions of the matching cars
    */
-  private boolean isAvailableBetweenTimes(Car car, String value) {
-    try {
-      String[] dates = value.split(",");
-      LocalDate startDate = LocalDate.parse(dates[0], formatter);
-      LocalDate endDate = LocalDate.parse(dates[1], formatter);
+  private BitSet selectPositions(CarFleetSnapshot snapshot, CarFilterPlan plan) {
+    BitSet positions = snapshot.visiblePositions();
 
-      boolean isAvailable = orderRepository.isAvailableBetween(car.getId(), startDate, endDate);
-      return isAvailable;
-    } catch (ArrayIndexOutOfBoundsException e) {
-      // Missing one of the dates
-      throw new MissingFilterParameterException(FILTER_BETWEEN_TIMES, value);
+    if (plan.getBrands() != null) {
+      snapshot.retainBrands(positions, plan.getBrands());
+    }
+    if (plan.getFuelTypes() != null) {
+      snapshot.retainFuelTypes(positions, plan.getFuelTypes());
+    }
+    if (plan.getSeats() != null) {
+      snapshot.retainSeats(positions, plan.getSeats());
+    }
+    if (plan.getMinPrice() != null || plan.getMaxPrice() != null) {
+      snapshot.retainPriceBetween(positions,
+          plan.getMinPrice() != null ? plan.getMinPrice() : Double.NEGATIVE_INFINITY,
+          plan.getMaxPrice() != null ? plan.getMaxPrice() : Double.POSITIVE_INFINITY);
+    }
+    // The filters looked up in the other indexes are applied last, and only if any car is left
+    if (plan.getSellers() != null && !positions.isEmpty()) {
+      snapshot.retainIds(positions, companyService.getCarIdsOwnedByCompaniesNamed(
+          plan.getSellers()));
+    }
+    if (plan.getAvailableFrom() != null && !positions.isEmpty()) {
+      snapshot.removeIds(positions,
+          carAvailabilityIndex.getCarIdsBookedOn(plan.getAvailableFrom()));
     }
+    if (plan.getAvailableBetweenStart() != null && !positions.isEmpty()) {
+      snapshot.removeIds(positions, carAvailabilityIndex.getCarIdsBookedBetween(
+          plan.getAvailableBetweenStart(), plan.getAvailableBetweenEnd()));
+    }
+    if (plan.getKeyword() != null && !positions.isEmpty()) {
+      snapshot.retainIds(positions, carKeywordIndex.getCarIdsMatching(plan.getKeyword()));
+    }
+    return positions;
   }
 
   /**
-   * Checks if a car costs more than a specific value.
+   * Builds the specification for cars owned by one of the given sellers.
    *
-   * @param car the car to check
-   * @param value the price value to check against
-   * @return true if the car costs more than the value, false otherwise
+   * @param sellers the lower case seller names
+   * @return a specification matching cars owned by the sellers
    */
-  private boolean costsMoreThan(Car car, String value) {
-    return car.getPricePerDay() >= Double.parseDouble(value);
+  private Specification<Car> hasSeller(Set<String> sellers) {
+    Set<Long> ownedCarIds = companyService.getCarIdsOwnedByCompaniesNamed(sellers);
+    return ownedCarIds.size() <= MAX_CAR_ID_LIST_SIZE
+        ? CarSpecifications.hasIdIn(ownedCarIds)
+        : CarSpecifications.hasSellerIn(sellers);
   }
 
   /**
-   * Checks if a car costs less than a specific value.
+   * Builds the specification for cars available from a date.
    *
-   * @param car the car to check
-   * @param value the price value to check against
-   * @return true if the car costs less than the value, false otherwise
+   * @param fromDate the date
+   * @return a specification matching cars available from the date
    */
-  private boolean costsLessThan(Car car, String value) {
-    return car.getPricePerDay() <= Double.parseDouble(value);
+  private Specification<Car> availableFromTime(LocalDate fromDate) {
+    Set<Long> bookedCarIds = carAvailabilityIndex.getCarIdsBookedOn(fromDate);
+    return bookedCarIds.size() <= MAX_CAR_ID_LIST_SIZE
+        ? CarSpecifications.hasIdNotIn(bookedCarIds)
+        : CarSpecifications.isAvailableFrom(fromDate);
   }
 
-    /**
-     * Checks if a car matches a specific keyword.
-     *
-     * @param car the car to check
-     * @param keyword the keyword to check against
-     * @return true if the car matches the keyword, false otherwise
-     */
-  private boolean matchesKeyword(Car car, String keyword) {
-    List<Car> matchingCars = carSearchService.getCarsByKeyword(keyword);
-    return matchingCars.contains(car);
+  /**
+   * Builds the specification for cars available between two dates.
+   *
+   * @param startDate the first date
+   * @param endDate the last date
+   * @return a specification matching cars available between the dates
+   */
+  private Specification<Car> availableBetweenTimes(LocalDate startDate, LocalDate endDate) {
+    Set<Long> bookedCarIds = carAvailabilityIndex.getCarIdsBookedBetween(startDate, endDate);
+    return bookedCarIds.size() <= MAX_CAR_ID_LIST_SIZE
+        ? CarSpecifications.hasIdNotIn(bookedCarIds)
+        : CarSpecifications.isAvailableBetween(startDate, endDate);
   }
 }
-
@@ -0,0 +1,95 @@
+package no.ntnu.stud.idata2306project.service;
+
+import no.ntnu.stud.idata2306project.repository.CarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds the current {@link CarFleetSnapshot} of all cars.
+ *
+ * <p>Readers take the current snapshot and filter it without locking, as snapshots never change.
+ * Changes replace the snapshot with a copy holding the change, so a reader always sees either the
+ * fleet before or after a change, never half of it. The snapshot is loaded from the
+ * {@link CarRepository} on first use, and is kept up to date by {@link CarService} when cars are
+ * saved, hidden or deleted, reading only the changed car. It is reloaded when more than half of
+ * its positions belong to deleted cars. Cars written directly to the repository are only picked up
+ * by {@link #rebuild()}.
+ */
+@Service
+public class CarFleetIndex {
+
+  private final CarRepository carRepository;
+  private final Logger logger = LoggerFactory.getLogger(CarFleetIndex.class);
+
+  private volatile CarFleetSnapshot snapshot = null;
+
+  /**
+   * Creates an instance of CarFleetIndex.
+   *
+   * @param carRepository the car repository
+   */
+  public CarFleetIndex(CarRepository carRepository) {
+    this.carRepository = carRepository;
+  }
+
+  /**
+   * Returns the current snapshot of all cars.
+   *
+   * @return the current snapshot of all cars
+   */
+  public CarFleetSnapshot getSnapshot() {
+    CarFleetSnapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          rebuild();
+        }
+        current = snapshot;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Replace the values of a car with the ones currently stored for it.
+   *
+   * @param carId the id of the car that was saved
+   */
+  public synchronized void refreshCar(long carId) {
+    CarFleetSnapshot current = getSnapshot();
+    carRepository.findColumnsById(carId).ifPresentOrElse(
+        car -> {
+          CarFleetSnapshot changed = current.withCar(car);
+          if (changed == null) {
+            // The car is out of order of id, so it can only be added by a full reload
+            rebuild();
+          } else {
+            snapshot = changed;
+          }
+        },
+        () -> removeCar(carId));
+  }
+
+  /**
+   * Remove a deleted car.
+   *
+   * @param carId the id of the car that was deleted
+   */
+  public synchronized void removeCar(long carId) {
+    CarFleetSnapshot changed = getSnapshot().withoutCar(carId);
+    if (changed.getRemoved() * 2 > changed.size()) {
+      rebuild();
+    } else {
+      snapshot = changed;
+    }
+  }
+
+  /**
+   * Reload the whole snapshot from the database.
+   */
+  public synchronized void rebuild() {
+    snapshot = CarFleetSnapshot.of(carRepository.findAllColumns());
+    logger.info("Fleet snapshot built with {} cars", snapshot.size());
+  }
+}
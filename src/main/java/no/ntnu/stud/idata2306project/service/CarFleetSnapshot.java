@@ -0,0 +1,468 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import no.ntnu.stud.idata2306project.repository.CarColumns;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Immutable column-wise copy of the values every car is filtered and sorted by.
+ *
+ * <p>Every car has a position, and the cars are kept in order of id so the position of a car is
+ * found by binary search. Each value is stored in an array indexed by position, and the brands,
+ * fuel types and numbers of seats also have a posting list: a {@link BitSet} of the positions of
+ * the cars with that value. Brands and fuel types are filtered by name, so their posting lists
+ * are kept per lower case name. A filter is then evaluated as an intersection of bit sets, or a
+ * scan over a primitive array, without touching the cars themselves.
+ *
+ * <p>Hidden and deleted cars keep their position, but are left out of the visible cars every
+ * filter starts from. A snapshot is never changed after it is created; changing a car creates a
+ * new snapshot sharing the columns and posting lists that did not change.
+ */
+public final class CarFleetSnapshot {
+
+  private final long[] ids;
+  private final int[] years;
+  private final int[] seats;
+  private final int[] prices;
+  private final String[] brandNames;
+  private final String[] fuelTypeNames;
+  private final BitSet visible;
+  private final Map<String, BitSet> positionsByBrandName;
+  private final Map<String, BitSet> positionsByFuelTypeName;
+  private final Map<Integer, BitSet> positionsBySeats;
+  private final int removed;
+
+  private CarFleetSnapshot(long[] ids, int[] years, int[] seats, int[] prices,
+      String[] brandNames, String[] fuelTypeNames, BitSet visible,
+      Map<String, BitSet> positionsByBrandName, Map<String, BitSet> positionsByFuelTypeName,
+      Map<Integer, BitSet> positionsBySeats, int removed) {
+    this.ids = ids;
+    this.years = years;
+    this.seats = seats;
+    this.prices = prices;
+    this.brandNames = brandNames;
+    this.fuelTypeNames = fuelTypeNames;
+    this.visible = visible;
+    this.positionsByBrandName = positionsByBrandName;
+    this.positionsByFuelTypeName = positionsByFuelTypeName;
+    this.positionsBySeats = positionsBySeats;
+    this.removed = removed;
+  }
+
+  /**
+   * Create a snapshot of the given cars.
+   *
+   * @param cars the values of the cars, ordered by id
+   * @return the snapshot of the cars
+   */
+  public static CarFleetSnapshot of(List<CarColumns> cars) {
+    int size = cars.size();
+    long[] ids = new long[size];
+    int[] years = new int[size];
+    int[] seats = new int[size];
+    int[] prices = new int[size];
+    String[] brandNames = new String[size];
+    String[] fuelTypeNames = new String[size];
+    BitSet visible = new BitSet(size);
+    Map<String, BitSet> positionsByBrandName = new HashMap<>();
+    Map<String, BitSet> positionsByFuelTypeName = new HashMap<>();
+    Map<Integer, BitSet> positionsBySeats = new HashMap<>();
+
+    for (int position = 0; position < size; position++) {
+      CarColumns car = cars.get(position);
+      if (position > 0 && car.getCarId() <= ids[position - 1]) {
+        throw new IllegalArgumentException("Cars must be ordered by id");
+      }
+      ids[position] = car.getCarId();
+      years[position] = car.getYear();
+      seats[position] = car.getNumberOfSeats();
+      prices[position] = car.getPricePerDay();
+      brandNames[position] = normalize(car.getBrandName());
+      fuelTypeNames[position] = normalize(car.getFuelTypeName());
+      visible.set(position, car.getVisible());
+      positionsByBrandName.computeIfAbsent(brandNames[position], name -> new BitSet())
+          .set(position);
+      positionsByFuelTypeName.computeIfAbsent(fuelTypeNames[position], name -> new BitSet())
+          .set(position);
+      positionsBySeats.computeIfAbsent(seats[position], value -> new BitSet()).set(position);
+    }
+    return new CarFleetSnapshot(ids, years, seats, prices, brandNames, fuelTypeNames, visible,
+        positionsByBrandName, positionsByFuelTypeName, positionsBySeats, 0);
+  }
+
+  /**
+   * Create a snapshot with the values of a car replaced, or added if the car is new.
+   *
+   * <p>Only cars with a higher id than every car in the snapshot can be added, as they are the
+   * only ones that keep the cars in order of id.
+   *
+   * @param car the current values of the car
+   * @return the new snapshot, or null if the car can not be added to this snapshot
+   */
+  public CarFleetSnapshot withCar(CarColumns car) {
+    int position = Arrays.binarySearch(ids, car.getCarId());
+    boolean added = position < 0;
+    if (added) {
+      if (ids.length > 0 && car.getCarId() < ids[ids.length - 1]) {
+        return null;
+      }
+      position = ids.length;
+    }
+    int size = added ? ids.length + 1 : ids.length;
+
+    long[] newIds = Arrays.copyOf(ids, size);
+    int[] newYears = Arrays.copyOf(years, size);
+    int[] newSeats = Arrays.copyOf(seats, size);
+    int[] newPrices = Arrays.copyOf(prices, size);
+    String[] newBrandNames = Arrays.copyOf(brandNames, size);
+    String[] newFuelTypeNames = Arrays.copyOf(fuelTypeNames, size);
+    BitSet newVisible = (BitSet) visible.clone();
+
+    newIds[position] = car.getCarId();
+    newYears[position] = car.getYear();
+    newSeats[position] = car.getNumberOfSeats();
+    newPrices[position] = car.getPricePerDay();
+    newBrandNames[position] = normalize(car.getBrandName());
+    newFuelTypeNames[position] = normalize(car.getFuelTypeName());
+    newVisible.set(position, car.getVisible());
+
+    return new CarFleetSnapshot(newIds, newYears, newSeats, newPrices, newBrandNames,
+        newFuelTypeNames, newVisible,
+        move(positionsByBrandName, position, added ? null : brandNames[position],
+            newBrandNames[position]),
+        move(positionsByFuelTypeName, position, added ? null : fuelTypeNames[position],
+            newFuelTypeNames[position]),
+        move(positionsBySeats, position, added ? null : seats[position], newSeats[position]),
+        removed);
+  }
+
+  /**
+   * Create a snapshot without a car. The car keeps its position, but no longer matches any
+   * filter.
+   *
+   * @param carId the id of the car to remove
+   * @return the new snapshot, or this snapshot if it does not have the car
+   */
+  public CarFleetSnapshot withoutCar(long carId) {
+    int position = Arrays.binarySearch(ids, carId);
+    if (position < 0) {
+      return this;
+    }
+    BitSet newVisible = (BitSet) visible.clone();
+    newVisible.clear(position);
+    return new CarFleetSnapshot(ids, years, seats, prices, brandNames, fuelTypeNames,
+        newVisible, positionsByBrandName, positionsByFuelTypeName, positionsBySeats, removed + 1);
+  }
+
+  /**
+   * Returns the number of positions, including those of hidden and removed cars.
+   *
+   * @return the number of positions
+   */
+  public int size() {
+    return ids.length;
+  }
+
+  /**
+   * Returns the number of positions of removed cars.
+   *
+   * @return the number of positions of removed cars
+   */
+  public int getRemoved() {
+    return removed;
+  }
+
+  /**
+   * Returns the positions of all visible cars, as a new bit set for the filters to narrow down.
+   *
+   * @return the positions of all visible cars
+   */
+  public BitSet visiblePositions() {
+    return (BitSet) visible.clone();
+  }
+
+  /**
+   * Keep only the cars whose brand has one of the given names, ignoring case.
+   *
+   * @param positions the positions to narrow down
+   * @param names the names of the brands
+   */
+  public void retainBrands(BitSet positions, Collection<String> names) {
+    positions.and(union(positionsByBrandName, names.stream()
+        .map(CarFleetSnapshot::normalize).toList()));
+  }
+
+  /**
+   * Keep only the cars whose fuel type has one of the given names, ignoring case.
+   *
+   * @param positions the positions to narrow down
+   * @param names the names of the fuel types
+   */
+  public void retainFuelTypes(BitSet positions, Collection<String> names) {
+    positions.and(union(positionsByFuelTypeName, names.stream()
+        .map(CarFleetSnapshot::normalize).toList()));
+  }
+
+  /**
+   * Keep only the cars with one of the given numbers of seats.
+   *
+   * @param positions the positions to narrow down
+   * @param numbersOfSeats the numbers of seats
+   */
+  public void retainSeats(BitSet positions, Collection<Integer> numbersOfSeats) {
+    positions.and(union(positionsBySeats, numbersOfSeats));
+  }
+
+  /**
+   * Keep only the cars costing between two prices per day, inclusive.
+   *
+   * @param positions the positions to narrow down
+   * @param minPrice the lowest price
+   * @param maxPrice the highest price
+   */
+  public void retainPriceBetween(BitSet positions, double minPrice, double maxPrice) {
+    for (int position = positions.nextSetBit(0); position >= 0;
+        position = positions.nextSetBit(position + 1)) {
+      if (prices[position] < minPrice || prices[position] > maxPrice) {
+        positions.clear(position);
+      }
+    }
+  }
+
+  /**
+   * Keep only the cars with one of the given ids.
+   *
+   * @param positions the positions to narrow down
+   * @param carIds the ids of the cars to keep
+   */
+  public void retainIds(BitSet positions, Collection<Long> carIds) {
+    BitSet matching = new BitSet(ids.length);
+    for (Long carId : carIds) {
+      int position = Arrays.binarySearch(ids, carId);
+      if (position >= 0) {
+        matching.set(position);
+      }
+    }
+    positions.and(matching);
+  }
+
+  /**
+   * Remove the cars with one of the given ids.
+   *
+   * @param positions the positions to narrow down
+   * @param carIds the ids of the cars to remove
+   */
+  public void removeIds(BitSet positions, Collection<Long> carIds) {
+    for (Long carId : carIds) {
+      int position = Arrays.binarySearch(ids, carId);
+      if (position >= 0) {
+        positions.clear(position);
+      }
+    }
+  }
+
+  /**
+   * Get the ids of a range of the cars at the given positions, in the given order.
+   *
+   * <p>Cars are sorted by the given sort, and then by id. Sorting by id alone needs no sorting at
+   * all, as the positions are already in order of id.
+   *
+   * @param positions the positions of the cars
+   * @param sort the sort order, by {@code id}, {@code year}, {@code numberOfSeats} or
+   *     {@code pricePerDay}
+   * @param offset the number of cars to skip
+   * @param limit the largest number of ids to return
+   * @return the ids of the cars in the range
+   * @throws IllegalArgumentException if the sort has another property
+   */
+  public long[] getIds(BitSet positions, Sort sort, long offset, int limit) {
+    int count = (int) Math.max(0, Math.min(limit, positions.cardinality() - offset));
+    long[] result = new long[count];
+    if (count == 0) {
+      return result;
+    }
+
+    if (isSortedById(sort)) {
+      boolean ascending = sort.isUnsorted() || sort.iterator().next().isAscending();
+      int position = ascending ? positions.nextSetBit(0) : positions.previousSetBit(ids.length);
+      for (long skipped = 0; skipped < offset; skipped++) {
+        position = ascending
+            ? positions.nextSetBit(position + 1)
+            : positions.previousSetBit(position - 1);
+      }
+      for (int i = 0; i < count; i++) {
+        result[i] = ids[position];
+        position = ascending
+            ? positions.nextSetBit(position + 1)
+            : positions.previousSetBit(position - 1);
+      }
+      return result;
+    }
+
+    IntBinaryOperator comparator = comparator(sort);
+    Integer[] sorted = positions.stream().boxed().toArray(Integer[]::new);
+    Arrays.sort(sorted, (first, second) -> comparator.applyAsInt(first, second));
+    for (int i = 0; i < count; i++) {
+      result[i] = ids[sorted[(int) offset + i]];
+    }
+    return result;
+  }
+
+  /**
+   * Get the ids of the first cars at the given positions that come after a keyset position, in
+   * the given order.
+   *
+   * <p>The keys hold the values of the sort properties and the id of the car to continue after,
+   * as in a cursor. That car does not need to be in the snapshot anymore, the cars are compared
+   * against the values of the keys.
+   *
+   * @param positions the positions of the cars
+   * @param sort the sort order, as for {@link #getIds(BitSet, Sort, long, int)}
+   * @param keys the values of the car to continue after, or no values to start at the first car
+   * @param limit the largest number of ids to return
+   * @return the ids of the cars after the keys
+   * @throws IllegalArgumentException if the sort has another property
+   */
+  public long[] getIdsAfter(BitSet positions, Sort sort, Map<String, ?> keys, int limit) {
+    if (keys.isEmpty()) {
+      return getIds(positions, sort, 0, limit);
+    }
+    BitSet after = (BitSet) positions.clone();
+    long afterId = ((Number) keys.get("id")).longValue();
+
+    if (isSortedById(sort)) {
+      int position = Arrays.binarySearch(ids, afterId);
+      if (sort.isUnsorted() || sort.iterator().next().isAscending()) {
+        after.clear(0, position >= 0 ? position + 1 : -position - 1);
+      } else {
+        after.clear(position >= 0 ? position : -position - 1, ids.length);
+      }
+      return getIds(after, sort, 0, limit);
+    }
+
+    for (int position = after.nextSetBit(0); position >= 0;
+        position = after.nextSetBit(position + 1)) {
+      if (compareToKeys(position, sort, keys, afterId) <= 0) {
+        after.clear(position);
+      }
+    }
+    return getIds(after, sort, 0, limit);
+  }
+
+  /**
+   * Compares the car at a position to the values of a keyset position, following the sort and
+   * then the id.
+   */
+  private int compareToKeys(int position, Sort sort, Map<String, ?> keys, long afterId) {
+    for (Sort.Order order : sort) {
+      int[] column = column(order.getProperty());
+      int result = column == null
+          ? Long.compare(ids[position], afterId)
+          : Integer.compare(column[position],
+              ((Number) keys.get(order.getProperty())).intValue());
+      if (result != 0) {
+        return order.isAscending() ? result : -result;
+      }
+    }
+    return Long.compare(ids[position], afterId);
+  }
+
+  private static boolean isSortedById(Sort sort) {
+    if (sort.isUnsorted()) {
+      return true;
+    }
+    Sort.Order first = sort.iterator().next();
+    return first.getProperty().equals("id");
+  }
+
+  /**
+   * Builds a comparator of positions following the sort, falling back to the order of id.
+   */
+  private IntBinaryOperator comparator(Sort sort) {
+    IntBinaryOperator comparator = (first, second) -> 0;
+    for (Sort.Order order : sort) {
+      IntBinaryOperator previous = comparator;
+      int[] column = column(order.getProperty());
+      int direction = order.isAscending() ? 1 : -1;
+      comparator = column == null
+          ? (first, second) -> {
+            int result = previous.applyAsInt(first, second);
+            return result != 0 ? result : direction * Integer.compare(first, second);
+          }
+          : (first, second) -> {
+            int result = previous.applyAsInt(first, second);
+            return result != 0
+                ? result
+                : direction * Integer.compare(column[first], column[second]);
+          };
+    }
+    IntBinaryOperator sorted = comparator;
+    return (first, second) -> {
+      int result = sorted.applyAsInt(first, second);
+      return result != 0 ? result : Integer.compare(first, second);
+    };
+  }
+
+  /**
+   * Returns the column of a sort property, or null for the id, which follows the positions.
+   */
+  private int[] column(String property) {
+    return switch (property) {
+      case "id" -> null;
+      case "year" -> years;
+      case "numberOfSeats" -> seats;
+      case "pricePerDay" -> prices;
+      default -> throw new IllegalArgumentException("Cars can not be sorted by " + property);
+    };
+  }
+
+  /**
+   * Returns the union of the posting lists of the given values.
+   */
+  private static <K> BitSet union(Map<K, BitSet> postingLists, Collection<K> values) {
+    BitSet union = new BitSet();
+    for (K value : values) {
+      BitSet positions = postingLists.get(value);
+      if (positions != null) {
+        union.or(positions);
+      }
+    }
+    return union;
+  }
+
+  /**
+   * Returns posting lists with a position moved from one value to another. Only the posting
+   * lists of the two values are copied.
+   */
+  private static <K> Map<K, BitSet> move(Map<K, BitSet> postingLists, int position, K from,
+      K to) {
+    if (to.equals(from)) {
+      return postingLists;
+    }
+    Map<K, BitSet> moved = new HashMap<>(postingLists);
+    if (from != null) {
+      BitSet fromPositions = (BitSet) moved.get(from).clone();
+      fromPositions.clear(position);
+      if (fromPositions.isEmpty()) {
+        moved.remove(from);
+      } else {
+        moved.put(from, fromPositions);
+      }
+    }
+    BitSet toPositions = moved.containsKey(to) ? (BitSet) moved.get(to).clone() : new BitSet();
+    toPositions.set(position);
+    moved.put(to, toPositions);
+    return moved;
+  }
+
+  private static String normalize(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
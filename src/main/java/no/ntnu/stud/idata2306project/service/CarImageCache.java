@@ -0,0 +1,234 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import no.ntnu.stud.idata2306project.enums.ImageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory cache of car images, keyed on car id, image type and image width.
+ *
+ * <p>The cache is bounded by the total size of the cached images rather than by their number.
+ * When adding an image would exceed the budget, the least recently used images are evicted until
+ * it fits. Images larger than the whole budget are never cached. That an image does not exist is
+ * cached as well, so cars without images do not reach the database on every listing.
+ *
+ * <p>The budget is set by {@code image.cache.max-bytes}. Images mapped from the
+ * {@link ImageStore} count against the budget like any other, although their bytes live in the
+ * page cache of the operating system rather than on the heap.
+ *
+ * <p>The cache is not told about images written directly to the repository, and must be cleared
+ * with {@link #clear()} when that happens.
+ */
+@Service
+public class CarImageCache {
+
+  /**
+   * Size counted for a cached missing image, so that they are also bounded by the budget.
+   */
+  private static final long MISSING_IMAGE_SIZE = 64;
+
+  private final long maxBytes;
+  private final Logger logger = LoggerFactory.getLogger(CarImageCache.class);
+
+  private final LinkedHashMap<Key, Optional<CarImageContent>> images =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long usedBytes = 0;
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+  /**
+   * Counts the calls to {@link #clear()}, so that an image loaded before a clear is not cached.
+   */
+  private long generation = 0;
+
+  /**
+   * Creates an instance of CarImageCache.
+   *
+   * @param maxBytes the largest total size of the cached images, in bytes
+   */
+  public CarImageCache(@Value("${image.cache.max-bytes:67108864}") long maxBytes) {
+    this.maxBytes = maxBytes;
+    logger.info("Image cache created with a budget of {} bytes", maxBytes);
+  }
+
+  /**
+   * Get a car image from the cache, loading it if it is not cached.
+   *
+   * <p>The loader is called without holding the cache lock, so two requests missing the same
+   * image at the same time may both load it. If the cache is cleared while the image is loaded,
+   * the loaded image is returned but not cached, as it may be older than the clear.
+   *
+   * @param carId the id of the car
+   * @param imageType the type of the image
+   * @param imageWidth the width of the image
+   * @param loader loads the image from storage, returning null if it does not exist
+   * @return the image content, or an empty Optional if the image does not exist
+   */
+  public Optional<CarImageContent> get(long carId, ImageType imageType, long imageWidth,
+      Supplier<CarImageContent> loader) {
+    Key key = new Key(carId, imageType, imageWidth);
+    long loadGeneration;
+    synchronized (this) {
+      Optional<CarImageContent> cached = images.get(key);
+      if (cached != null) {
+        hits++;
+        return cached;
+      }
+      misses++;
+      loadGeneration = generation;
+    }
+
+    Optional<CarImageContent> loaded = Optional.ofNullable(loader.get());
+    put(key, loaded, loadGeneration);
+    return loaded;
+  }
+
+  /**
+   * Remove every image from the cache.
+   */
+  public synchronized void clear() {
+    images.clear();
+    usedBytes = 0;
+    generation++;
+  }
+
+  /**
+   * Returns the current size and the hit, miss and eviction counts of the cache.
+   *
+   * @return the statistics of the cache
+   */
+  public synchronized Statistics getStatistics() {
+    return new Statistics(images.size(), usedBytes, maxBytes, hits, misses, evictions);
+  }
+
+  private synchronized void put(Key key, Optional<CarImageContent> image, long loadGeneration) {
+    long size = sizeOf(image);
+    if (size > maxBytes || loadGeneration != generation) {
+      return;
+    }
+    Optional<CarImageContent> previous = images.put(key, image);
+    if (previous != null) {
+      usedBytes -= sizeOf(previous);
+    }
+    usedBytes += size;
+
+    Iterator<Map.Entry<Key, Optional<CarImageContent>>> leastRecentlyUsed =
+        images.entrySet().iterator();
+    while (usedBytes > maxBytes && leastRecentlyUsed.hasNext()) {
+      Map.Entry<Key, Optional<CarImageContent>> entry = leastRecentlyUsed.next();
+      if (!entry.getKey().equals(key)) {
+        usedBytes -= sizeOf(entry.getValue());
+        leastRecentlyUsed.remove();
+        evictions++;
+      }
+    }
+  }
+
+  private static long sizeOf(Optional<CarImageContent> image) {
+    return image.map(content -> (long) content.getSize()).orElse(MISSING_IMAGE_SIZE);
+  }
+
+  /**
+   * Identifies a cached image.
+   */
+  private static final class Key {
+    private final long carId;
+    private final ImageType imageType;
+    private final long imageWidth;
+
+    private Key(long carId, ImageType imageType, long imageWidth) {
+      this.carId = carId;
+      this.imageType = imageType;
+      this.imageWidth = imageWidth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key other)) {
+        return false;
+      }
+      return carId == other.carId && imageWidth == other.imageWidth
+          && imageType == other.imageType;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(carId, imageType, imageWidth);
+    }
+  }
+
+  /**
+   * Snapshot of the size and usage of the cache.
+   */
+  public static final class Statistics {
+    private final int entries;
+    private final long usedBytes;
+    private final long maxBytes;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    private Statistics(int entries, long usedBytes, long maxBytes, long hits, long misses,
+        long evictions) {
+      this.entries = entries;
+      this.usedBytes = usedBytes;
+      this.maxBytes = maxBytes;
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+    }
+
+    /**
+     * Returns the number of cached images, including cached missing images.
+     */
+    public int getEntries() {
+      return entries;
+    }
+
+    /**
+     * Returns the total size of the cached images, in bytes.
+     */
+    public long getUsedBytes() {
+      return usedBytes;
+    }
+
+    /**
+     * Returns the largest total size of the cached images, in bytes.
+     */
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /**
+     * Returns the number of requests that had to load the image.
+     */
+    public long getMisses() {
+      return misses;
+    }
+
+    /**
+     * Returns the number of images evicted to stay within the budget.
+     */
+    public long getEvictions() {
+      return evictions;
+    }
+  }
+}
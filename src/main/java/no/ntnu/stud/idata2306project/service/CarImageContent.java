@@ -0,0 +1,186 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import no.ntnu.stud.idata2306project.enums.ImageType;
+import no.ntnu.stud.idata2306project.model.image.CarImage;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * The encoded bytes of a car image, together with what is needed to serve them over HTTP.
+ *
+ * <p>Instances are immutable and detached from the database, so they can be shared between
+ * requests. The bytes are kept either in a byte array, or in a buffer outside the heap which may be
+ * mapped from the {@link ImageStore}.
+ */
+public final class CarImageContent {
+
+  private final ImageType imageType;
+  private final Instant lastModified;
+  private final String entityTag;
+  private final byte[] heapBytes;
+  private final ByteBuffer offHeapBytes;
+
+  private CarImageContent(ImageType imageType, Instant lastModified, String entityTag,
+      byte[] heapBytes, ByteBuffer offHeapBytes) {
+    this.imageType = imageType;
+    this.lastModified = lastModified;
+    this.entityTag = entityTag;
+    this.heapBytes = heapBytes;
+    this.offHeapBytes = offHeapBytes;
+  }
+
+  /**
+   * Creates the content of a stored car image.
+   *
+   * @param carImage the stored car image
+   * @param offHeap true to copy the bytes to a direct buffer outside the heap
+   * @return the content of the car image
+   */
+  public static CarImageContent of(CarImage carImage, boolean offHeap) {
+    byte[] bytes = carImage.getImage();
+    String entityTag = entityTag(bytes);
+    if (!offHeap) {
+      return new CarImageContent(carImage.getImageType(), carImage.getLastModified(), entityTag,
+          bytes, null);
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    return new CarImageContent(carImage.getImageType(), carImage.getLastModified(), entityTag,
+        null, buffer.asReadOnlyBuffer());
+  }
+
+  /**
+   * Creates the content of an image read from the {@link ImageStore}.
+   *
+   * @param carImage the metadata of the car image
+   * @param bytes the bytes of the image, as read from the image store
+   * @return the content of the car image
+   */
+  public static CarImageContent of(CarImage carImage, ByteBuffer bytes) {
+    return new CarImageContent(carImage.getImageType(), carImage.getLastModified(),
+        "\"" + carImage.getContentHash() + "\"", null, bytes.asReadOnlyBuffer());
+  }
+
+  /**
+   * Returns the type of the image.
+   */
+  public ImageType getImageType() {
+    return imageType;
+  }
+
+  /**
+   * Returns when the image was last changed, or null if it is not known.
+   */
+  public Instant getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Returns the quoted strong entity tag of the image, made from its SHA-256 digest.
+   */
+  public String getEntityTag() {
+    return entityTag;
+  }
+
+  /**
+   * Returns the size of the image in bytes.
+   */
+  public int getSize() {
+    return heapBytes != null ? heapBytes.length : offHeapBytes.capacity();
+  }
+
+  /**
+   * Returns the bytes of the image. For off-heap content this is a copy.
+   */
+  public byte[] getBytes() {
+    if (heapBytes != null) {
+      return heapBytes;
+    }
+    byte[] bytes = new byte[offHeapBytes.capacity()];
+    offHeapBytes.duplicate().get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Returns the image as a resource that can be written to a response, also in ranges, without
+   * copying off-heap bytes to the heap first.
+   */
+  public Resource asResource() {
+    return heapBytes != null
+        ? new ByteArrayResource(heapBytes)
+        : new ByteBufferResource(offHeapBytes);
+  }
+
+  private static String entityTag(byte[] image) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(image);
+      return "\"" + HexFormat.of().formatHex(digest) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Resource reading from a read-only buffer. Every stream reads its own view of the buffer.
+   */
+  private static final class ByteBufferResource extends AbstractResource {
+    private final ByteBuffer buffer;
+
+    private ByteBufferResource(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public String getDescription() {
+      return "Car image buffer";
+    }
+
+    @Override
+    public long contentLength() {
+      return buffer.capacity();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      ByteBuffer view = buffer.duplicate();
+      return new InputStream() {
+        @Override
+        public int read() {
+          return view.hasRemaining() ? view.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+          if (length == 0) {
+            return 0;
+          }
+          if (!view.hasRemaining()) {
+            return -1;
+          }
+          int count = Math.min(length, view.remaining());
+          view.get(bytes, offset, count);
+          return count;
+        }
+
+        @Override
+        public long skip(long count) {
+          int skipped = (int) Math.max(0, Math.min(count, view.remaining()));
+          view.position(view.position() + skipped);
+          return skipped;
+        }
+
+        @Override
+        public int available() {
+          return view.remaining();
+        }
+      };
+    }
+  }
+}
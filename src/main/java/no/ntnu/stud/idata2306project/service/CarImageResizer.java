@@ -0,0 +1,244 @@
+package no.ntnu.stud.idata2306project.service;
+
+import jakarta.annotation.PreDestroy;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import no.ntnu.stud.idata2306project.enums.ImageType;
+import no.ntnu.stud.idata2306project.exception.ImageResizeUnavailableException;
+import no.ntnu.stud.idata2306project.model.image.CarImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates resized and transcoded copies of car images.
+ *
+ * <p>Decoding, scaling and encoding an image is slow and uses a lot of memory, so it is done by a
+ * small pool of worker threads with a bounded queue. The number of workers is set by
+ * {@code image.resize.threads} and the queue length by {@code image.resize.queue-capacity}. When
+ * the queue is full, or a resize takes longer than {@code image.resize.timeout-ms}, an
+ * {@link ImageResizeUnavailableException} is thrown instead of waiting. Requests for the same copy
+ * that arrive while it is being made share the same work.
+ *
+ * <p>Images are only made smaller, never larger. Only the formats the JDK can encode, JPG and PNG,
+ * can be created.
+ */
+@Service
+public class CarImageResizer {
+
+  private static final float JPG_QUALITY = 0.85f;
+
+  private final long timeoutMillis;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, CompletableFuture<CarImage>> inProgress = new ConcurrentHashMap<>();
+  private final Logger logger = LoggerFactory.getLogger(CarImageResizer.class);
+
+  /**
+   * Creates an instance of CarImageResizer.
+   *
+   * @param threads the number of worker threads
+   * @param queueCapacity the number of resizes that may wait for a worker
+   * @param timeoutMillis how long to wait for a resize, in milliseconds
+   */
+  public CarImageResizer(
+      @Value("${image.resize.threads:2}") int threads,
+      @Value("${image.resize.queue-capacity:16}") int queueCapacity,
+      @Value("${image.resize.timeout-ms:10000}") long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("image-resize-", 0).daemon().factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Check if an image type can be created by the resizer.
+   *
+   * @param imageType the image type
+   * @return true if images of the type can be created, false otherwise
+   */
+  public boolean canWrite(ImageType imageType) {
+    return ImageIO.getImageWritersByFormatName(formatName(imageType)).hasNext();
+  }
+
+  /**
+   * Check if images of a type can be decoded by the resizer, and so be resized.
+   *
+   * @param imageType the image type
+   * @return true if images of the type can be read, false otherwise
+   */
+  public boolean canRead(ImageType imageType) {
+    return ImageIO.getImageReadersByFormatName(formatName(imageType)).hasNext();
+  }
+
+  /**
+   * Create a copy of an image with another width and type, keeping the aspect ratio. If the
+   * image is narrower than the requested width, it keeps its own width.
+   *
+   * @param source the image to resize
+   * @param imageType the type of the copy
+   * @param imageWidth the width of the copy
+   * @return the copy, or null if the source can not be decoded
+   * @throws ImageResizeUnavailableException if the workers are busy or the resize timed out
+   */
+  public CarImage resize(CarImage source, ImageType imageType, long imageWidth) {
+    String key = source.getCarId() + "/" + imageType + "/" + imageWidth;
+    CompletableFuture<CarImage> resized = new CompletableFuture<>();
+    CompletableFuture<CarImage> running = inProgress.putIfAbsent(key, resized);
+    if (running != null) {
+      resized = running;
+    } else {
+      submit(key, resized, () -> createCopy(source, imageType, imageWidth));
+    }
+
+    try {
+      return resized.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new ImageResizeUnavailableException("Resizing image " + key + " timed out", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ImageResizeUnavailableException("Interrupted while resizing image " + key, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RejectedExecutionException) {
+        throw new ImageResizeUnavailableException("Too many images are being resized", e);
+      }
+      throw new IllegalStateException("Failed to resize image " + key, e.getCause());
+    }
+  }
+
+  /**
+   * Stop the workers when the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Runs a resize on the workers, completing the future with its result. The future is removed
+   * from the resizes in progress when it completes, also if the workers reject it.
+   */
+  private void submit(String key, CompletableFuture<CarImage> resized,
+      Supplier<CarImage> resize) {
+    try {
+      executor.execute(() -> {
+        try {
+          resized.complete(resize.get());
+        } catch (RuntimeException e) {
+          resized.completeExceptionally(e);
+        } finally {
+          inProgress.remove(key, resized);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      resized.completeExceptionally(e);
+      inProgress.remove(key, resized);
+    }
+  }
+
+  private CarImage createCopy(CarImage source, ImageType imageType, long imageWidth) {
+    long startTime = System.nanoTime();
+    try {
+      BufferedImage original = ImageIO.read(new ByteArrayInputStream(source.getImage()));
+      if (original == null) {
+        logger.warn("Image of type {} for car with id {} can not be decoded",
+            source.getImageType(), source.getCarId());
+        return null;
+      }
+
+      int width = (int) Math.min(imageWidth, original.getWidth());
+      int height = Math.max(1, Math.round((float) original.getHeight() * width
+          / original.getWidth()));
+      BufferedImage scaled = scale(original, width, height, imageType != ImageType.PNG);
+      byte[] encoded = encode(scaled, imageType);
+
+      logger.info("Resized image for car with id {} to {} px {} in {} ms", source.getCarId(),
+          width, imageType, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+      return new CarImage(source.getCarId(), encoded, imageWidth, imageType,
+          source.getLastModified());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Scales an image by halving it until it is less than twice the target size, and then scaling
+   * it to the target size. Scaling in steps keeps bilinear filtering from skipping pixels.
+   */
+  private static BufferedImage scale(BufferedImage image, int width, int height, boolean opaque) {
+    int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+    BufferedImage current = image;
+    int currentWidth = image.getWidth();
+    int currentHeight = image.getHeight();
+    do {
+      currentWidth = Math.max(width, currentWidth / 2);
+      currentHeight = Math.max(height, currentHeight / 2);
+      if (currentWidth < width * 2) {
+        currentWidth = width;
+        currentHeight = height;
+      }
+
+      BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+      Graphics2D graphics = next.createGraphics();
+      try {
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+            RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+      } finally {
+        graphics.dispose();
+      }
+      current = next;
+    } while (currentWidth != width || currentHeight != height);
+    return current;
+  }
+
+  private static byte[] encode(BufferedImage image, ImageType imageType) throws IOException {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName(imageType));
+    if (!writers.hasNext()) {
+      throw new IOException("No image writer for " + imageType);
+    }
+    ImageWriter writer = writers.next();
+    ImageWriteParam parameters = writer.getDefaultWriteParam();
+    if (imageType == ImageType.JPG) {
+      parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      parameters.setCompressionQuality(JPG_QUALITY);
+    }
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+      writer.setOutput(stream);
+      writer.write(null, new IIOImage(image, null, null), parameters);
+    } finally {
+      writer.dispose();
+    }
+    return output.toByteArray();
+  }
+
+  private static String formatName(ImageType imageType) {
+    return imageType == ImageType.JPG ? "jpeg" : imageType.getExtension();
+  }
+}
@@ -1,33 +1,179 @@
 package no.ntnu.stud.idata2306project.service;
 
-import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 import no.ntnu.stud.idata2306project.enums.ImageType;
+import no.ntnu.stud.idata2306project.exception.ImageResizeUnavailableException;
 import no.ntnu.stud.idata2306project.model.image.CarImage;
 import no.ntnu.stud.idata2306project.repository.CarImageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CarImageService {
   private final CarImageRepository carImageRepository;
+  private final CarImageCache carImageCache;
+  private final CarImageResizer carImageResizer;
+  private final ImageStore imageStore;
+  private final boolean offHeap;
+  private final long[] widths;
+  private final List<ImageType> readableTypes;
   private static final Logger logger = LoggerFactory.getLogger(CarImageService.class);
 
-  public CarImageService(CarImageRepository carImageRepository) {
+  /**
+   * Creates an instance of CarImageService.
+   *
+   * @param carImageRepository the car image repository
+   * @param carImageCache the cache of car images
+   * @param carImageResizer the resizer of car images
+   * @param imageStore the store of image bytes
+   * @param offHeap true to keep images that are not in the image store outside the heap
+   * @param widths the widths images are served in
+   */
+  public CarImageService(CarImageRepository carImageRepository, CarImageCache carImageCache,
+      CarImageResizer carImageResizer, ImageStore imageStore,
+      @Value("${image.cache.off-heap:false}") boolean offHeap,
+      @Value("${image.widths:16,32,64,128,256,320,480,640,800,1024,1280,1600,1920}")
+      long[] widths) {
     this.carImageRepository = carImageRepository;
+    this.carImageCache = carImageCache;
+    this.carImageResizer = carImageResizer;
+    this.imageStore = imageStore;
+    this.offHeap = offHeap;
+    this.widths = Arrays.stream(widths).sorted().distinct().toArray();
+    this.readableTypes = Arrays.stream(ImageType.values())
+        .filter(carImageResizer::canRead)
+        .toList();
     logger.info("CarImageService initialized");
   }
 
   /**
-   * Get a car image by car ID, image type, and image width.
+   * Round a requested image width down to the nearest width images are served in.
+   *
+   * <p>Every served width is cached and may have to be resized, so only the widths set by
+   * {@code image.widths} are served.
+   *
+   * @param imageWidth the requested width
+   * @return the width to serve, or an empty OptionalLong if the requested width is narrower than
+   *     the narrowest or wider than the widest width images are served in
+   */
+  public OptionalLong toServedWidth(long imageWidth) {
+    if (imageWidth < widths[0] || imageWidth > widths[widths.length - 1]) {
+      return OptionalLong.empty();
+    }
+    int position = Arrays.binarySearch(widths, imageWidth);
+    return OptionalLong.of(widths[position >= 0 ? position : -position - 2]);
+  }
+
+  /**
+   * Get a car image by car ID, image type, and image width. Images are served from the
+   * {@link CarImageCache} when possible.
+   *
+   * <p>The width is first rounded down with {@link #toServedWidth(long)}. If the car has no stored
+   * image with the type and width, it is created from the widest stored image of the car that
+   * can be decoded, by the {@link CarImageResizer}, and then cached. An image is never made wider
+   * than the stored image.
    *
    * @param carId the ID of the car
    * @param imageType the type of the image
    * @param imageWidth the width of the image
-   * @return the car image
+   * @return the car image, or an empty Optional if the car has no such image
+   * @throws IllegalArgumentException if images are not served in any width close to the width
+   * @throws ImageResizeUnavailableException if the image must be resized, but can not be now
+   */
+  public Optional<CarImageContent> getCarImage(long carId, ImageType imageType, long imageWidth) {
+    long servedWidth = toServedWidth(imageWidth).orElseThrow(() ->
+        new IllegalArgumentException("Images are not served in width " + imageWidth));
+    return carImageCache.get(carId, imageType, servedWidth,
+        () -> loadCarImage(carId, imageType, servedWidth));
+  }
+
+  /**
+   * Add car images, moving their bytes to the image store.
+   *
+   * @param carImages the car images to add
+   */
+  public void addCarImages(List<CarImage> carImages) {
+    for (CarImage carImage : carImages) {
+      moveToStore(carImage);
+    }
+    carImageRepository.saveAll(carImages);
+    // Images requested before they were added are cached as missing
+    carImageCache.clear();
+  }
+
+  /**
+   * Move the bytes of a car image from the entity to the image store. Images already in the
+   * store are left as they are. The entity must be saved afterwards.
+   *
+   * @param carImage the car image
+   */
+  public void moveToStore(CarImage carImage) {
+    if (carImage.getImage() == null) {
+      return;
+    }
+    try {
+      carImage.moveToStore(imageStore.put(carImage.getImage()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not store image for car " + carImage.getCarId(), e);
+    }
+  }
+
+  private CarImageContent loadCarImage(long carId, ImageType imageType, long imageWidth) {
+    CarImage storedImage = carImageRepository
+        .findCarImageByCarIdAndImageTypeAndImageWidth(carId, imageType, imageWidth);
+    if (hasBytes(storedImage)) {
+      return toContent(storedImage);
+    }
+    if (!carImageResizer.canWrite(imageType)) {
+      return null;
+    }
+
+    CarImage widestImage = carImageRepository
+        .findFirstByCarIdAndImageTypeInOrderByImageWidthDesc(carId, readableTypes);
+    if (!hasBytes(widestImage)) {
+      return null;
+    }
+    CarImageContent widestContent = toContent(widestImage);
+    if (widestImage.getImageType() == imageType && widestImage.getImageWidth() <= imageWidth) {
+      return widestContent;
+    }
+
+    CarImage source = new CarImage(carId, widestContent.getBytes(),
+        widestImage.getImageWidth(), widestImage.getImageType(), widestImage.getLastModified());
+    CarImage resizedImage = carImageResizer.resize(source, imageType, imageWidth);
+    return resizedImage == null ? null : CarImageContent.of(resizedImage, offHeap);
+  }
+
+  private static boolean hasBytes(CarImage carImage) {
+    return carImage != null
+        && (carImage.getContentHash() != null || carImage.getImage() != null);
+  }
+
+  private CarImageContent toContent(CarImage carImage) {
+    if (carImage.getContentHash() == null) {
+      return CarImageContent.of(carImage, offHeap);
+    }
+    try {
+      return CarImageContent.of(carImage, imageStore.read(carImage.getContentHash()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read image " + carImage.getContentHash()
+          + " of car " + carImage.getCarId() + " from the image store", e);
+    }
+  }
+
+  /**
+   * Get the size and usage of the image cache.
+   *
+   * @return the statistics of the image cache
    */
-  @Transactional
-  public CarImage getCarImage(long carId, ImageType imageType, long imageWidth) {
-    return carImageRepository.findCarImageByCarIdAndImageTypeAndImageWidth(carId, imageType, imageWidth);
+  public CarImageCache.Statistics getCacheStatistics() {
+    return carImageCache.getStatistics();
   }
 }
@@ -0,0 +1,332 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import no.ntnu.stud.idata2306project.repository.CarFullName;
+import no.ntnu.stud.idata2306project.repository.CarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory inverted index of the full names ("brand model") of all cars.
+ *
+ * <p>Many cars share the same full name, so the index works on the distinct names: each name maps
+ * to the cars that have it, and is itself found through its trigrams and its words. A keyword is
+ * matched as a case-insensitive substring of the full name, which also covers prefixes. If no name
+ * contains the keyword, every word of the keyword is matched against the words of the names while
+ * allowing a small number of typos. The cost of a search depends on the number of distinct names,
+ * not on the number of cars.
+ *
+ * <p>The index is loaded from the {@link CarRepository} on first use, and is kept up to date by
+ * {@link CarService} when cars are saved or deleted. Cars, models or brands written directly to
+ * the repositories are only picked up by {@link #rebuild()}. A rebuild loads new maps beside the
+ * current ones and then replaces them in one step, so a search never sees a partly loaded index.
+ */
+@Service
+public class CarKeywordIndex {
+
+  private static final int GRAM_LENGTH = 3;
+
+  private final CarRepository carRepository;
+  private final Logger logger = LoggerFactory.getLogger(CarKeywordIndex.class);
+
+  private volatile Tables tables = null;
+
+  /**
+   * Creates an instance of CarKeywordIndex.
+   *
+   * @param carRepository the car repository
+   */
+  public CarKeywordIndex(CarRepository carRepository) {
+    this.carRepository = carRepository;
+  }
+
+  /**
+   * Get the ids of all cars whose full name matches a keyword.
+   *
+   * <p>Cars whose full name contains the keyword are returned. Only if there are none, cars whose
+   * full name approximately matches every word of the keyword are returned instead.
+   *
+   * @param keyword the keyword to search for
+   * @return the ids of the matching cars
+   */
+  public Set<Long> getCarIdsMatching(String keyword) {
+    Tables current = tables();
+    String normalizedKeyword = normalize(keyword);
+
+    Set<String> names = findNamesContaining(current, normalizedKeyword);
+    if (names.isEmpty()) {
+      names = findNamesApproximately(current, normalizedKeyword);
+    }
+
+    Set<Long> carIds = new HashSet<>();
+    for (String name : names) {
+      carIds.addAll(current.carIdsByName.getOrDefault(name, Set.of()));
+    }
+    return carIds;
+  }
+
+  /**
+   * Replace the full name of a car with the one currently stored for it.
+   *
+   * @param carId the id of the car that was saved
+   */
+  public synchronized void refreshCar(long carId) {
+    Tables current = tables();
+    carRepository.findFullNameById(carId).ifPresentOrElse(
+        fullName -> current.put(carId, fullName(fullName)),
+        () -> removeCar(carId));
+  }
+
+  /**
+   * Remove a deleted car.
+   *
+   * @param carId the id of the car that was deleted
+   */
+  public synchronized void removeCar(long carId) {
+    Tables current = tables();
+    String name = current.nameByCarId.remove(carId);
+    if (name != null) {
+      current.unlink(name, carId);
+    }
+  }
+
+  /**
+   * Reload the whole index from the database.
+   */
+  public synchronized void rebuild() {
+    Tables loaded = new Tables();
+    for (CarFullName fullName : carRepository.findAllFullNames()) {
+      loaded.put(fullName.getCarId(), fullName(fullName));
+    }
+    tables = loaded;
+    logger.info("Keyword index built with {} cars for {} names",
+        loaded.nameByCarId.size(), loaded.carIdsByName.size());
+  }
+
+  /**
+   * Finds the names containing the keyword. Names sharing every trigram of the keyword are the
+   * only candidates; keywords shorter than a trigram are checked against every name.
+   *
+   * @param tables the maps of the index
+   * @param keyword the normalized keyword
+   * @return the names containing the keyword
+   */
+  private static Set<String> findNamesContaining(Tables tables, String keyword) {
+    Collection<String> candidates = keyword.length() < GRAM_LENGTH
+        ? tables.carIdsByName.keySet()
+        : intersect(tables.namesByGram, grams(keyword));
+
+    Set<String> names = new HashSet<>();
+    for (String candidate : candidates) {
+      if (candidate.contains(keyword)) {
+        names.add(candidate);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Finds the names where every word of the keyword is close to a word of the name, or to the
+   * start of one.
+   *
+   * @param tables the maps of the index
+   * @param keyword the normalized keyword
+   * @return the names approximately matching the keyword
+   */
+  private static Set<String> findNamesApproximately(Tables tables, String keyword) {
+    List<String> keywordWords = words(keyword);
+    if (keywordWords.isEmpty()) {
+      return Set.of();
+    }
+
+    Set<String> names = null;
+    for (String keywordWord : keywordWords) {
+      Set<String> matchingNames = new HashSet<>();
+      int maxDistance = allowedTypos(keywordWord);
+      tables.namesByWord.forEach((word, wordNames) -> {
+        if (isCloseTo(keywordWord, word, maxDistance)) {
+          matchingNames.addAll(wordNames);
+        }
+      });
+
+      if (names == null) {
+        names = matchingNames;
+      } else {
+        names.retainAll(matchingNames);
+      }
+      if (names.isEmpty()) {
+        break;
+      }
+    }
+    return names;
+  }
+
+  private Tables tables() {
+    Tables current = tables;
+    if (current == null) {
+      synchronized (this) {
+        if (tables == null) {
+          rebuild();
+        }
+        current = tables;
+      }
+    }
+    return current;
+  }
+
+  private static void removePosting(Map<String, Set<String>> postings, String key, String name) {
+    postings.computeIfPresent(key, (k, names) -> {
+      names.remove(name);
+      return names.isEmpty() ? null : names;
+    });
+  }
+
+  private static Set<String> intersect(Map<String, Set<String>> postings, Set<String> keys) {
+    Set<String> result = null;
+    for (String key : keys) {
+      Set<String> names = postings.getOrDefault(key, Set.of());
+      if (result == null) {
+        result = new HashSet<>(names);
+      } else {
+        result.retainAll(names);
+      }
+      if (result.isEmpty()) {
+        break;
+      }
+    }
+    return result == null ? Set.of() : result;
+  }
+
+  private static String fullName(CarFullName fullName) {
+    return normalize(fullName.getBrandName() + " " + fullName.getModelName());
+  }
+
+  private static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  private static Set<String> grams(String value) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+      grams.add(value.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+
+  private static List<String> words(String value) {
+    return Arrays.stream(value.split("\\s+"))
+        .filter(word -> !word.isEmpty())
+        .toList();
+  }
+
+  /**
+   * Returns the number of typos allowed in a word of the given length. Short words must match
+   * exactly, as almost any short word is a typo or two away from another.
+   */
+  private static int allowedTypos(String word) {
+    if (word.length() < 4) {
+      return 0;
+    }
+    return word.length() < 8 ? 1 : 2;
+  }
+
+  /**
+   * Returns true if the keyword word is within the allowed distance of the word, or of the start
+   * of the word with the same length as the keyword word.
+   */
+  private static boolean isCloseTo(String keywordWord, String word, int maxDistance) {
+    if (word.startsWith(keywordWord)) {
+      return true;
+    }
+    if (maxDistance == 0) {
+      return false;
+    }
+    String wordStart = word.substring(0, Math.min(word.length(), keywordWord.length()));
+    return distance(keywordWord, wordStart) <= maxDistance
+        || distance(keywordWord, word) <= maxDistance;
+  }
+
+  /**
+   * Returns the number of insertions, deletions, substitutions and swaps of adjacent characters
+   * needed to turn one string into the other.
+   */
+  private static int distance(String a, String b) {
+    int[][] d = new int[a.length() + 1][b.length() + 1];
+    for (int i = 0; i <= a.length(); i++) {
+      d[i][0] = i;
+    }
+    for (int j = 0; j <= b.length(); j++) {
+      d[0][j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+            && a.charAt(i - 2) == b.charAt(j - 1)) {
+          d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+        }
+      }
+    }
+    return d[a.length()][b.length()];
+  }
+
+  /**
+   * The maps of the index. Changed in place by single cars, and replaced as a whole by
+   * {@link #rebuild()}.
+   */
+  private static final class Tables {
+    private final Map<Long, String> nameByCarId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> carIdsByName = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> namesByGram = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> namesByWord = new ConcurrentHashMap<>();
+
+    private void put(long carId, String name) {
+      String previousName = nameByCarId.put(carId, name);
+      if (previousName != null && !previousName.equals(name)) {
+        unlink(previousName, carId);
+      }
+
+      Set<Long> carIds = carIdsByName.get(name);
+      if (carIds == null) {
+        carIds = ConcurrentHashMap.newKeySet();
+        for (String gram : grams(name)) {
+          namesByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(name);
+        }
+        for (String word : words(name)) {
+          namesByWord.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(name);
+        }
+        carIdsByName.put(name, carIds);
+      }
+      carIds.add(carId);
+    }
+
+    /**
+     * Removes a car from a name, and the name from the index if no car has it anymore.
+     */
+    private void unlink(String name, long carId) {
+      Set<Long> carIds = carIdsByName.get(name);
+      if (carIds == null) {
+        return;
+      }
+      carIds.remove(carId);
+      if (carIds.isEmpty()) {
+        carIdsByName.remove(name);
+        for (String gram : grams(name)) {
+          removePosting(namesByGram, gram, name);
+        }
+        for (String word : words(name)) {
+          removePosting(namesByWord, word, name);
+        }
+      }
+    }
+  }
+}
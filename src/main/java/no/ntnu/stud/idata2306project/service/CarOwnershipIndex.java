@@ -0,0 +1,218 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import no.ntnu.stud.idata2306project.repository.CarOwnership;
+import no.ntnu.stud.idata2306project.repository.CompanyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory lookup of which company owns each car.
+ *
+ * <p>Resolving the owner of a car, or the cars of a company, is a map lookup instead of a
+ * subquery over every company's list of cars. The lookup is loaded from the
+ * {@link CompanyRepository} on first use, and is kept up to date by {@link CompanyService} and
+ * {@link CarService} when companies are saved or deleted and when cars are deleted.
+ *
+ * <p>Readers take the current snapshot of the lookup without locking, as snapshots never change.
+ * Changes and rebuilds replace the snapshot with a new one, so a reader never sees a company
+ * without the cars it owns while they are being loaded.
+ */
+@Service
+public class CarOwnershipIndex {
+
+  private final CompanyRepository companyRepository;
+  private final Logger logger = LoggerFactory.getLogger(CarOwnershipIndex.class);
+
+  private volatile Snapshot snapshot = null;
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Creates an instance of CarOwnershipIndex.
+   *
+   * @param companyRepository the company repository
+   */
+  public CarOwnershipIndex(CompanyRepository companyRepository) {
+    this.companyRepository = companyRepository;
+  }
+
+  /**
+   * Get the id of the company that owns a car.
+   *
+   * @param carId the id of the car
+   * @return the id of the owning company, or an empty Optional if no company owns the car
+   */
+  public Optional<Long> getOwnerId(long carId) {
+    return Optional.ofNullable(snapshot().companyIdByCarId.get(carId));
+  }
+
+  /**
+   * Get the ids of all cars owned by any of the given companies.
+   *
+   * @param companyIds the ids of the companies
+   * @return the ids of the cars owned by the companies
+   */
+  public Set<Long> getCarIdsOwnedBy(Collection<Long> companyIds) {
+    Snapshot current = snapshot();
+    Set<Long> carIds = new HashSet<>();
+    for (Long companyId : companyIds) {
+      carIds.addAll(current.carIdsByCompanyId.getOrDefault(companyId, Set.of()));
+    }
+    return carIds;
+  }
+
+  /**
+   * Returns the version of the ownerships, increased whenever the cars of a company are reloaded,
+   * a company or a car is removed, or the index is rebuilt.
+   *
+   * @return the version of the owners of the cars
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Replace the cars owned by a company with the ones currently stored for it.
+   *
+   * @param companyId the id of the company that was saved
+   */
+  public synchronized void refreshCompany(long companyId) {
+    Snapshot changed = snapshot().copy();
+    changed.removeCompany(companyId);
+    changed.putCompany(companyId, companyRepository.findCarIdsOwnedByCompany(companyId));
+    snapshot = changed;
+    version.incrementAndGet();
+  }
+
+  /**
+   * Remove a deleted company and the ownership of its cars.
+   *
+   * @param companyId the id of the company that was deleted
+   */
+  public synchronized void removeCompany(long companyId) {
+    Snapshot changed = snapshot().copy();
+    changed.removeCompany(companyId);
+    snapshot = changed;
+    version.incrementAndGet();
+  }
+
+  /**
+   * Remove a deleted car.
+   *
+   * @param carId the id of the car that was deleted
+   */
+  public synchronized void removeCar(long carId) {
+    Snapshot current = snapshot();
+    if (current.companyIdByCarId.containsKey(carId)) {
+      Snapshot changed = current.copy();
+      changed.removeCar(carId);
+      snapshot = changed;
+      version.incrementAndGet();
+    }
+  }
+
+  /**
+   * Reload the whole lookup from the database.
+   */
+  public synchronized void rebuild() {
+    Map<Long, List<Long>> carIdsByCompanyId = companyRepository.findAllCarOwnerships().stream()
+        .collect(Collectors.groupingBy(CarOwnership::getCompanyId,
+            Collectors.mapping(CarOwnership::getCarId, Collectors.toList())));
+
+    Snapshot loaded = new Snapshot(new HashMap<>(), new HashMap<>());
+    carIdsByCompanyId.forEach(loaded::putCompany);
+    snapshot = loaded;
+    version.incrementAndGet();
+    logger.info("Ownership index built with {} cars for {} companies",
+        loaded.companyIdByCarId.size(), loaded.carIdsByCompanyId.size());
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          rebuild();
+        }
+        current = snapshot;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * The owner of every car, and the cars of every company.
+   *
+   * <p>A snapshot is only changed before it is published. The sets of cars are never changed at
+   * all, but replaced, so a copy of a snapshot can share them with the original.
+   */
+  private static final class Snapshot {
+    private final Map<Long, Long> companyIdByCarId;
+    private final Map<Long, Set<Long>> carIdsByCompanyId;
+
+    private Snapshot(Map<Long, Long> companyIdByCarId, Map<Long, Set<Long>> carIdsByCompanyId) {
+      this.companyIdByCarId = companyIdByCarId;
+      this.carIdsByCompanyId = carIdsByCompanyId;
+    }
+
+    private Snapshot copy() {
+      return new Snapshot(new HashMap<>(companyIdByCarId), new HashMap<>(carIdsByCompanyId));
+    }
+
+    /**
+     * Makes a company the owner of some cars, in addition to the cars it already owns.
+     */
+    private void putCompany(long companyId, Collection<Long> carIds) {
+      if (carIds.isEmpty()) {
+        return;
+      }
+      Set<Long> owned = new HashSet<>(carIdsByCompanyId.getOrDefault(companyId, Set.of()));
+      for (Long carId : carIds) {
+        Long previousCompanyId = companyIdByCarId.put(carId, companyId);
+        if (previousCompanyId != null && previousCompanyId != companyId) {
+          removeFromCompany(previousCompanyId, carId);
+        }
+        owned.add(carId);
+      }
+      carIdsByCompanyId.put(companyId, owned);
+    }
+
+    private void removeCar(long carId) {
+      Long companyId = companyIdByCarId.remove(carId);
+      if (companyId != null) {
+        removeFromCompany(companyId, carId);
+      }
+    }
+
+    private void removeCompany(long companyId) {
+      Set<Long> carIds = carIdsByCompanyId.remove(companyId);
+      if (carIds != null) {
+        for (Long carId : carIds) {
+          companyIdByCarId.remove(carId, companyId);
+        }
+      }
+    }
+
+    private void removeFromCompany(long companyId, long carId) {
+      Set<Long> carIds = carIdsByCompanyId.get(companyId);
+      if (carIds != null) {
+        Set<Long> remaining = new HashSet<>(carIds);
+        remaining.remove(carId);
+        if (remaining.isEmpty()) {
+          carIdsByCompanyId.remove(companyId);
+        } else {
+          carIdsByCompanyId.put(companyId, remaining);
+        }
+      }
+    }
+  }
+}
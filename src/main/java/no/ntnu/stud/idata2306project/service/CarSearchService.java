@@ -1,12 +1,12 @@
 package no.ntnu.stud.idata2306project.service;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import no.ntnu.stud.idata2306project.model.car.Car;
-import no.ntnu.stud.idata2306project.model.car.CarBrand;
-import no.ntnu.stud.idata2306project.model.car.CarModel;
 import no.ntnu.stud.idata2306project.repository.CarRepository;
+import no.ntnu.stud.idata2306project.repository.CarSpecifications;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 /**
@@ -16,38 +16,31 @@ import org.springframework.stereotype.Service;
 public class CarSearchService {
 
   private final CarRepository carRepository;
+  private final CarKeywordIndex carKeywordIndex;
 
   /**
    * Creates an instance of CarSearchService.
    *
    * @param carRepository the car repository
+   * @param carKeywordIndex the index of car brand and model names
    */
-  public CarSearchService(CarRepository carRepository) {
+  public CarSearchService(CarRepository carRepository, CarKeywordIndex carKeywordIndex) {
     this.carRepository = carRepository;
+    this.carKeywordIndex = carKeywordIndex;
   }
 
   /**
    * Searches for cars based on a keyword. The keyword is matched against the car's brand and model
-   * names.
+   * names, see {@link CarKeywordIndex#getCarIdsMatching(String)}. The matching cars are loaded
+   * in chunks of ids, as a short keyword can match most of the cars.
    *
    * @param keyword the keyword to search for
-   * @return a list of cars that match the keyword
+   * @return a list of cars that match the keyword, sorted by id
    */
   public List<Car> getCarsByKeyword(String keyword) {
-    String keywordCopy = keyword.toLowerCase();
-
-    List<Car> cars = this.carRepository.findAll();
-    Map<Car, String> carWithFullNames = new HashMap<>();
-    for (Car car : cars) {
-      CarModel model = car.getModel();
-      CarBrand brand = model.getBrand();
-      String fullName = brand.getName() + " " + model.getName();
-      carWithFullNames.put(car, fullName);
-    }
-
-    return carWithFullNames.entrySet().stream()
-        .filter(entry -> entry.getValue().toLowerCase().contains(keywordCopy))
-        .map(Map.Entry::getKey)
-        .toList();
+    // Chunks of sorted ids, each sorted by id, keep all the cars sorted by id
+    Set<Long> carIds = new TreeSet<>(carKeywordIndex.getCarIdsMatching(keyword));
+    return IdChunks.findAll(carIds,
+        chunk -> carRepository.findAll(CarSpecifications.hasIdIn(chunk), Sort.by("id")));
   }
 }
@@ -1,6 +1,6 @@
 package no.ntnu.stud.idata2306project.service;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -11,8 +11,13 @@ import no.ntnu.stud.idata2306project.exception.UnauthorizedException;
 import no.ntnu.stud.idata2306project.model.car.Car;
 import no.ntnu.stud.idata2306project.model.company.Company;
 import no.ntnu.stud.idata2306project.repository.CarRepository;
+import no.ntnu.stud.idata2306project.repository.CarSpecifications;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 /**
@@ -25,16 +30,37 @@ public class CarService {
   private final CarRepository carRepository;
   private final Logger logger = LoggerFactory.getLogger(CarService.class);
   private final CompanyService companyService;
+  private final CarOwnershipIndex carOwnershipIndex;
+  private final CarKeywordIndex carKeywordIndex;
+  private final CarDtoAssembler carDtoAssembler;
+  private final CarFacetService carFacetService;
+  private final CarFleetIndex carFleetIndex;
+  private final ReferenceDataCache referenceDataCache;
 
   /**
    * Creates an instance of CarService.
    *
    * @param carRepository the car repository
    * @param companyService the company service
+   * @param carOwnershipIndex the lookup of which company owns each car
+   * @param carKeywordIndex the index of car brand and model names
+   * @param carDtoAssembler the builder of carDtos
+   * @param carFacetService the service counting cars per facet
+   * @param carFleetIndex the snapshot of all cars
+   * @param referenceDataCache the cache of the reference data
    */
-  public CarService(CarRepository carRepository, CompanyService companyService) {
+  public CarService(CarRepository carRepository, CompanyService companyService,
+      CarOwnershipIndex carOwnershipIndex, CarKeywordIndex carKeywordIndex,
+      CarDtoAssembler carDtoAssembler, CarFacetService carFacetService,
+      CarFleetIndex carFleetIndex, ReferenceDataCache referenceDataCache) {
     this.carRepository = carRepository;
     this.companyService = companyService;
+    this.carOwnershipIndex = carOwnershipIndex;
+    this.carKeywordIndex = carKeywordIndex;
+    this.carDtoAssembler = carDtoAssembler;
+    this.carFacetService = carFacetService;
+    this.carFleetIndex = carFleetIndex;
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
@@ -46,6 +72,18 @@ public class CarService {
     return carRepository.findAllByVisible(true);
   }
 
+  /**
+   * Get all cars that are visible as carDtos, sorted by id. The ids are taken from the
+   * {@link CarFleetIndex}, so the cars are only loaded once, by {@link CarDtoAssembler}.
+   *
+   * @return a list of carDtos of all visible cars
+   */
+  public List<CarDto> getAllVisibleCarDtos() {
+    CarFleetSnapshot snapshot = carFleetIndex.getSnapshot();
+    return carDtoAssembler.toCarDtos(snapshot.getIds(
+        snapshot.visiblePositions(), Sort.by("id"), 0, Integer.MAX_VALUE));
+  }
+
   /**
    * Get a car by its id.
    *
@@ -57,13 +95,49 @@ public class CarService {
     return carRepository.findById(id);
   }
 
+  /**
+   * Get a car by its id, and lock its row until the current transaction ends, so bookings of the
+   * car are serialized. Must be called in a transaction.
+   *
+   * @param id the id of the car
+   * @return an Optional containing the car if found, or an empty Optional if not found
+   */
+  public Optional<Car> getCarForBooking(long id) {
+    return carRepository.findByIdForUpdate(id);
+  }
+
+  /**
+   * Get cars by their ids, and lock their rows until the current transaction ends, so bookings of
+   * the cars are serialized. Must be called in a transaction.
+   *
+   * @param ids the ids of the cars
+   * @return the cars that were found, sorted by id
+   */
+  public List<Car> getCarsForBooking(Collection<Long> ids) {
+    return carRepository.findAllByIdInForUpdate(ids);
+  }
+
+  /**
+   * Get the favorite cars of a user, sorted by id.
+   *
+   * @param userId the id of the user
+   * @return the favorite cars of the user
+   */
+  public List<Car> getFavoriteCarsOfUser(long userId) {
+    return carRepository.findFavoritesOfUser(userId);
+  }
+
   /**
    * Save a car to the database.
    *
    * @param car the car to save
    */
   public void saveCar(Car car) {
-    carRepository.save(car);
+    Car savedCar = carRepository.save(car);
+    carKeywordIndex.refreshCar(savedCar.getId());
+    carFleetIndex.refreshCar(savedCar.getId());
+    referenceDataCache.invalidate();
+    carFacetService.clear();
   }
 
   /**
@@ -73,6 +147,11 @@ public class CarService {
    */
   public void deleteCarById(long id) {
     carRepository.deleteById(id);
+    carOwnershipIndex.removeCar(id);
+    carKeywordIndex.removeCar(id);
+    carFleetIndex.removeCar(id);
+    referenceDataCache.invalidate();
+    carFacetService.clear();
   }
 
   /**
@@ -125,6 +204,8 @@ public class CarService {
     carRepository.findById(carId).ifPresent(c -> {
       c.setVisible(visibility);
       carRepository.save(c);
+      carFleetIndex.refreshCar(carId);
+      carFacetService.clear();
       logger.info("Car with id {} is now {}", carId, visibility ? "available" : "unavailable");
     });
   }
@@ -140,6 +221,21 @@ public class CarService {
     return getCarDtosFromCars(cars);
   }
 
+  /**
+   * Get a window of the cars belonging to a company, sorted by id.
+   *
+   * @param companyId the id of the company to get cars for
+   * @param limit the largest number of cars in the window
+   * @param position the position to continue after
+   * @return a window of the cars that belong to the company
+   */
+  public Window<Car> getCarsBelongingToCompany(long companyId, int limit,
+      ScrollPosition position) {
+    Specification<Car> ownedByCompany = CarSpecifications.isOwnedByCompany(companyId);
+    return carRepository.findBy(ownedByCompany,
+        query -> query.sortBy(Sort.by("id")).limit(limit).scroll(position));
+  }
+
   /**
    * Returns a carDto object for the given car.
    *
@@ -147,36 +243,17 @@ public class CarService {
    * @return a carDto object
    */
   public CarDto getCarDtoFromCar(Car car) {
-    Company company = this.companyService.findCompanyThatOwnsCar(Optional.of(car));
-
-    CarDto carDto = new CarDto();
-    carDto.setId(car.getId());
-    carDto.setYear(car.getYear());
-    carDto.setNumberOfSeats(car.getNumberOfSeats());
-    carDto.setPricePerDay(car.getPricePerDay());
-    carDto.setFuelType(car.getFuelType());
-    carDto.setTransmissionType(car.getTransmissionType());
-    carDto.setModel(car.getModel());
-    carDto.setCompany(company);
-    carDto.setDescription(car.getDescription());
-    carDto.setAddons(car.getAddons());
-    carDto.setFeatures(car.getFeatures());
-    carDto.setVisible(car.isVisible());
-
-    return carDto;
+    return carDtoAssembler.toCarDtos(List.of(car)).get(0);
   }
 
   /**
-   * Converts a list of cars to a list of carDtos.
+   * Converts a list of cars to a list of carDtos. The cars are converted together, see
+   * {@link CarDtoAssembler}.
    *
    * @param cars the list of cars to convert
-   * @return a list of carDtos
+   * @return a list of carDtos, in the same order as the cars
    */
   public List<CarDto> getCarDtosFromCars(List<Car> cars) {
-    List<CarDto> carDtos = new ArrayList<>();
-    for (Car car : cars) {
-      carDtos.add(getCarDtoFromCar(car));
-    }
-    return carDtos;
+    return carDtoAssembler.toCarDtos(cars);
   }
 }
\ No newline at end of file
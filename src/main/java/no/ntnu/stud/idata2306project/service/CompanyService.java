@@ -1,6 +1,6 @@
 package no.ntnu.stud.idata2306project.service;
 
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -18,6 +18,7 @@ import no.ntnu.stud.idata2306project.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing companies.
@@ -31,6 +32,7 @@ public class CompanyService {
   CompanyRepository companyRepository;
   PhoneNumberRepository phoneNumberRepository;
   AddressRepository addressRepository;
+  CarOwnershipIndex carOwnershipIndex;
 
   /**
    * Constructor for CompanyService.
@@ -39,18 +41,21 @@ public class CompanyService {
    * @param companyRepository the company repository
    * @param phoneNumberRepository the phone number repository
    * @param addressRepository the address repository
+   * @param carOwnershipIndex the lookup of which company owns each car
    *
    */
   public CompanyService(
       UserRepository userRepository, 
       CompanyRepository companyRepository,
       PhoneNumberRepository phoneNumberRepository,
-      AddressRepository addressRepository
+      AddressRepository addressRepository,
+      CarOwnershipIndex carOwnershipIndex
   ) {
     this.phoneNumberRepository = phoneNumberRepository;
     this.addressRepository = addressRepository;
     this.userRepository = userRepository;
     this.companyRepository = companyRepository;
+    this.carOwnershipIndex = carOwnershipIndex;
   }
 
   /**
@@ -76,6 +81,7 @@ public class CompanyService {
     addressRepository.save(company.getAddress());
     phoneNumberRepository.save(company.getPhoneNumber());
     companyRepository.save(company);
+    carOwnershipIndex.refreshCompany(company.getId());
   }
 
   /**
@@ -85,7 +91,19 @@ public class CompanyService {
    * @return Company that owns the car
    */
   public Company findCompanyThatOwnsCar(Optional<Car> car) {
-    return car.map(value -> companyRepository.findCompanyThatOwnsCar(value.getId())).orElse(null);
+    return car.flatMap(value -> carOwnershipIndex.getOwnerId(value.getId()))
+        .flatMap(companyRepository::findById)
+        .orElse(null);
+  }
+
+  /**
+   * Get the ids of all cars owned by companies with the given names.
+   *
+   * @param names the lower case names of the companies
+   * @return the ids of the cars owned by the companies
+   */
+  public Set<Long> getCarIdsOwnedByCompaniesNamed(Collection<String> names) {
+    return carOwnershipIndex.getCarIdsOwnedBy(companyRepository.findIdsByLowerCaseNameIn(names));
   }
 
   /**
@@ -93,11 +111,14 @@ public class CompanyService {
    */
   public void deleteCompanyById(long id) {
     companyRepository.deleteById(id);
+    carOwnershipIndex.removeCompany(id);
   }
 
   /** 
-   * Add user to company.
+   * Add user to company. The users of the company are loaded lazily, so this runs in a
+   * transaction.
    */
+  @Transactional
   public void addUserToCompany(long userId, long companyId) {
     User user = userRepository.findById(userId).orElse(null);
     Company company = companyRepository.findById(companyId).orElse(null);
@@ -114,6 +135,7 @@ public class CompanyService {
    * @param userId the id of the user to remove
    * @param companyId the id of the company to remove the user from
    */
+  @Transactional
   public void removeUserFromCompany(long userId, long companyId) {
     User user = userRepository.findById(userId).orElse(null);
     Company company = companyRepository.findById(companyId).orElse(null);
@@ -124,17 +146,12 @@ public class CompanyService {
   }
 
   /**
-   * Get all users in a company.
+   * Get all users in a company, together with their roles.
    *
    * @param companyId the id of the company to get users from
    */
   public Set<User> getUsersInCompany(long companyId) {
-    Company company = companyRepository.findById(companyId).orElse(null);
-    if (company != null) {
-      return company.getUsers();
-    } else {
-      return new HashSet<>();
-    }
+    return userRepository.findAllWithRolesByCompanyId(companyId);
   }
 
   /**
@@ -165,13 +182,7 @@ public class CompanyService {
    *     Also returns false if the company does not exist.
    */
   public boolean isUserInCompany(long userId, long companyId) {
-    Company company = companyRepository.findById(companyId).orElse(null);
-    if (company != null) {
-      return company.getUsers().stream().anyMatch(user -> user.getId() == userId);
-    } else {
-      this.logger.warn("Company with id {} does not exist", companyId);
-      return false;
-    }
+    return companyRepository.existsByIdAndUsers_Id(companyId, userId);
   }
 
   /**
@@ -0,0 +1,101 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link ImageStore} keeping every image in its own file on the local filesystem.
+ *
+ * <p>The files are named by their digest and spread over subdirectories named by the first two
+ * and next two characters of the digest, so no directory grows too large. The root directory is
+ * set by {@code image.store.directory}. A file is written to a temporary name and then moved in
+ * place, so a file with a digest name is always complete. Images are read by mapping their file
+ * into memory, which leaves caching of the bytes to the operating system.
+ */
+@Service
+public class FileSystemImageStore implements ImageStore {
+
+  private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+  private final Path directory;
+  private final Logger logger = LoggerFactory.getLogger(FileSystemImageStore.class);
+
+  /**
+   * Creates an instance of FileSystemImageStore.
+   *
+   * @param directory the directory the images are stored in
+   * @throws IOException if the directory could not be created
+   */
+  public FileSystemImageStore(@Value("${image.store.directory:image-store}") Path directory)
+      throws IOException {
+    this.directory = Files.createDirectories(directory.toAbsolutePath());
+    logger.info("Storing images in {}", this.directory);
+  }
+
+  @Override
+  public String put(byte[] image) throws IOException {
+    String contentHash = digest(image);
+    Path file = pathOf(contentHash);
+    if (Files.exists(file)) {
+      return contentHash;
+    }
+
+    Files.createDirectories(file.getParent());
+    Path temporaryFile = Files.createTempFile(file.getParent(), contentHash, ".tmp");
+    try {
+      Files.write(temporaryFile, image);
+      Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException e) {
+      // Stored by someone else in the meantime, with the same bytes
+      logger.debug("Image {} was already stored", contentHash);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+    return contentHash;
+  }
+
+  @Override
+  public boolean contains(String contentHash) {
+    return Files.exists(pathOf(contentHash));
+  }
+
+  @Override
+  public ByteBuffer read(String contentHash) throws IOException {
+    try (FileChannel channel = FileChannel.open(pathOf(contentHash), StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private Path pathOf(String contentHash) {
+    if (!CONTENT_HASH.matcher(contentHash).matches()) {
+      throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+    }
+    return directory
+        .resolve(contentHash.substring(0, 2))
+        .resolve(contentHash.substring(2, 4))
+        .resolve(contentHash);
+  }
+
+  private static String digest(byte[] image) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,31 +1,31 @@
 package no.ntnu.stud.idata2306project.service;
 
 import no.ntnu.stud.idata2306project.model.car.FuelType;
-import no.ntnu.stud.idata2306project.repository.FuelTypeRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 @Service
 public class FuelTypeService {
 
-  private final FuelTypeRepository fuelTypeRepository;
+  private final ReferenceDataCache referenceDataCache;
 
   /**
    * Creates an instance of FuelTypeService.
    *
-   * @param fuelTypeRepository the fuel type repository
+   * @param referenceDataCache the cache of the reference data
    */
-  public FuelTypeService(FuelTypeRepository fuelTypeRepository) {
-    this.fuelTypeRepository = fuelTypeRepository;
+  public FuelTypeService(ReferenceDataCache referenceDataCache) {
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
    * Get all fuel types that are used by cars.
    *
-   * @return a set of all fuel types used by cars
+   * @return a set of all fuel types used by cars, ordered by id
    */
   public Set<FuelType> getFuelTypesUsedInCars() {
-    return fuelTypeRepository.getFuelTypesUsedInCars();
+    return new LinkedHashSet<>(referenceDataCache.getReferenceData().getFuelTypesInUse());
   }
 }
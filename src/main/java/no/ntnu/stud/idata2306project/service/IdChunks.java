@@ -0,0 +1,58 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Looks up entities by a list of ids in chunks, to stay well below the bind parameter limit of the
+ * database driver.
+ */
+final class IdChunks {
+
+  /**
+   * Largest number of ids bound in a single query.
+   */
+  static final int MAX_SIZE = 1000;
+
+  private IdChunks() {
+  }
+
+  /**
+   * Finds the entities with the given ids, running one query per chunk of at most
+   * {@link #MAX_SIZE} ids.
+   *
+   * @param ids the ids to look up
+   * @param finder the query finding the entities with a chunk of the ids
+   * @param <T> the type of the entities
+   * @return the entities found by all the chunks, in the order they were found
+   */
+  static <T> List<T> findAll(Collection<Long> ids, Function<List<Long>, List<T>> finder) {
+    List<List<Long>> chunks = split(ids);
+    if (chunks.size() == 1) {
+      return finder.apply(chunks.get(0));
+    }
+
+    List<T> found = new ArrayList<>(ids.size());
+    for (List<Long> chunk : chunks) {
+      found.addAll(finder.apply(chunk));
+    }
+    return found;
+  }
+
+  /**
+   * Splits ids into chunks of at most {@link #MAX_SIZE} ids, keeping their order.
+   *
+   * @param ids the ids to split
+   * @return the chunks of the ids, none if there are no ids
+   */
+  static List<List<Long>> split(Collection<Long> ids) {
+    List<Long> idList = List.copyOf(ids);
+    List<List<Long>> chunks = new ArrayList<>();
+    for (int from = 0; from < idList.size(); from += MAX_SIZE) {
+      chunks.add(idList.subList(from, Math.min(idList.size(), from + MAX_SIZE)));
+    }
+    return chunks;
+  }
+}
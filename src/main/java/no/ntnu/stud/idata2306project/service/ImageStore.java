@@ -0,0 +1,42 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Storage for the bytes of images, addressed by their content.
+ *
+ * <p>Every image is stored under the hex encoded SHA-256 digest of its bytes, so storing the same
+ * image twice keeps a single copy, and a stored image never changes. The metadata of an image,
+ * such as which car it belongs to, is kept in the database and refers to the stored bytes by their
+ * digest.
+ */
+public interface ImageStore {
+
+  /**
+   * Store the bytes of an image, unless an image with the same bytes is already stored.
+   *
+   * @param image the bytes of the image
+   * @return the hex encoded SHA-256 digest the image is stored under
+   * @throws IOException if the image could not be stored
+   */
+  String put(byte[] image) throws IOException;
+
+  /**
+   * Check if an image is stored.
+   *
+   * @param contentHash the digest of the image
+   * @return true if the image is stored, false otherwise
+   */
+  boolean contains(String contentHash);
+
+  /**
+   * Read a stored image into a read-only buffer. The buffer may be mapped from storage instead of
+   * being copied to the heap.
+   *
+   * @param contentHash the digest of the image
+   * @return the bytes of the image
+   * @throws IOException if the image is not stored or could not be read
+   */
+  ByteBuffer read(String contentHash) throws IOException;
+}
@@ -0,0 +1,148 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import no.ntnu.stud.idata2306project.exception.TooManyLoginAttemptsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limits the rate of login attempts per account and per client address, using token buckets.
+ *
+ * <p>Every account and every address has a bucket holding up to a minute's worth of attempts,
+ * which is refilled continuously. An attempt first takes a token from the bucket of the address,
+ * and is refused if it is empty. Only then is a token taken from the bucket of the account, so a
+ * client that is out of attempts can not make the limiter track any more accounts. The rates are
+ * set by {@code authentication.rate-limit.account-per-minute} and
+ * {@code authentication.rate-limit.address-per-minute}.
+ *
+ * <p>At most a fixed number of buckets of each kind are tracked. When there are more, the least
+ * recently used bucket is dropped.
+ */
+@Service
+public class LoginRateLimiter {
+
+  private static final long MILLIS_PER_MINUTE = 60_000;
+
+  /**
+   * Number of buckets of each kind tracked before the least recently used one is dropped.
+   */
+  private static final int MAX_TRACKED_BUCKETS = 10_000;
+
+  private final int accountAttemptsPerMinute;
+  private final int addressAttemptsPerMinute;
+
+  private final Map<String, TokenBucket> accountBuckets = newBucketMap();
+  private final Map<String, TokenBucket> addressBuckets = newBucketMap();
+  private long limitedAttempts = 0;
+
+  /**
+   * Creates an instance of LoginRateLimiter.
+   *
+   * @param accountAttemptsPerMinute the number of attempts allowed per account and minute
+   * @param addressAttemptsPerMinute the number of attempts allowed per client address and minute
+   */
+  public LoginRateLimiter(
+      @Value("${authentication.rate-limit.account-per-minute:10}") int accountAttemptsPerMinute,
+      @Value("${authentication.rate-limit.address-per-minute:30}") int addressAttemptsPerMinute) {
+    this.accountAttemptsPerMinute = accountAttemptsPerMinute;
+    this.addressAttemptsPerMinute = addressAttemptsPerMinute;
+  }
+
+  /**
+   * Take a login attempt from the buckets of a client address and an account.
+   *
+   * @param username the username of the account
+   * @param clientAddress the address of the client
+   * @throws TooManyLoginAttemptsException if there are no attempts left for the account or the
+   *     address
+   */
+  public synchronized void acquire(String username, String clientAddress) {
+    long now = System.currentTimeMillis();
+    take(getBucket(addressBuckets, clientAddress, addressAttemptsPerMinute, now));
+
+    String account = username == null ? "" : username.toLowerCase(Locale.ROOT);
+    take(getBucket(accountBuckets, account, accountAttemptsPerMinute, now));
+  }
+
+  /**
+   * Returns the number of login attempts refused so far.
+   *
+   * @return the number of login attempts refused so far
+   */
+  public synchronized long getLimitedAttempts() {
+    return limitedAttempts;
+  }
+
+  /**
+   * Takes a token from a bucket, counting the attempt as refused if there is none.
+   */
+  private void take(TokenBucket bucket) {
+    long waitMillis = bucket.millisUntilToken();
+    if (waitMillis > 0) {
+      limitedAttempts++;
+      throw new TooManyLoginAttemptsException("Too many login attempts",
+          Math.max(1, (waitMillis + 999) / 1000));
+    }
+    bucket.take();
+  }
+
+  private static TokenBucket getBucket(Map<String, TokenBucket> buckets, String key,
+      int attemptsPerMinute, long now) {
+    TokenBucket bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = new TokenBucket(attemptsPerMinute, now);
+      buckets.put(key, bucket);
+    } else {
+      bucket.refill(now);
+    }
+    return bucket;
+  }
+
+  /**
+   * Creates a map of buckets in least recently used order, which drops the least recently used
+   * bucket when it holds too many.
+   */
+  private static Map<String, TokenBucket> newBucketMap() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+        return size() > MAX_TRACKED_BUCKETS;
+      }
+    };
+  }
+
+  /**
+   * Bucket of login attempts, refilled at a fixed rate up to its capacity.
+   */
+  private static final class TokenBucket {
+    private final int capacity;
+    private final double tokensPerMilli;
+    private double tokens;
+    private long refilledAt;
+
+    private TokenBucket(int capacity, long now) {
+      this.capacity = capacity;
+      this.tokensPerMilli = (double) capacity / MILLIS_PER_MINUTE;
+      this.tokens = capacity;
+      this.refilledAt = now;
+    }
+
+    /**
+     * Adds the tokens earned since the last refill.
+     */
+    private void refill(long now) {
+      tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerMilli);
+      refilledAt = now;
+    }
+
+    private long millisUntilToken() {
+      return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMilli);
+    }
+
+    private void take() {
+      tokens -= 1;
+    }
+  }
+}
@@ -1,31 +1,51 @@
 package no.ntnu.stud.idata2306project.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import no.ntnu.stud.idata2306project.dto.CarDto;
+import no.ntnu.stud.idata2306project.dto.OrderBatchResponseDto;
 import no.ntnu.stud.idata2306project.dto.OrderRequestDto;
 import no.ntnu.stud.idata2306project.dto.OrderResponseDto;
+import no.ntnu.stud.idata2306project.enums.OrderBatchStatus;
 import no.ntnu.stud.idata2306project.exception.CarNotFoundException;
 import no.ntnu.stud.idata2306project.exception.InvalidDatesException;
 import no.ntnu.stud.idata2306project.exception.OrderNotFoundException;
 import no.ntnu.stud.idata2306project.exception.UnauthorizedException;
+import no.ntnu.stud.idata2306project.exception.UserNotFoundException;
 import no.ntnu.stud.idata2306project.model.car.Addon;
 import no.ntnu.stud.idata2306project.model.car.Car;
 import no.ntnu.stud.idata2306project.model.company.Company;
 import no.ntnu.stud.idata2306project.model.order.Order;
 import no.ntnu.stud.idata2306project.model.user.User;
+import no.ntnu.stud.idata2306project.repository.BookedPeriod;
 import no.ntnu.stud.idata2306project.repository.OrderRepository;
 import no.ntnu.stud.idata2306project.security.AccessUserDetails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service class for managing orders.
+ *
+ * <p>Orders of the same car are booked one at a time. A booking first takes the in-process lock of
+ * the car from {@link CarBookingLocks}, then locks the row of the car in the database, and checks
+ * the orders of the car in the database before saving, all in one transaction. Bookings of the
+ * same car therefore never overlap, even when several instances of the application share the
+ * database. Bookings of different cars do not wait for each other. A batch of bookings locks all
+ * its cars at once, see {@link #addOrders}.
  */
 @Service
 public class OrderService {
@@ -35,20 +55,31 @@ public class OrderService {
   private final UserService userService;
   private final CarService carService;
   private final AddonService addonService;
+  private final CarAvailabilityIndex carAvailabilityIndex;
+  private final CarBookingLocks carBookingLocks;
+  private final TransactionTemplate transactionTemplate;
   private final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
   /**
    * Creates an instance of OrderService.
    *
    * @param orderRepository the order repository
+   * @param carAvailabilityIndex the index of booked periods per car
+   * @param carBookingLocks the in-process locks of the bookings of each car
+   * @param transactionTemplate the template running each booking in a transaction
    */
   public OrderService(OrderRepository orderRepository, CompanyService companyService,
-      UserService userService, CarService carService, AddonService addonService) {
+      UserService userService, CarService carService, AddonService addonService,
+      CarAvailabilityIndex carAvailabilityIndex, CarBookingLocks carBookingLocks,
+      TransactionTemplate transactionTemplate) {
     this.orderRepository = orderRepository;
     this.companyService = companyService;
     this.userService = userService;
     this.carService = carService;
     this.addonService = addonService;
+    this.carAvailabilityIndex = carAvailabilityIndex;
+    this.carBookingLocks = carBookingLocks;
+    this.transactionTemplate = transactionTemplate;
   }
 
   /**
@@ -60,7 +91,7 @@ public class OrderService {
    */
   public boolean isAvailableFrom(Long id, LocalDate startDate) {
     logger.trace("Checking if order with id: {} is available from date: {}", id, startDate);
-    return orderRepository.isAvailableFrom(id, startDate);
+    return carAvailabilityIndex.isAvailableFrom(id, startDate);
   }
 
   /**
@@ -74,7 +105,23 @@ public class OrderService {
   public boolean isAvailableBetween(Long carid, LocalDate startDate, LocalDate endDate) {
     logger.trace("Checking if car with id: {} is available between dates: {} and {}", carid,
         startDate, endDate);
-    return orderRepository.isAvailableBetween(carid, startDate, endDate);
+    return carAvailabilityIndex.isAvailableBetween(carid, startDate, endDate);
+  }
+
+  /**
+   * Compare the availability index with the orders in the database, and rebuild the index if
+   * they differ.
+   *
+   * @return the ids of the cars whose bookings in the index differed from the database
+   */
+  public Set<Long> verifyAvailabilityIndex() {
+    Set<Long> inconsistentCarIds = carAvailabilityIndex.findInconsistentCarIds();
+    if (!inconsistentCarIds.isEmpty()) {
+      logger.warn("Availability index differs from database for cars {}, rebuilding",
+          inconsistentCarIds);
+      carAvailabilityIndex.rebuild();
+    }
+    return inconsistentCarIds;
   }
 
   /**
@@ -100,16 +147,6 @@ public class OrderService {
     return getOrderResponseDtos(orderRepository.findOrdersByUserId(userId));
   }
 
-  /**
-   * Save an order.
-   *
-   * @param order the order to save
-   */
-  private void saveOrder(Order order) {
-    logger.trace("Saving order: {}", order);
-    orderRepository.save(order);
-  }
-
   /**
    * Get an order by its id.
    *
@@ -132,6 +169,7 @@ public class OrderService {
   public void deleteOrderById(Long id) throws OrderNotFoundException {
     logger.trace("Deleting order with id: {}", id);
     orderRepository.deleteById(id);
+    carAvailabilityIndex.remove(id);
   }
 
   /**
@@ -161,8 +199,7 @@ public class OrderService {
     if (company == null) {
       throw new IllegalArgumentException("Company with id " + companyId + " not found");
     }
-    boolean userBelongsToCompany = company.getUsers().stream()
-        .anyMatch(user -> Objects.equals(user.getId(), userId));
+    boolean userBelongsToCompany = companyService.isUserInCompany(userId, companyId);
     if (!userBelongsToCompany) {
       throw new UnauthorizedException(
           "User with id " + userId + " does not belong to company with id " + companyId);
@@ -173,49 +210,228 @@ public class OrderService {
   /**
    * Adds an order.
    *
+   * <p>Requests for dates the availability index already has booked are rejected without locking
+   * anything. Otherwise the car is locked and its orders are checked again in the database, as
+   * another booking may have been made since the index was read.
+   *
    * @param userId  the id of the user
    * @param orderDto the order to add
    * @return the id of the order that was added
+   * @throws CarNotFoundException if the car does not exist
+   * @throws InvalidDatesException if the dates are invalid, or the car is not available
    */
   public Long addOrder(long userId, OrderRequestDto orderDto) {
     logger.trace("Adding order for user with id: {}", userId);
-    User user = this.userService.getUserById(userId);
-    Optional<Car> optionalCar = this.carService.getCarById(orderDto.getCarId());
-
-    if (optionalCar.isEmpty()) {
-      throw new CarNotFoundException("Car not found with id: " + orderDto.getCarId());
+    long carId = orderDto.getCarId();
+    LocalDate startDate = orderDto.getStartDate();
+    LocalDate endDate = orderDto.getEndDate();
+    if (endDate.toEpochDay() - startDate.toEpochDay() + 1 <= 0) {
+      throw new InvalidDatesException("Start date is after end date");
     }
-
-    if (!isAvailableBetween(orderDto.getCarId(), orderDto.getStartDate(), orderDto.getEndDate())) {
+    if (!isAvailableBetween(carId, startDate, endDate)) {
       throw new InvalidDatesException("Car is not available between the given dates");
     }
 
+    User user = this.userService.getUserById(userId);
     List<Addon> addons = orderDto.getAddonIds().stream()
         .map((Long addonId) -> {
           Optional<Addon> optionalAddon = this.addonService.findById(addonId);
           return optionalAddon.orElse(null);
         }).toList();
 
+    Order order = carBookingLocks.withLock(carId, () -> {
+      Order booked = transactionTemplate.execute(status -> book(user, carId, orderDto, addons));
+      // Added while still holding the lock, so the next booker of the car sees the order
+      carAvailabilityIndex.add(booked);
+      return booked;
+    });
+    return order.getOrderId();
+  }
+
+  /**
+   * Locks the car, checks that it is still available in the database, and saves the order. Must
+   * be called in a transaction.
+   */
+  private Order book(User user, long carId, OrderRequestDto orderDto, List<Addon> addons) {
+    Car car = carService.getCarForBooking(carId)
+        .orElseThrow(() -> new CarNotFoundException("Car not found with id: " + carId));
+    if (!orderRepository.isAvailableBetween(carId, orderDto.getStartDate(),
+        orderDto.getEndDate())) {
+      throw new InvalidDatesException("Car is not available between the given dates");
+    }
+
+    Order order = newOrder(user, car, orderDto, addons);
+    logger.trace("Saving order: {}", order);
+    return orderRepository.save(order);
+  }
+
+  /**
+   * Adds a batch of orders for a user.
+   *
+   * <p>The addons of all orders are found in one query, and orders for dates the availability
+   * index already has booked are rejected without locking anything. The cars of the remaining
+   * orders are then locked together, in-process and in the database, and their orders are read
+   * in one query. Each order is checked against the orders in the database and the earlier orders
+   * of the batch, and the orders that can be booked are priced and saved together, so their
+   * inserts are sent to the database in JDBC batches.
+   *
+   * <p>An atomic batch books every order or none of them. Otherwise every order that can be booked
+   * is booked, and the others are reported with the reason they were not.
+   *
+   * @param userId the id of the user
+   * @param orderDtos the orders to add
+   * @param atomic true to book every order or none of them
+   * @return the outcome of each order, in the order they were given
+   * @throws UserNotFoundException if the user does not exist
+   */
+  public OrderBatchResponseDto addOrders(long userId, List<OrderRequestDto> orderDtos,
+      boolean atomic) {
+    logger.trace("Adding batch of {} orders for user with id: {}", orderDtos.size(), userId);
+    Set<Long> addonIds = orderDtos.stream()
+        .flatMap(orderDto -> addonIdsOf(orderDto).stream())
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    Map<Long, Addon> addonsById = addonService.findAllById(addonIds).stream()
+        .collect(Collectors.toMap(Addon::getId, Function.identity()));
+
+    // A null status means the order may still be booked
+    OrderBatchStatus[] statuses = new OrderBatchStatus[orderDtos.size()];
+    Set<Long> carIds = new HashSet<>();
+    for (int i = 0; i < statuses.length; i++) {
+      statuses[i] = checkOrder(orderDtos.get(i), addonsById);
+      if (statuses[i] == null) {
+        carIds.add(orderDtos.get(i).getCarId());
+      }
+    }
+
+    Order[] orders = new Order[statuses.length];
+    if (!carIds.isEmpty() && !(atomic && hasFailed(statuses))) {
+      User user = this.userService.getUserById(userId);
+      carBookingLocks.withLocks(carIds, () -> {
+        transactionTemplate.executeWithoutResult(status ->
+            bookAll(user, orderDtos, addonsById, carIds, atomic, statuses, orders));
+        // Added while still holding the locks, so the next booker of the cars sees the orders
+        Arrays.stream(orders).filter(Objects::nonNull).forEach(carAvailabilityIndex::add);
+        return null;
+      });
+    }
+
+    List<OrderBatchResponseDto.Item> items = new ArrayList<>(statuses.length);
+    for (int i = 0; i < statuses.length; i++) {
+      Order order = orders[i];
+      items.add(new OrderBatchResponseDto.Item(i, orderDtos.get(i).getCarId(),
+          statuses[i] == null ? OrderBatchStatus.NOT_BOOKED : statuses[i],
+          order == null ? null : order.getOrderId(),
+          order == null ? null : order.getPrice()));
+    }
+    return new OrderBatchResponseDto(atomic, items);
+  }
+
+  /**
+   * Checks an order of a batch without locking anything.
+   *
+   * @return the reason the order can not be booked, or null if it may be booked
+   */
+  private OrderBatchStatus checkOrder(OrderRequestDto orderDto, Map<Long, Addon> addonsById) {
+    LocalDate startDate = orderDto.getStartDate();
+    LocalDate endDate = orderDto.getEndDate();
+    if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+      return OrderBatchStatus.INVALID_DATES;
+    }
+    if (!addonsById.keySet().containsAll(addonIdsOf(orderDto))) {
+      return OrderBatchStatus.ADDON_NOT_FOUND;
+    }
+    if (!isAvailableBetween(orderDto.getCarId(), startDate, endDate)) {
+      return OrderBatchStatus.UNAVAILABLE;
+    }
+    return null;
+  }
+
+  /**
+   * Locks the cars of a batch, checks the orders that may still be booked against the database
+   * and each other, and saves the orders that can be booked. An atomic batch saves nothing if any
+   * order can not be booked. Must be called in a transaction.
+   */
+  private void bookAll(User user, List<OrderRequestDto> orderDtos, Map<Long, Addon> addonsById,
+      Set<Long> carIds, boolean atomic, OrderBatchStatus[] statuses, Order[] orders) {
+    Map<Long, Car> carsById = carService.getCarsForBooking(carIds).stream()
+        .collect(Collectors.toMap(Car::getId, Function.identity()));
+    Map<Long, List<BookedPeriod>> periodsByCarId = orderRepository
+        .findBookedPeriodsByCarIdIn(carIds).stream()
+        .collect(Collectors.groupingBy(BookedPeriod::getCarId));
+
+    List<Integer> accepted = new ArrayList<>();
+    for (int i = 0; i < statuses.length; i++) {
+      if (statuses[i] != null) {
+        continue;
+      }
+      OrderRequestDto orderDto = orderDtos.get(i);
+      long carId = orderDto.getCarId();
+      boolean booked = periodsByCarId.getOrDefault(carId, List.of()).stream()
+          .anyMatch(period -> overlaps(orderDto, period.getStartDate(), period.getEndDate()));
+      boolean bookedInBatch = accepted.stream()
+          .map(orderDtos::get)
+          .anyMatch(other -> other.getCarId() == carId
+              && overlaps(orderDto, other.getStartDate(), other.getEndDate()));
+      if (!carsById.containsKey(carId)) {
+        statuses[i] = OrderBatchStatus.CAR_NOT_FOUND;
+      } else if (booked || bookedInBatch) {
+        statuses[i] = OrderBatchStatus.UNAVAILABLE;
+      } else {
+        accepted.add(i);
+      }
+    }
+    if (atomic && hasFailed(statuses)) {
+      return;
+    }
+
+    for (int i : accepted) {
+      OrderRequestDto orderDto = orderDtos.get(i);
+      List<Addon> addons = addonIdsOf(orderDto).stream().map(addonsById::get).toList();
+      orders[i] = newOrder(user, carsById.get(orderDto.getCarId()), orderDto, addons);
+    }
+    logger.trace("Saving {} orders", accepted.size());
+    orderRepository.saveAll(accepted.stream().map(i -> orders[i]).toList());
+    accepted.forEach(i -> statuses[i] = OrderBatchStatus.BOOKED);
+  }
+
+  /**
+   * Creates an order, priced by the number of days of the order and the price of its addons.
+   */
+  private static Order newOrder(User user, Car car, OrderRequestDto orderDto, List<Addon> addons) {
     Order order = new Order();
     order.setUser(user);
-    order.setCar(optionalCar.get());
+    order.setCar(car);
     order.setStartDate(orderDto.getStartDate());
     order.setEndDate(orderDto.getEndDate());
     order.setAddons(addons);
 
     long numberOfDays = order.getEndDate().toEpochDay() - order.getStartDate().toEpochDay() + 1;
-    if (numberOfDays <= 0) {
-      throw new InvalidDatesException("Start date is after end date");
-    }
-    long carPrice = order.getCar().getPricePerDay() * numberOfDays;
+    long carPrice = car.getPricePerDay() * numberOfDays;
 
     long addonPrices = addons.stream()
         .mapToLong(Addon::getPrice)
         .sum();
 
     order.setPrice(carPrice + addonPrices);
-    saveOrder(order);
-    return order.getOrderId();
+    return order;
+  }
+
+  /**
+   * Checks if an order overlaps a period. Like {@link OrderRepository#isAvailableBetween}, an
+   * order and a period occupy every date from their start date to their end date, both included.
+   */
+  private static boolean overlaps(OrderRequestDto orderDto, LocalDate startDate,
+      LocalDate endDate) {
+    return !orderDto.getStartDate().isAfter(endDate) && !orderDto.getEndDate().isBefore(startDate);
+  }
+
+  private static boolean hasFailed(OrderBatchStatus[] statuses) {
+    return Arrays.stream(statuses).anyMatch(Objects::nonNull);
+  }
+
+  private static List<Long> addonIdsOf(OrderRequestDto orderDto) {
+    return orderDto.getAddonIds() == null ? List.of() : orderDto.getAddonIds();
   }
 
   /**
@@ -240,8 +456,10 @@ public class OrderService {
   }
 
   private List<OrderResponseDto> getOrderResponseDtos(List<Order> orders) {
-    return orders.stream()
-        .map(order -> new OrderResponseDto(order, carService.getCarDtoFromCar(order.getCar())))
+    List<CarDto> carDtos = carService.getCarDtosFromCars(
+        orders.stream().map(Order::getCar).toList());
+    return IntStream.range(0, orders.size())
+        .mapToObj(i -> new OrderResponseDto(orders.get(i), carDtos.get(i)))
         .toList();
   }
 
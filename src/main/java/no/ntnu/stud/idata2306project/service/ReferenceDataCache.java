@@ -0,0 +1,130 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import no.ntnu.stud.idata2306project.dto.ReferenceDataDto;
+import no.ntnu.stud.idata2306project.model.car.Addon;
+import no.ntnu.stud.idata2306project.model.car.CarBrand;
+import no.ntnu.stud.idata2306project.model.car.CarModel;
+import no.ntnu.stud.idata2306project.model.car.Feature;
+import no.ntnu.stud.idata2306project.model.car.FuelType;
+import no.ntnu.stud.idata2306project.model.car.TransmissionType;
+import no.ntnu.stud.idata2306project.repository.AddonRepository;
+import no.ntnu.stud.idata2306project.repository.CarBrandRepository;
+import no.ntnu.stud.idata2306project.repository.CarModelRepository;
+import no.ntnu.stud.idata2306project.repository.FeatureRepository;
+import no.ntnu.stud.idata2306project.repository.FuelTypeRepository;
+import no.ntnu.stud.idata2306project.repository.TransmissionTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read-through cache of the reference data of the car catalog.
+ *
+ * <p>The brands, models, fuel types, transmission types, addons and features, and which brands
+ * and fuel types are used in cars, change far less often than they are read. They are loaded
+ * together on first use and kept until {@link #invalidate()} is called, which also moves the cache
+ * to a new version. The version includes the time the application started, so versions from
+ * before a restart are never reused.
+ *
+ * <p>{@link CarService} invalidates the cache when a car is saved or deleted, as that may change
+ * which brands and fuel types are in use. Reference data written directly to the repositories is
+ * only picked up after an explicit {@link #invalidate()}.
+ */
+@Service
+public class ReferenceDataCache {
+
+  private final CarBrandRepository carBrandRepository;
+  private final CarModelRepository carModelRepository;
+  private final FuelTypeRepository fuelTypeRepository;
+  private final TransmissionTypeRepository transmissionTypeRepository;
+  private final AddonRepository addonRepository;
+  private final FeatureRepository featureRepository;
+  private final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+  private final String startedAt = Long.toString(System.currentTimeMillis(), 36);
+  private long version = 1;
+  private volatile ReferenceDataDto referenceData = null;
+
+  /**
+   * Creates an instance of ReferenceDataCache.
+   *
+   * @param carBrandRepository the car brand repository
+   * @param carModelRepository the car model repository
+   * @param fuelTypeRepository the fuel type repository
+   * @param transmissionTypeRepository the transmission type repository
+   * @param addonRepository the addon repository
+   * @param featureRepository the feature repository
+   */
+  public ReferenceDataCache(CarBrandRepository carBrandRepository,
+      CarModelRepository carModelRepository, FuelTypeRepository fuelTypeRepository,
+      TransmissionTypeRepository transmissionTypeRepository, AddonRepository addonRepository,
+      FeatureRepository featureRepository) {
+    this.carBrandRepository = carBrandRepository;
+    this.carModelRepository = carModelRepository;
+    this.fuelTypeRepository = fuelTypeRepository;
+    this.transmissionTypeRepository = transmissionTypeRepository;
+    this.addonRepository = addonRepository;
+    this.featureRepository = featureRepository;
+  }
+
+  /**
+   * Get the reference data, loading it if it is not cached.
+   *
+   * @return the current reference data
+   */
+  public ReferenceDataDto getReferenceData() {
+    ReferenceDataDto current = referenceData;
+    if (current == null) {
+      synchronized (this) {
+        if (referenceData == null) {
+          referenceData = load();
+        }
+        current = referenceData;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the current version of the reference data, without loading it.
+   *
+   * @return the current version of the reference data
+   */
+  public synchronized String getVersion() {
+    return startedAt + "-" + version;
+  }
+
+  /**
+   * Forget the cached reference data, and move to a new version.
+   */
+  public synchronized void invalidate() {
+    version++;
+    referenceData = null;
+    logger.debug("Reference data invalidated, now at version {}", getVersion());
+  }
+
+  private ReferenceDataDto load() {
+    ReferenceDataDto loaded = new ReferenceDataDto(getVersion(),
+        sortedById(carBrandRepository.findAll(), CarBrand::getId),
+        sortedById(carBrandRepository.findAllInUseOnCars(), CarBrand::getId),
+        sortedById(carModelRepository.findAll(), CarModel::getId),
+        sortedById(fuelTypeRepository.findAll(), FuelType::getId),
+        sortedById(fuelTypeRepository.getFuelTypesUsedInCars(), FuelType::getId),
+        sortedById(transmissionTypeRepository.findAll(), TransmissionType::getId),
+        sortedById(addonRepository.findAll(), Addon::getId),
+        sortedById(featureRepository.findAll(), Feature::getId));
+    logger.info("Reference data loaded at version {}", loaded.getVersion());
+    return loaded;
+  }
+
+  private static <T> List<T> sortedById(Collection<T> values, ToLongFunction<T> id) {
+    List<T> sorted = new ArrayList<>(values);
+    sorted.sort(Comparator.comparingLong(id));
+    return List.copyOf(sorted);
+  }
+}
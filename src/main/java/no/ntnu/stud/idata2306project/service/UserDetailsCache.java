@@ -0,0 +1,123 @@
+package no.ntnu.stud.idata2306project.service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import no.ntnu.stud.idata2306project.config.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Short-lived cache of the user details of authenticated users, and a record of when users were
+ * last changed in a way that affects their authentication.
+ *
+ * <p>Tokens carry the id and roles of their user, so most requests are authenticated without
+ * loading the user. Those claims are only trusted if the user has not changed since the token was
+ * issued. Otherwise, and for tokens without the claims, the user details are loaded through this
+ * cache. Cached user details are kept for {@code security.user-details-cache.ttl-ms}, and at most
+ * {@code security.user-details-cache.max-entries} users are cached at once.
+ *
+ * <p>{@link UserService} calls {@link #invalidate(long, String)} when the roles or email of a user
+ * change, or when a user is deleted.
+ */
+@Service
+public class UserDetailsCache {
+
+  private final UserDetailsServiceImpl userDetailsService;
+  private final long timeToLiveMillis;
+  private final int maxEntries;
+  private final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+  private final Map<String, CachedUserDetails> userDetailsByEmail = new ConcurrentHashMap<>();
+  private final Map<Long, Long> changedAtByUserId = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an instance of UserDetailsCache.
+   *
+   * @param userDetailsService the service loading user details from the database
+   * @param timeToLiveMillis how long user details are cached, in milliseconds
+   * @param maxEntries the largest number of users to cache the details of
+   */
+  public UserDetailsCache(UserDetailsServiceImpl userDetailsService,
+      @Value("${security.user-details-cache.ttl-ms:30000}") long timeToLiveMillis,
+      @Value("${security.user-details-cache.max-entries:10000}") int maxEntries) {
+    this.userDetailsService = userDetailsService;
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Get the details of a user, loading them if they are not cached or have expired.
+   *
+   * @param email the email of the user
+   * @return the user details
+   * @throws UsernameNotFoundException if the user is not found
+   */
+  public UserDetails getUserDetails(String email) throws UsernameNotFoundException {
+    long now = System.currentTimeMillis();
+    CachedUserDetails cached = userDetailsByEmail.get(email);
+    if (cached != null && cached.expiresAt > now) {
+      return cached.userDetails;
+    }
+
+    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+    if (userDetailsByEmail.size() >= maxEntries) {
+      userDetailsByEmail.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+    if (userDetailsByEmail.size() < maxEntries) {
+      userDetailsByEmail.put(email, new CachedUserDetails(userDetails, now + timeToLiveMillis));
+    }
+    return userDetails;
+  }
+
+  /**
+   * Check if a user is unchanged since a token was issued, so the claims of the token can be
+   * trusted.
+   *
+   * @param userId the id of the user
+   * @param issuedAt when the token was issued, or null if it is not known
+   * @return true if the user has not changed since the token was issued, false otherwise
+   */
+  public boolean isUnchangedSince(long userId, Date issuedAt) {
+    if (issuedAt == null) {
+      return false;
+    }
+    Long changedAt = changedAtByUserId.get(userId);
+    // Tokens are issued with second precision, so a token issued in the same second as the change
+    // is not trusted
+    return changedAt == null || issuedAt.getTime() > changedAt;
+  }
+
+  /**
+   * Forget the cached details of a user, and distrust the claims of tokens issued before now.
+   *
+   * @param userId the id of the user that changed
+   * @param email the email the user had before the change
+   */
+  public void invalidate(long userId, String email) {
+    long now = System.currentTimeMillis();
+    if (email != null) {
+      userDetailsByEmail.remove(email);
+    }
+    changedAtByUserId.put(userId, now);
+
+    // Tokens issued before the oldest changes have expired, so the changes no longer matter
+    long oldestRelevant = now - JwtUtil.TOKEN_LIFETIME.toMillis();
+    changedAtByUserId.values().removeIf(changedAt -> changedAt < oldestRelevant);
+    logger.debug("User details of user with id {} invalidated", userId);
+  }
+
+  private static final class CachedUserDetails {
+    private final UserDetails userDetails;
+    private final long expiresAt;
+
+    private CachedUserDetails(UserDetails userDetails, long expiresAt) {
+      this.userDetails = userDetails;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -45,15 +45,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
    */
   @Override
   public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-    logger.info("Loading user by email: {}", email);
-    Optional<User> user = userRepository.findByEmail(email);
+    logger.debug("Loading user by email: {}", email);
+    Optional<User> user = userRepository.findWithRolesByEmail(email);
     
     if (user.isEmpty()) {
       logger.error("User not found: {}", email);
       throw new UsernameNotFoundException("User not found");
     }
 
-    logger.info("User found: {}", email);
+    logger.debug("User found: {}", email);
     return new AccessUserDetails(user.get());
   }
 }
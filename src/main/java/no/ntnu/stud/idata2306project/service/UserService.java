@@ -22,6 +22,7 @@ import no.ntnu.stud.idata2306project.repository.UserRepository;
 import no.ntnu.stud.idata2306project.security.AccessUserDetails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -37,6 +38,7 @@ public class UserService {
   RoleRepository roleRepository;
   CarService carService;
   PasswordEncoder passwordEncoder;
+  UserDetailsCache userDetailsCache;
 
   Logger logger = LoggerFactory.getLogger(UserService.class);
 
@@ -46,6 +48,7 @@ public class UserService {
    * @param userRepository  the user repository
    * @param roleRepository  the role repository
    * @param passwordEncoder the password encoder
+   * @param userDetailsCache the cache of the user details of authenticated users
    */
   public UserService(
       UserRepository userRepository,
@@ -53,22 +56,24 @@ public class UserService {
       PasswordEncoder passwordEncoder,
       PhoneNumberRepository phoneNumberRepository,
       AddressRepository addressRepository,
-      CarService carService) {
+      CarService carService,
+      UserDetailsCache userDetailsCache) {
     this.phoneNumberRepository = phoneNumberRepository;
     this.addressRepository = addressRepository;
     this.passwordEncoder = passwordEncoder;
     this.userRepository = userRepository;
     this.roleRepository = roleRepository;
     this.carService = carService;
+    this.userDetailsCache = userDetailsCache;
   }
 
   /**
-   * Get all users.
+   * Get all users, together with their roles.
    *
    * @return a list of all users
    */
   public List<User> getUsers() {
-    return userRepository.findAll();
+    return userRepository.findAllWithRolesBy();
   }
 
   /**
@@ -87,6 +92,18 @@ public class UserService {
     return user.get();
   }
 
+  /**
+   * Get a user by id, together with their roles.
+   *
+   * @param id the id of the user
+   * @return the user with the given id
+   * @throws UserNotFoundException if the user is not found
+   */
+  public User getUserWithRolesById(long id) throws UserNotFoundException {
+    return userRepository.findWithRolesById(id)
+        .orElseThrow(() -> new UserNotFoundException("User with id " + id + " not found"));
+  }
+
   /**
    * Add a user.
    *
@@ -126,10 +143,7 @@ public class UserService {
    * @return true if the user is an admin, false otherwise
    */
   public boolean isAdmin(long userId) {
-    Optional<User> user = userRepository.findById(userId);
-    return user.map(value -> value.getRoles().stream()
-            .anyMatch(role -> role.getName().equals("ADMIN")))
-        .orElse(false);
+    return userRepository.existsByIdAndRoles_Name(userId, "ADMIN");
   }
 
   /**
@@ -181,6 +195,7 @@ public class UserService {
     }
 
     userRepository.delete(user.get());
+    userDetailsCache.invalidate(id, user.get().getEmail());
   }
 
   /**
@@ -190,30 +205,29 @@ public class UserService {
    * @param cars the cars to add
    */
   public void addFavoritesToUser(User user, Car... cars) {
-    user.addFavorites(cars);
-    userRepository.save(user);
-
+    for (Car car : cars) {
+      addFavorite(user.getId(), car.getId());
+    }
   }
 
   /**
-   * Set a car as favorite for a user.
+   * Set a car as favorite for a user. The favorites of the user are changed by car id, without
+   * loading them.
    *
-   * @param user       the user
+   * @param userId     the id of the user
    * @param carId      the id of the car
    * @param isFavorite true if the car is a favorite, false otherwise
    * @return true if the car is a favorite, false otherwise
    */
-  public boolean setUserFavorite(User user, Long carId, boolean isFavorite) {
+  public boolean setUserFavorite(long userId, Long carId, boolean isFavorite) {
     boolean result;
     Optional<Car> carOptional = carService.getCarById(carId);
     if (carOptional.isPresent()) {
-      Car car = carOptional.get();
       if (isFavorite) {
-        user.addFavorite(car);
+        addFavorite(userId, carId);
       } else {
-        user.removeFavorite(car);
+        userRepository.removeFavorite(userId, carId);
       }
-      userRepository.save(user);
       result = isFavorite;
     } else {
       logger.warn("Car with id {} not found", carId);
@@ -222,6 +236,18 @@ public class UserService {
     return result;
   }
 
+  /**
+   * Add a car to the favorites of a user. A car made a favorite by a concurrent request is
+   * already a favorite, so the conflict is ignored.
+   */
+  private void addFavorite(long userId, long carId) {
+    try {
+      userRepository.addFavorite(userId, carId);
+    } catch (DataIntegrityViolationException e) {
+      logger.debug("Car with id {} is already a favorite of user with id {}", carId, userId);
+    }
+  }
+
   /**
    * Returns user favorites within a list.
    *
@@ -229,11 +255,7 @@ public class UserService {
    * @param cars   the list of cars
    */
   public List<CarDto> getUserFavoritesAmongList(long userId, List<Car> cars) {
-    User user = getUserById(userId);
-    Set<Car> favorites = user.getFavorites();
-    List<Long> favoriteIds = favorites.stream()
-        .map(Car::getId)
-        .toList();
+    Set<Long> favoriteIds = userRepository.findFavoriteCarIds(userId);
     Set<Car> favoritesSet = new HashSet<>();
     for (Car car : cars) {
       if (favoriteIds.contains(car.getId())) {
@@ -244,8 +266,14 @@ public class UserService {
     return carService.getCarDtosFromCars(List.copyOf(favoritesSet));
   }
 
-  public List<CarDto> getUserFavorites(User user) {
-    return this.carService.getCarDtosFromCars(user.getFavorites().stream().toList());
+  /**
+   * Returns the favorites of a user.
+   *
+   * @param userId the id of the user
+   * @return the favorite cars of the user, sorted by id
+   */
+  public List<CarDto> getUserFavorites(long userId) {
+    return this.carService.getCarDtosFromCars(carService.getFavoriteCarsOfUser(userId));
   }
 
   /**
@@ -261,6 +289,8 @@ public class UserService {
     Optional<User> userOptional = userRepository.findById(userid);
     if (userOptional.isPresent()) {
       User user = userOptional.get();
+      String previousEmail = user.getEmail();
+      boolean authenticationChanged = false;
 
       if (userDto.getFirstName() != null && !userDto.getFirstName().isEmpty()) {
         user.setFirstname(userDto.getFirstName());
@@ -269,6 +299,7 @@ public class UserService {
         user.setLastName(userDto.getLastName());
       }
       if (userDto.getEmail() != null && !userDto.getEmail().isEmpty()) {
+        authenticationChanged |= !userDto.getEmail().equals(previousEmail);
         user.setEmail(userDto.getEmail());
       }
       if (userDto.getDateOfBirth() != null) {
@@ -320,8 +351,12 @@ public class UserService {
         }
 
         user.setRoles(roles);
+        authenticationChanged = true;
       }
       userRepository.save(user);
+      if (authenticationChanged) {
+        userDetailsCache.invalidate(user.getId(), previousEmail);
+      }
       logger.info("User with id {} updated", user.getId());
     } else {
       throw new UserNotFoundException("User with id " + userid + " not found");
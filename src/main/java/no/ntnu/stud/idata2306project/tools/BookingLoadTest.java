@@ -0,0 +1,181 @@
+package no.ntnu.stud.idata2306project.tools;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.ntnu.stud.idata2306project.dto.OrderRequestDto;
+import no.ntnu.stud.idata2306project.exception.InvalidDatesException;
+import no.ntnu.stud.idata2306project.model.user.User;
+import no.ntnu.stud.idata2306project.repository.BookedPeriod;
+import no.ntnu.stud.idata2306project.repository.OrderRepository;
+import no.ntnu.stud.idata2306project.repository.UserRepository;
+import no.ntnu.stud.idata2306project.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Load test of the booking path, checking that concurrent bookings of a hot car never overlap.
+ *
+ * <p>Runs when the application is ready if {@code booking.load-test.enabled} is true. Starts
+ * {@code booking.load-test.bookers} threads at once, each booking car
+ * {@code booking.load-test.car-id} through {@link OrderService#addOrder} for a random period of at
+ * most {@code booking.load-test.max-days} days, including single days. All periods fall within the same
+ * {@code booking.load-test.window-days} days, a year from now, so most bookers compete for the
+ * same dates. Afterwards the orders of the car are read back from the database and checked for
+ * overlaps, and the availability index is compared with the database.
+ *
+ * <p>The orders made by the test are kept, so it should be run against a database that can be
+ * thrown away.
+ */
+@Component
+public class BookingLoadTest implements ApplicationListener<ApplicationReadyEvent> {
+
+  private final OrderService orderService;
+  private final OrderRepository orderRepository;
+  private final UserRepository userRepository;
+  private final boolean enabled;
+  private final int bookers;
+  private final long carId;
+  private final int windowDays;
+  private final int maxDays;
+  private final Logger logger = LoggerFactory.getLogger(BookingLoadTest.class);
+
+  /**
+   * Creates an instance of BookingLoadTest.
+   *
+   * @param orderService the order service booking the car
+   * @param orderRepository the order repository, read to check for overlaps
+   * @param userRepository the user repository, to find a user to book as
+   * @param enabled true to run the load test when the application is ready
+   * @param bookers the number of concurrent bookers
+   * @param carId the id of the car to book
+   * @param windowDays the number of days all bookings fall within
+   * @param maxDays the largest number of days of each booking
+   */
+  public BookingLoadTest(OrderService orderService, OrderRepository orderRepository,
+      UserRepository userRepository,
+      @Value("${booking.load-test.enabled:false}") boolean enabled,
+      @Value("${booking.load-test.bookers:200}") int bookers,
+      @Value("${booking.load-test.car-id:1}") long carId,
+      @Value("${booking.load-test.window-days:30}") int windowDays,
+      @Value("${booking.load-test.max-days:3}") int maxDays) {
+    this.orderService = orderService;
+    this.orderRepository = orderRepository;
+    this.userRepository = userRepository;
+    this.enabled = enabled;
+    this.bookers = bookers;
+    this.carId = carId;
+    this.windowDays = windowDays;
+    this.maxDays = maxDays;
+  }
+
+  @Override
+  public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+    if (enabled) {
+      run();
+    }
+  }
+
+  /**
+   * Book the car from all bookers at once, and check the orders of the car for overlaps.
+   *
+   * @return the number of orders of the car overlapping an earlier order
+   */
+  public int run() {
+    List<User> users = userRepository.findAll(PageRequest.of(0, 1)).getContent();
+    if (users.isEmpty()) {
+      logger.warn("Booking load test skipped, there are no users to book as");
+      return 0;
+    }
+    long userId = users.get(0).getId();
+    LocalDate windowStart = LocalDate.now().plusYears(1);
+    logger.info("Booking load test: {} bookers booking car {} within {} days from {}",
+        bookers, carId, windowDays, windowStart);
+
+    AtomicInteger booked = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    long startedAt;
+    try (ExecutorService executor = Executors.newFixedThreadPool(bookers)) {
+      for (int i = 0; i < bookers; i++) {
+        executor.execute(() -> {
+          OrderRequestDto order = randomOrder(windowStart);
+          try {
+            start.await();
+            orderService.addOrder(userId, order);
+            booked.incrementAndGet();
+          } catch (InvalidDatesException e) {
+            rejected.incrementAndGet();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+          } catch (RuntimeException e) {
+            logger.error("Booking failed: {}", e.getMessage());
+            failed.incrementAndGet();
+          }
+        });
+      }
+      startedAt = System.nanoTime();
+      start.countDown();
+    }
+    long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+    int overlaps = countOverlaps();
+    Set<Long> inconsistentCarIds = orderService.verifyAvailabilityIndex();
+    logger.info("Booking load test: {} booked, {} rejected, {} failed in {} ms, "
+            + "{} overlapping orders, availability index {}",
+        booked.get(), rejected.get(), failed.get(), elapsedMillis, overlaps,
+        inconsistentCarIds.isEmpty() ? "consistent" : "inconsistent for " + inconsistentCarIds);
+    if (overlaps > 0) {
+      logger.error("Booking load test found {} overlapping orders of car {}", overlaps, carId);
+    }
+    return overlaps;
+  }
+
+  private OrderRequestDto randomOrder(LocalDate windowStart) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    LocalDate startDate = windowStart.plusDays(random.nextInt(windowDays));
+    OrderRequestDto order = new OrderRequestDto();
+    order.setCarId(carId);
+    order.setStartDate(startDate);
+    order.setEndDate(startDate.plusDays(random.nextInt(maxDays)));
+    order.setAddonIds(List.of());
+    return order;
+  }
+
+  /**
+   * Counts the orders of the car that start on or before the end date of an earlier order. Like
+   * {@link OrderRepository#isAvailableBetween}, an order occupies every date from its start date
+   * to its end date, both included.
+   */
+  private int countOverlaps() {
+    List<BookedPeriod> periods = orderRepository.findAllBookedPeriods().stream()
+        .filter(period -> period.getCarId() == carId)
+        .sorted(Comparator.comparing(BookedPeriod::getStartDate))
+        .toList();
+    int overlaps = 0;
+    LocalDate latestEnd = LocalDate.MIN;
+    for (BookedPeriod period : periods) {
+      if (!period.getStartDate().isAfter(latestEnd)) {
+        overlaps++;
+      }
+      if (period.getEndDate().isAfter(latestEnd)) {
+        latestEnd = period.getEndDate();
+      }
+    }
+    return overlaps;
+  }
+}
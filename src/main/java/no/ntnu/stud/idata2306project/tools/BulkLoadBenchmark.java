@@ -0,0 +1,215 @@
+package no.ntnu.stud.idata2306project.tools;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.model.car.CarModel;
+import no.ntnu.stud.idata2306project.model.car.FuelType;
+import no.ntnu.stud.idata2306project.model.car.TransmissionType;
+import no.ntnu.stud.idata2306project.model.order.Order;
+import no.ntnu.stud.idata2306project.model.user.User;
+import no.ntnu.stud.idata2306project.repository.CarModelRepository;
+import no.ntnu.stud.idata2306project.repository.CarRepository;
+import no.ntnu.stud.idata2306project.repository.FuelTypeRepository;
+import no.ntnu.stud.idata2306project.repository.TransmissionTypeRepository;
+import no.ntnu.stud.idata2306project.repository.UserRepository;
+import no.ntnu.stud.idata2306project.service.BulkLoadService;
+import no.ntnu.stud.idata2306project.service.CarAvailabilityIndex;
+import no.ntnu.stud.idata2306project.service.CarFleetIndex;
+import no.ntnu.stud.idata2306project.service.CarKeywordIndex;
+import no.ntnu.stud.idata2306project.service.CarOwnershipIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Benchmark of the bulk-load path, comparing it with inserting one row per round trip.
+ *
+ * <p>Runs when the application is ready if {@code bulk-load.benchmark.enabled} is true. First
+ * inserts {@code bulk-load.benchmark.baseline-rows} cars one at a time through the
+ * {@link CarRepository}, each in its own transaction, as the application used to insert data.
+ * Then inserts {@code bulk-load.benchmark.rows} cars, and one order of each of those cars, through
+ * the {@link BulkLoadService}. The time, rows per second and number of JDBC statements of each
+ * step are logged. The statements are only counted if {@code hibernate.generate_statistics} is
+ * true. Only the ids of the bulk-loaded cars are kept, and the orders refer to the cars by
+ * reference, so memory use does not grow with the number of cars. The indexes of the cars are
+ * rebuilt afterwards.
+ *
+ * <p>The cars and orders made by the benchmark are kept, so it should be run against a database
+ * that can be thrown away.
+ */
+@Component
+public class BulkLoadBenchmark implements ApplicationListener<ApplicationReadyEvent> {
+
+  private final BulkLoadService bulkLoadService;
+  private final CarRepository carRepository;
+  private final CarModelRepository carModelRepository;
+  private final FuelTypeRepository fuelTypeRepository;
+  private final TransmissionTypeRepository transmissionTypeRepository;
+  private final UserRepository userRepository;
+  private final CarAvailabilityIndex carAvailabilityIndex;
+  private final CarFleetIndex carFleetIndex;
+  private final CarKeywordIndex carKeywordIndex;
+  private final CarOwnershipIndex carOwnershipIndex;
+  private final Statistics statistics;
+  private final boolean enabled;
+  private final int rows;
+  private final int baselineRows;
+  private final Logger logger = LoggerFactory.getLogger(BulkLoadBenchmark.class);
+
+  /**
+   * Creates an instance of BulkLoadBenchmark.
+   *
+   * @param bulkLoadService the service inserting the cars and orders in bulk
+   * @param carRepository the car repository, inserting the baseline cars
+   * @param carModelRepository the car model repository, to find a model of the cars
+   * @param fuelTypeRepository the fuel type repository, to find a fuel type of the cars
+   * @param transmissionTypeRepository the transmission type repository, to find a transmission
+   *     type of the cars
+   * @param userRepository the user repository, to find a user making the orders
+   * @param carAvailabilityIndex the availability index, rebuilt after the orders are inserted
+   * @param carFleetIndex the fleet index, rebuilt after the cars are inserted
+   * @param carKeywordIndex the keyword index, rebuilt after the cars are inserted
+   * @param carOwnershipIndex the ownership index, rebuilt after the cars are inserted
+   * @param entityManagerFactory the entity manager factory, whose statistics count statements
+   * @param enabled true to run the benchmark when the application is ready
+   * @param rows the number of cars, and of orders, to insert in bulk
+   * @param baselineRows the number of cars to insert one at a time
+   */
+  public BulkLoadBenchmark(BulkLoadService bulkLoadService, CarRepository carRepository,
+      CarModelRepository carModelRepository, FuelTypeRepository fuelTypeRepository,
+      TransmissionTypeRepository transmissionTypeRepository, UserRepository userRepository,
+      CarAvailabilityIndex carAvailabilityIndex, CarFleetIndex carFleetIndex,
+      CarKeywordIndex carKeywordIndex, CarOwnershipIndex carOwnershipIndex,
+      EntityManagerFactory entityManagerFactory,
+      @Value("${bulk-load.benchmark.enabled:false}") boolean enabled,
+      @Value("${bulk-load.benchmark.rows:100000}") int rows,
+      @Value("${bulk-load.benchmark.baseline-rows:1000}") int baselineRows) {
+    this.bulkLoadService = bulkLoadService;
+    this.carRepository = carRepository;
+    this.carModelRepository = carModelRepository;
+    this.fuelTypeRepository = fuelTypeRepository;
+    this.transmissionTypeRepository = transmissionTypeRepository;
+    this.userRepository = userRepository;
+    this.carAvailabilityIndex = carAvailabilityIndex;
+    this.carFleetIndex = carFleetIndex;
+    this.carKeywordIndex = carKeywordIndex;
+    this.carOwnershipIndex = carOwnershipIndex;
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    this.enabled = enabled;
+    this.rows = rows;
+    this.baselineRows = baselineRows;
+  }
+
+  @Override
+  public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+    if (enabled) {
+      run();
+    }
+  }
+
+  /**
+   * Insert the baseline cars, then the cars and orders in bulk, and log the time of each step.
+   */
+  public void run() {
+    List<CarModel> models = carModelRepository.findAll();
+    List<FuelType> fuelTypes = fuelTypeRepository.findAll();
+    List<TransmissionType> transmissionTypes = transmissionTypeRepository.findAll();
+    List<User> users = userRepository.findAll(PageRequest.of(0, 1)).getContent();
+    if (models.isEmpty() || fuelTypes.isEmpty() || transmissionTypes.isEmpty()
+        || users.isEmpty()) {
+      logger.warn("Bulk load benchmark skipped, there is no reference data or user");
+      return;
+    }
+    CarModel model = models.get(0);
+    FuelType fuelType = fuelTypes.get(0);
+    TransmissionType transmissionType = transmissionTypes.get(0);
+    User user = users.get(0);
+    logger.info("Bulk load benchmark: {} cars one at a time, {} cars and orders in bulk",
+        baselineRows, rows);
+
+    double baselineRate = measure("cars one at a time", baselineRows, () -> {
+      for (int i = 0; i < baselineRows; i++) {
+        carRepository.save(newCar(i, model, fuelType, transmissionType));
+      }
+      return baselineRows;
+    });
+
+    LongStream.Builder carIdsBuilder = LongStream.builder();
+    double carRate = measure("cars in bulk", rows, () -> bulkLoadService.insertAll(
+        LongStream.range(0, rows).mapToObj(i -> newCar(i, model, fuelType, transmissionType)),
+        car -> carIdsBuilder.add(car.getId())));
+    long[] carIds = carIdsBuilder.build().toArray();
+
+    // The orders are created within the bulk load, so the references belong to its transaction
+    LocalDate startDate = LocalDate.now().plusYears(2);
+    double orderRate = measure("orders in bulk", rows, () -> bulkLoadService.insertAll(
+        IntStream.range(0, carIds.length).mapToObj(i -> newOrder(user,
+            carRepository.getReferenceById(carIds[i]), pricePerDay(i), startDate))));
+
+    // The cars and orders above bypass the services, so the indexes must be reloaded
+    carKeywordIndex.rebuild();
+    carFleetIndex.rebuild();
+    carOwnershipIndex.rebuild();
+    carAvailabilityIndex.rebuild();
+
+    logger.info("Bulk load benchmark: bulk inserts of cars {}x, of orders {}x the rate of "
+            + "inserting one car at a time",
+        Math.round(carRate / baselineRate), Math.round(orderRate / baselineRate));
+  }
+
+  /**
+   * Runs a step of the benchmark and logs its time, rate and number of JDBC statements.
+   *
+   * @return the number of rows inserted per second
+   */
+  private double measure(String step, int expectedRows, LongSupplier insert) {
+    long statementsBefore = statistics.getPrepareStatementCount();
+    long startedAt = System.nanoTime();
+    long inserted = insert.getAsLong();
+    long elapsedNanos = System.nanoTime() - startedAt;
+    long statements = statistics.getPrepareStatementCount() - statementsBefore;
+    double rate = inserted * 1e9 / Math.max(1, elapsedNanos);
+    logger.info("Bulk load benchmark: {} {} in {} ms, {} rows/s, {} JDBC statements",
+        inserted, step, elapsedNanos / 1_000_000, Math.round(rate),
+        statistics.isStatisticsEnabled() ? statements : "uncounted");
+    if (inserted != expectedRows) {
+      logger.error("Bulk load benchmark inserted {} {}, expected {}", inserted, step,
+          expectedRows);
+    }
+    return rate;
+  }
+
+  private static Car newCar(long i, CarModel model, FuelType fuelType,
+      TransmissionType transmissionType) {
+    return new Car(2000 + (int) (i % 25), 5, pricePerDay(i), model, fuelType,
+        transmissionType, new ArrayList<>(), new ArrayList<>(), "Bulk load benchmark car " + i);
+  }
+
+  private static int pricePerDay(long i) {
+    return 500 + (int) (i % 1000);
+  }
+
+  private static Order newOrder(User user, Car car, int pricePerDay, LocalDate startDate) {
+    Order order = new Order();
+    order.setUser(user);
+    order.setCar(car);
+    order.setStartDate(startDate);
+    order.setEndDate(startDate.plusDays(3));
+    order.setPrice(pricePerDay * 4L);
+    order.setAddons(new ArrayList<>());
+    return order;
+  }
+}
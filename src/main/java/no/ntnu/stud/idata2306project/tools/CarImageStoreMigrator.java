@@ -0,0 +1,74 @@
+package no.ntnu.stud.idata2306project.tools;
+
+import java.util.List;
+import no.ntnu.stud.idata2306project.model.image.CarImage;
+import no.ntnu.stud.idata2306project.repository.CarImageRepository;
+import no.ntnu.stud.idata2306project.service.CarImageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the bytes of car images saved before the image store existed from the database to the
+ * image store.
+ *
+ * <p>Runs when the application is ready if {@code image.store.migrate} is true. The images are
+ * moved one at a time, so only one image is held in memory, and each image is saved as soon as
+ * it is moved. An interrupted migration can therefore simply be run again.
+ */
+@Component
+public class CarImageStoreMigrator implements ApplicationListener<ApplicationReadyEvent> {
+
+  private final CarImageRepository carImageRepository;
+  private final CarImageService carImageService;
+  private final boolean enabled;
+  private final Logger logger = LoggerFactory.getLogger(CarImageStoreMigrator.class);
+
+  /**
+   * Creates an instance of CarImageStoreMigrator.
+   *
+   * @param carImageRepository the car image repository
+   * @param carImageService the car image service
+   * @param enabled true to migrate the images when the application is ready
+   */
+  public CarImageStoreMigrator(CarImageRepository carImageRepository,
+      CarImageService carImageService,
+      @Value("${image.store.migrate:false}") boolean enabled) {
+    this.carImageRepository = carImageRepository;
+    this.carImageService = carImageService;
+    this.enabled = enabled;
+  }
+
+  @Override
+  public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+    if (enabled) {
+      migrate();
+    }
+  }
+
+  /**
+   * Move every car image that is kept in the database to the image store.
+   *
+   * @return the number of car images moved
+   */
+  public int migrate() {
+    List<Long> imageIds = carImageRepository.findIdsOfImagesNotInStore();
+    logger.info("Moving {} car images to the image store", imageIds.size());
+
+    int moved = 0;
+    for (Long imageId : imageIds) {
+      CarImage carImage = carImageRepository.findById(imageId).orElse(null);
+      if (carImage != null && carImage.getContentHash() == null) {
+        carImageService.moveToStore(carImage);
+        carImageRepository.save(carImage);
+        moved++;
+      }
+    }
+    logger.info("Moved {} car images to the image store", moved);
+    return moved;
+  }
+}
@@ -14,13 +14,20 @@ import no.ntnu.stud.idata2306project.model.contact.Address;
 import no.ntnu.stud.idata2306project.model.image.CarImage;
 import no.ntnu.stud.idata2306project.model.order.Order;
 import no.ntnu.stud.idata2306project.repository.*;
+import no.ntnu.stud.idata2306project.service.CarAvailabilityIndex;
+import no.ntnu.stud.idata2306project.service.CarFleetIndex;
+import no.ntnu.stud.idata2306project.service.CarImageService;
+import no.ntnu.stud.idata2306project.service.CarKeywordIndex;
 import no.ntnu.stud.idata2306project.service.CompanyService;
+import no.ntnu.stud.idata2306project.service.ReferenceDataCache;
 
 import no.ntnu.stud.idata2306project.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
@@ -30,8 +37,14 @@ import no.ntnu.stud.idata2306project.model.user.User;
 /**
  * DummyDataInitializer is a Spring component that initializes the application with
  * dummy data when the application is ready.
+ *
+ * <p>Runs before the other tools listening for the application to be ready, so they find the
+ * data. Replaced by the {@link SyntheticDataGenerator} when the {@code synthetic-data} profile is
+ * active.
  */
 @Component
+@Profile("!synthetic-data")
+@org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
 public class DummyDataInitializer implements ApplicationListener<ApplicationReadyEvent> {
 
   private final AddressRepository addressRepository;
@@ -48,7 +61,11 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
   private UserService userService;
   private OrderRepository orderRepository;
   private UserInitializer userInitializer;
-  private CarImageRepository carImageRepository;
+  private CarAvailabilityIndex carAvailabilityIndex;
+  private CarKeywordIndex carKeywordIndex;
+  private CarFleetIndex carFleetIndex;
+  private ReferenceDataCache referenceDataCache;
+  private CarImageService carImageService;
 
   private Logger logger = LoggerFactory.getLogger(DummyDataInitializer.class);
 
@@ -66,7 +83,12 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
           UserService userService,
           OrderRepository orderRepository,
           UserInitializer userInitializer,
-          CarImageRepository carImageRepository, AddressRepository addressRepository) {
+          AddressRepository addressRepository,
+          CarAvailabilityIndex carAvailabilityIndex,
+          CarKeywordIndex carKeywordIndex,
+          CarFleetIndex carFleetIndex,
+          ReferenceDataCache referenceDataCache,
+          CarImageService carImageService) {
     this.userInitializer = userInitializer;
     this.userRepository = userRepository;
     this.carRepository = carRepository;
@@ -80,8 +102,12 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
     this.companyService = companyService;
     this.userService = userService;
     this.orderRepository = orderRepository;
-    this.carImageRepository = carImageRepository;
     this.addressRepository = addressRepository;
+    this.carAvailabilityIndex = carAvailabilityIndex;
+    this.carKeywordIndex = carKeywordIndex;
+    this.carFleetIndex = carFleetIndex;
+    this.referenceDataCache = referenceDataCache;
+    this.carImageService = carImageService;
   }
 
   @Override
@@ -321,6 +347,10 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
     List<Car> cars = List.of(car1, car2, car3, car4, car5, car6, car7, car8, car9, car10, car11, car12, car13, car14,
         car15, car16, car17, car18, car19, car20, car21, car22, car23, car24, car25, car26);
     this.carRepository.saveAll(cars);
+    // The cars above bypass CarService, so the indexes and caches of cars must be reloaded
+    this.carKeywordIndex.rebuild();
+    this.carFleetIndex.rebuild();
+    this.referenceDataCache.invalidate();
 
     millerBil.addCar(car1);
     billerBil.addCar(car2);
@@ -388,7 +418,7 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
       orderRepository.save(order1);
 
       Order order2 = new Order();
-      order2.setStartDate(LocalDate.of(2025, 1, 20));
+      order2.setStartDate(LocalDate.of(2025, 1, 21));
       order2.setEndDate(LocalDate.of(2025, 2, 6));
       order2.setAddons(List.of(gpsAddon));
       order2.setPrice(500);
@@ -434,6 +464,9 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
 
       this.userService.addFavoritesToUser(user, car1, car3);
 
+      // The orders above bypass OrderService, so the availability index must be reloaded
+      this.carAvailabilityIndex.rebuild();
+
 
     }
     initiateImages();
@@ -562,7 +595,7 @@ public class DummyDataInitializer implements ApplicationListener<ApplicationRead
     CarImage vwTransporterImage2Size1600 = new CarImage(12, vwTransporterImageData, 1600, ImageType.JPG);
     CarImage vwTransporterImage2Size800 = new CarImage(12, vwTransporter800jpgImageData, 800, ImageType.JPG);
 
-    carImageRepository.saveAll(List.of(
+    carImageService.addCarImages(List.of(
         blackTeslaImageSize1600,
         blackTeslaImage1Size1600,
         bmwM3EvoImageSize1600,
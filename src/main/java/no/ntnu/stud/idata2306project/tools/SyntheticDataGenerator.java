@@ -0,0 +1,492 @@
+package no.ntnu.stud.idata2306project.tools;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import no.ntnu.stud.idata2306project.enums.Gender;
+import no.ntnu.stud.idata2306project.model.car.Addon;
+import no.ntnu.stud.idata2306project.model.car.Car;
+import no.ntnu.stud.idata2306project.model.car.CarBrand;
+import no.ntnu.stud.idata2306project.model.car.CarModel;
+import no.ntnu.stud.idata2306project.model.car.Feature;
+import no.ntnu.stud.idata2306project.model.car.FuelType;
+import no.ntnu.stud.idata2306project.model.car.TransmissionType;
+import no.ntnu.stud.idata2306project.model.company.Company;
+import no.ntnu.stud.idata2306project.model.contact.Address;
+import no.ntnu.stud.idata2306project.model.contact.PhoneNumber;
+import no.ntnu.stud.idata2306project.model.order.Order;
+import no.ntnu.stud.idata2306project.model.user.Role;
+import no.ntnu.stud.idata2306project.model.user.User;
+import no.ntnu.stud.idata2306project.repository.RoleRepository;
+import no.ntnu.stud.idata2306project.repository.UserRepository;
+import no.ntnu.stud.idata2306project.service.BulkLoadService;
+import no.ntnu.stud.idata2306project.service.CarAvailabilityIndex;
+import no.ntnu.stud.idata2306project.service.CarFleetIndex;
+import no.ntnu.stud.idata2306project.service.CarKeywordIndex;
+import no.ntnu.stud.idata2306project.service.CarOwnershipIndex;
+import no.ntnu.stud.idata2306project.service.ReferenceDataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates a synthetic dataset of a configurable size, in place of the
+ * {@link DummyDataInitializer}, to profile the application against realistic amounts of data.
+ *
+ * <p>Runs when the application is ready if the {@code synthetic-data} profile is active. Besides
+ * the users of the {@link UserInitializer}, it generates a catalog of reference data,
+ * {@code synthetic-data.cars} cars, {@code synthetic-data.users} users with favorite cars,
+ * {@code synthetic-data.companies} companies owning the cars, and {@code synthetic-data.orders}
+ * orders. The orders of each car never overlap, and spread over the
+ * {@code synthetic-data.history-days} days before today and the
+ * {@code synthetic-data.future-days} days after.
+ *
+ * <p>The data is generated from {@code synthetic-data.seed}, so the same settings always give the
+ * same data. Cars, users and orders are generated in chunks on {@code synthetic-data.threads}
+ * threads. Each chunk has its own random generator, derived from the seed and the chunk, and is
+ * inserted through the {@link BulkLoadService}, so neither the number of threads nor the order the
+ * chunks finish in changes the data. Every generated user has the password
+ * {@code synthetic-data.password}, which is only hashed once.
+ */
+@Component
+@Profile("synthetic-data")
+@org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+public class SyntheticDataGenerator implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final int CHUNK_SIZE = 5_000;
+  private static final int MAX_ORDER_DAYS = 14;
+
+  private static final Map<String, List<String>> MODELS_BY_BRAND = new LinkedHashMap<>();
+
+  static {
+    MODELS_BY_BRAND.put("Volkswagen", List.of("Golf", "Polo", "Passat", "Transporter", "ID.4"));
+    MODELS_BY_BRAND.put("Tesla", List.of("Model 3", "Model Y", "Model S", "Model X"));
+    MODELS_BY_BRAND.put("Toyota", List.of("Corolla", "Yaris", "RAV4", "Land Cruiser", "Prius"));
+    MODELS_BY_BRAND.put("Volvo", List.of("XC40", "XC60", "XC90", "V60", "V90"));
+    MODELS_BY_BRAND.put("Nissan", List.of("Leaf", "Qashqai", "Micra"));
+    MODELS_BY_BRAND.put("Mazda", List.of("Mazda 2", "Mazda 3", "CX-5"));
+    MODELS_BY_BRAND.put("BMW", List.of("M3 Evo", "i3", "X5", "320d"));
+    MODELS_BY_BRAND.put("Skoda", List.of("Fabia", "Octavia", "Superb", "Enyaq"));
+    MODELS_BY_BRAND.put("Peugeot", List.of("207", "307 SW", "3008", "iOn", "e-208"));
+    MODELS_BY_BRAND.put("Ford", List.of("Focus", "Fiesta", "Transit", "Mustang Mach-E"));
+  }
+
+  private static final List<String> FUEL_TYPES = List.of("Petrol", "Diesel", "Electric", "Hybrid");
+  private static final List<String> TRANSMISSION_TYPES = List.of("Manual", "Automatic");
+  private static final List<String> FEATURES = List.of("GPS", "Child seat", "Bluetooth",
+      "DAB Radio", "Heated seats", "Auto pilot", "Long range", "4WD", "Sun roof",
+      "Heated steering wheel", "Heated mirrors", "Retrofitted", "Tow hook", "Ski box",
+      "FM Radio", "CD Player", "Metallic paint", "5 doors", "Eco friendly", "Apple CarPlay");
+  private static final Map<String, Integer> ADDON_PRICES = Map.of("Child seat", 200, "GPS", 500,
+      "Ski box", 300, "Snow chains", 150, "Extra driver", 250, "Full insurance", 400);
+  private static final int[] SEATS = {2, 4, 5, 5, 5, 5, 7, 8};
+  private static final List<String> DESCRIPTIONS = List.of(
+      "This is a great car for city driving. It has a compact size and is easy to park.",
+      "This car is perfect for long road trips. It has a spacious interior and a powerful engine.",
+      "This car is great for families. It has plenty of space for kids and luggage.",
+      "This car is perfect for off-road adventures. It has a rugged design and all-wheel drive.");
+  private static final List<String> FIRST_NAMES = List.of("Ola", "Kari", "Per", "Ingrid", "Lars",
+      "Nora", "Jonas", "Emma", "Magnus", "Sofie", "Henrik", "Ida", "Anders", "Maja", "Erik",
+      "Thea", "Sindre", "Sara", "Ole", "Hanna");
+  private static final List<String> LAST_NAMES = List.of("Hansen", "Johansen", "Olsen",
+      "Larsen", "Andersen", "Pedersen", "Nilsen", "Kristiansen", "Jensen", "Karlsen", "Johnsen",
+      "Pettersen", "Eriksen", "Berg", "Haugen", "Hagen", "Johannessen", "Andreassen", "Jacobsen",
+      "Dahl");
+  private static final List<String> PLACES = List.of("Oslo", "Bergen", "Trondheim", "Stavanger",
+      "Ålesund", "Tromsø", "Bodø", "Drammen", "Kristiansand", "Ørsta", "Molde", "Hamar");
+  private static final List<String> COMPANY_KINDS = List.of("Bil", "Bilutleie", "Auto",
+      "Bilforhandler", "Motor", "Bilsenter");
+  private static final List<String> STREETS = List.of("Storgata", "Kirkegata", "Strandgata",
+      "Parkveien", "Skolegata", "Fjordveien", "Borgundveien", "Sjøgata");
+
+  private final BulkLoadService bulkLoadService;
+  private final UserInitializer userInitializer;
+  private final RoleRepository roleRepository;
+  private final UserRepository userRepository;
+  private final PasswordEncoder passwordEncoder;
+  private final CarAvailabilityIndex carAvailabilityIndex;
+  private final CarKeywordIndex carKeywordIndex;
+  private final CarFleetIndex carFleetIndex;
+  private final CarOwnershipIndex carOwnershipIndex;
+  private final ReferenceDataCache referenceDataCache;
+  private final Environment environment;
+  private final long seed;
+  private final int companyCount;
+  private final int carCount;
+  private final int userCount;
+  private final int orderCount;
+  private final int historyDays;
+  private final int futureDays;
+  private final int threads;
+  private final String password;
+  private final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+  /**
+   * Creates an instance of SyntheticDataGenerator.
+   *
+   * @param bulkLoadService the service inserting the generated data
+   * @param userInitializer the initializer of the default users, which are kept
+   * @param roleRepository the role repository, to find the role of the generated users
+   * @param userRepository the user repository, to find the users making the orders
+   * @param passwordEncoder the encoder of the password of the generated users
+   * @param carAvailabilityIndex the availability index, rebuilt after the orders are generated
+   * @param carKeywordIndex the keyword index, rebuilt after the cars are generated
+   * @param carFleetIndex the fleet index, rebuilt after the cars are generated
+   * @param carOwnershipIndex the ownership index, rebuilt after the companies are generated
+   * @param referenceDataCache the reference data cache, invalidated after the cars are generated
+   * @param environment the environment, holding the email of the company user
+   * @param seed the seed of the random generators
+   * @param companyCount the number of companies
+   * @param carCount the number of cars
+   * @param userCount the number of users, besides the default users
+   * @param orderCount the number of orders
+   * @param historyDays the number of days before today the orders start from
+   * @param futureDays the number of days after today the orders reach to
+   * @param threads the number of threads generating and inserting the data
+   * @param password the password of every generated user
+   */
+  public SyntheticDataGenerator(BulkLoadService bulkLoadService, UserInitializer userInitializer,
+      RoleRepository roleRepository, UserRepository userRepository,
+      PasswordEncoder passwordEncoder, CarAvailabilityIndex carAvailabilityIndex,
+      CarKeywordIndex carKeywordIndex, CarFleetIndex carFleetIndex,
+      CarOwnershipIndex carOwnershipIndex, ReferenceDataCache referenceDataCache,
+      Environment environment,
+      @Value("${synthetic-data.seed:42}") long seed,
+      @Value("${synthetic-data.companies:100}") int companyCount,
+      @Value("${synthetic-data.cars:10000}") int carCount,
+      @Value("${synthetic-data.users:10000}") int userCount,
+      @Value("${synthetic-data.orders:100000}") int orderCount,
+      @Value("${synthetic-data.history-days:730}") int historyDays,
+      @Value("${synthetic-data.future-days:180}") int futureDays,
+      @Value("${synthetic-data.threads:4}") int threads,
+      @Value("${synthetic-data.password:password}") String password) {
+    this.bulkLoadService = bulkLoadService;
+    this.userInitializer = userInitializer;
+    this.roleRepository = roleRepository;
+    this.userRepository = userRepository;
+    this.passwordEncoder = passwordEncoder;
+    this.carAvailabilityIndex = carAvailabilityIndex;
+    this.carKeywordIndex = carKeywordIndex;
+    this.carFleetIndex = carFleetIndex;
+    this.carOwnershipIndex = carOwnershipIndex;
+    this.referenceDataCache = referenceDataCache;
+    this.environment = environment;
+    this.seed = seed;
+    this.companyCount = companyCount;
+    this.carCount = carCount;
+    this.userCount = userCount;
+    this.orderCount = orderCount;
+    this.historyDays = historyDays;
+    this.futureDays = futureDays;
+    this.threads = Math.max(1, threads);
+    this.password = password;
+  }
+
+  @Override
+  public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+    generate();
+  }
+
+  /**
+   * Generate and insert the whole dataset, and reload the indexes and caches of cars and orders.
+   */
+  public void generate() {
+    logger.info("Generating synthetic data from seed {}: {} companies, {} cars, {} users, "
+        + "{} orders on {} threads", seed, companyCount, carCount, userCount, orderCount, threads);
+    long startedAt = System.nanoTime();
+    userInitializer.initializeUsers();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+      Catalog catalog = generateCatalog();
+      List<Car> cars = generateInChunks(executor, "cars", carCount, true,
+          (random, i) -> Stream.of(newCar(random, catalog)));
+
+      Role userRole = roleRepository.findByName("USER")
+          .orElseThrow(() -> new IllegalStateException("The USER role does not exist"));
+      String encodedPassword = passwordEncoder.encode(password);
+      List<User> users = generateInChunks(executor, "users", userCount, true,
+          (random, i) -> newUser(random, i, userRole, encodedPassword, cars)).stream()
+          .filter(User.class::isInstance)
+          .map(User.class::cast)
+          .toList();
+
+      generateCompanies(cars, users);
+
+      List<User> customers = userRepository.findAll();
+      LocalDate firstDay = LocalDate.now().minusDays(historyDays);
+      generateInChunks(executor, "orders", carCount, false,
+          (random, i) -> newOrders(random, cars.get(i), ordersOfCar(i), customers, firstDay));
+    }
+
+    // The data above bypasses the services, so the indexes and caches must be reloaded
+    carKeywordIndex.rebuild();
+    carFleetIndex.rebuild();
+    carOwnershipIndex.rebuild();
+    carAvailabilityIndex.rebuild();
+    referenceDataCache.invalidate();
+    logger.info("Synthetic data generated in {} ms", (System.nanoTime() - startedAt) / 1_000_000);
+  }
+
+  /**
+   * Inserts the brands, models, fuel types, transmission types, features and addons.
+   */
+  private Catalog generateCatalog() {
+    List<CarBrand> brands = new ArrayList<>();
+    List<CarModel> models = new ArrayList<>();
+    MODELS_BY_BRAND.forEach((brandName, modelNames) -> {
+      CarBrand brand = new CarBrand(brandName);
+      brands.add(brand);
+      modelNames.forEach(modelName -> models.add(new CarModel(modelName, brand)));
+    });
+    Catalog catalog = new Catalog(models,
+        FUEL_TYPES.stream().map(FuelType::new).toList(),
+        TRANSMISSION_TYPES.stream().map(TransmissionType::new).toList(),
+        FEATURES.stream().map(Feature::new).toList(),
+        ADDON_PRICES.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(addon -> new Addon(addon.getKey(), addon.getValue()))
+            .toList());
+    bulkLoadService.insertAll(Stream.of(brands, catalog.models, catalog.fuelTypes,
+        catalog.transmissionTypes, catalog.features, catalog.addons).flatMap(List::stream));
+    return catalog;
+  }
+
+  /**
+   * Inserts the companies, each owning some of the cars and having some of the users. The first
+   * companies also have the company user of the {@link UserInitializer}, as in the dummy data.
+   */
+  private void generateCompanies(List<Car> cars, List<User> users) {
+    if (companyCount <= 0) {
+      return;
+    }
+    SplittableRandom random = randomOf("companies", 0);
+    List<Company> companies = new ArrayList<>(companyCount);
+    List<Object> entities = new ArrayList<>();
+    for (int i = 0; i < companyCount; i++) {
+      Address address = newAddress(random);
+      PhoneNumber phoneNumber = newPhoneNumber(random);
+      Company company = new Company(pick(random, PLACES) + " " + pick(random, COMPANY_KINDS)
+          + " " + (i + 1), address, phoneNumber);
+      int members = users.isEmpty() ? 0 : 1 + random.nextInt(3);
+      for (int j = 0; j < members; j++) {
+        company.addUser(pick(random, users));
+      }
+      companies.add(company);
+      entities.addAll(List.of(address, phoneNumber, company));
+    }
+    userRepository.findByEmail(environment.getProperty("COMPANY_USER_EMAIL"))
+        .ifPresent(companyUser -> companies.stream().limit(6)
+            .forEach(company -> company.addUser(companyUser)));
+    // Squaring the uniform draw gives a few large companies and many small ones
+    for (Car car : cars) {
+      double draw = random.nextDouble();
+      companies.get((int) (draw * draw * companyCount)).addCar(car);
+    }
+
+    long startedAt = System.nanoTime();
+    bulkLoadService.insertAll(entities.stream());
+    logger.info("Generated {} companies in {} ms", companyCount,
+        (System.nanoTime() - startedAt) / 1_000_000);
+  }
+
+  /**
+   * Generates entities for each index in chunks on the executor, and inserts each chunk.
+   *
+   * @param kind the kind of entities, which also seeds the random generators
+   * @param count the number of indexes
+   * @param keep true to return the generated entities
+   * @param generator the generator of the entities of one index
+   * @return the generated entities in the order of their indexes, or an empty list if not kept
+   */
+  private <T> List<T> generateInChunks(ExecutorService executor, String kind, int count,
+      boolean keep, EntityGenerator<T> generator) {
+    long startedAt = System.nanoTime();
+    AtomicLong inserted = new AtomicLong();
+    List<Future<List<T>>> chunks = new ArrayList<>();
+    for (int from = 0; from < count; from += CHUNK_SIZE) {
+      int chunkFrom = from;
+      int chunkTo = Math.min(count, from + CHUNK_SIZE);
+      chunks.add(executor.submit(() -> {
+        SplittableRandom random = randomOf(kind, chunkFrom / CHUNK_SIZE);
+        Stream<T> entities = IntStream.range(chunkFrom, chunkTo)
+            .boxed()
+            .flatMap(i -> generator.generate(random, i));
+        if (!keep) {
+          inserted.addAndGet(bulkLoadService.insertAll(entities));
+          return List.of();
+        }
+        List<T> generated = entities.toList();
+        inserted.addAndGet(bulkLoadService.insertAll(generated.stream()));
+        return generated;
+      }));
+    }
+
+    List<T> generated = new ArrayList<>();
+    try {
+      for (Future<List<T>> chunk : chunks) {
+        generated.addAll(chunk.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while generating " + kind, e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Could not generate " + kind, e.getCause());
+    }
+    long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+    logger.info("Generated {} in {} ms, {} entities inserted", kind, elapsedMillis,
+        inserted.get());
+    return generated;
+  }
+
+  private Car newCar(SplittableRandom random, Catalog catalog) {
+    CarModel model = pick(random, catalog.models);
+    List<Addon> addons = new ArrayList<>();
+    catalog.addons.stream().filter(addon -> random.nextInt(3) == 0).forEach(addons::add);
+    Set<Feature> features = new HashSet<>();
+    int featureCount = random.nextInt(5);
+    while (features.size() < featureCount) {
+      features.add(pick(random, catalog.features));
+    }
+    Car car = new Car(LocalDate.now().getYear() - random.nextInt(25), SEATS[random.nextInt(
+        SEATS.length)], 200 + 10 * random.nextInt(130), model, pick(random, catalog.fuelTypes),
+        pick(random, catalog.transmissionTypes), addons, new ArrayList<>(features),
+        pick(random, DESCRIPTIONS));
+    car.setVisible(random.nextInt(20) != 0);
+    return car;
+  }
+
+  private Stream<Object> newUser(SplittableRandom random, int i, Role role,
+      String encodedPassword, List<Car> cars) {
+    Address address = newAddress(random);
+    PhoneNumber phoneNumber = newPhoneNumber(random);
+    User user = new User();
+    user.addRole(role);
+    user.setFirstname(pick(random, FIRST_NAMES));
+    user.setLastName(pick(random, LAST_NAMES));
+    user.setEmail("user" + (i + 1) + "@synthetic.example");
+    user.setPassword(encodedPassword);
+    user.setAddress(address);
+    user.setPhoneNumber(phoneNumber);
+    user.setGender(random.nextBoolean() ? Gender.MALE : Gender.FEMALE);
+    LocalDate dateOfBirth = LocalDate.now().minusYears(18).minusDays(random.nextInt(60 * 365));
+    user.setDateOfBirth(Date.from(dateOfBirth.atStartOfDay().toInstant(ZoneOffset.UTC)));
+    Set<Car> favorites = new HashSet<>();
+    int favoriteCount = cars.isEmpty() ? 0 : random.nextInt(6);
+    for (int j = 0; j < favoriteCount; j++) {
+      favorites.add(pick(random, cars));
+    }
+    user.setFavorites(favorites);
+    return Stream.of(address, phoneNumber, user);
+  }
+
+  /**
+   * Generates the orders of a car, one after another from the first day. Each order takes an
+   * even share of the days left, split randomly between a gap and the order itself, so the
+   * orders of a car never overlap. An order occupies every date from its start date to its end
+   * date, both included, and may be a single day.
+   */
+  private Stream<Order> newOrders(SplittableRandom random, Car car, int count,
+      List<User> customers, LocalDate firstDay) {
+    List<Order> orders = new ArrayList<>(count);
+    LocalDate next = firstDay;
+    LocalDate lastDay = LocalDate.now().plusDays(futureDays);
+    for (int i = 0; i < count; i++) {
+      long daysLeft = Math.max(2, lastDay.toEpochDay() - next.toEpochDay());
+      int share = (int) Math.max(2, daysLeft / (count - i));
+      int days = random.nextInt(Math.min(MAX_ORDER_DAYS, share - 1));
+      LocalDate startDate = next.plusDays(random.nextInt(share - days));
+      LocalDate endDate = startDate.plusDays(days);
+
+      List<Addon> addons = new ArrayList<>();
+      car.getAddons().stream().filter(addon -> random.nextInt(4) == 0).forEach(addons::add);
+      Order order = new Order();
+      order.setUser(pick(random, customers));
+      order.setCar(car);
+      order.setStartDate(startDate);
+      order.setEndDate(endDate);
+      order.setAddons(addons);
+      order.setPrice(car.getPricePerDay() * (days + 1L)
+          + addons.stream().mapToLong(Addon::getPrice).sum());
+      orders.add(order);
+      next = endDate.plusDays(1);
+    }
+    return orders.stream();
+  }
+
+  private static Address newAddress(SplittableRandom random) {
+    return new Address(String.format("%04d", random.nextInt(10_000)), "Norway",
+        pick(random, STREETS) + " " + (1 + random.nextInt(120)));
+  }
+
+  private static PhoneNumber newPhoneNumber(SplittableRandom random) {
+    return new PhoneNumber("+47", String.valueOf(40_000_000 + random.nextInt(60_000_000)));
+  }
+
+  /**
+   * Returns the number of orders of the car with the given index, spreading the orders evenly.
+   */
+  private int ordersOfCar(int index) {
+    return orderCount / carCount + (index < orderCount % carCount ? 1 : 0);
+  }
+
+  /**
+   * Returns the random generator of a chunk of a kind of entities, derived from the seed.
+   */
+  private SplittableRandom randomOf(String kind, int chunk) {
+    long mixed = (seed * 31 + kind.hashCode()) * 0x9E3779B97F4A7C15L + chunk;
+    return new SplittableRandom(mixed * 0xBF58476D1CE4E5B9L);
+  }
+
+  private static <T> T pick(SplittableRandom random, List<T> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+
+  /**
+   * Generates the entities of one index, in the order they must be inserted.
+   */
+  private interface EntityGenerator<T> {
+    Stream<T> generate(SplittableRandom random, int index);
+  }
+
+  /**
+   * The reference data the cars are generated from.
+   */
+  private static final class Catalog {
+    private final List<CarModel> models;
+    private final List<FuelType> fuelTypes;
+    private final List<TransmissionType> transmissionTypes;
+    private final List<Feature> features;
+    private final List<Addon> addons;
+
+    private Catalog(List<CarModel> models, List<FuelType> fuelTypes,
+        List<TransmissionType> transmissionTypes, List<Feature> features, List<Addon> addons) {
+      this.models = models;
+      this.fuelTypes = fuelTypes;
+      this.transmissionTypes = transmissionTypes;
+      this.features = features;
+      this.addons = addons;
+    }
+  }
+}